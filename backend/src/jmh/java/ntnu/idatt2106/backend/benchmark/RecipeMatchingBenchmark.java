@@ -0,0 +1,123 @@
+package ntnu.idatt2106.backend.benchmark;
+
+import ntnu.idatt2106.backend.BackendApplication;
+import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.FetchRecipesDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
+import ntnu.idatt2106.backend.model.recipe.Recipe;
+import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
+import ntnu.idatt2106.backend.repository.recipe.RecipeRepository;
+import ntnu.idatt2106.backend.service.GroceryService;
+import ntnu.idatt2106.backend.service.RecipeIdRegistry;
+import ntnu.idatt2106.backend.service.RecipeRankingService;
+import ntnu.idatt2106.backend.service.RecipeService;
+import ntnu.idatt2106.backend.service.RefrigeratorMatchCache;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Benchmarks of the recipe recommendation hot path against an in-memory H2 database
+ * holding a synthetic catalog. Every combination of catalog and refrigerator size runs
+ * in its own fork with a fresh application context.
+ * <p>
+ * Run with {@code mvn -Pbenchmark verify}, the results are written as JSON to {@code target/jmh-result.json}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeMatchingBenchmark {
+
+    private static final int RECIPES_TO_FETCH = 10;
+    private static final int RECIPES_TO_CONVERT = 50;
+
+    @Param({"10", "1000", "100000"})
+    public int recipeCount;
+
+    @Param({"10", "500", "5000"})
+    public int refrigeratorItems;
+
+    private ConfigurableApplicationContext context;
+    private RecipeService recipeService;
+    private RecipeRankingService recipeRankingService;
+    private GroceryService groceryService;
+    private RefrigeratorMatchCache refrigeratorMatchCache;
+    private FetchRecipesDTO fetchRecipesDTO;
+    private List<Recipe> recipesToConvert;
+    private List<RecipeGrocery> recipeGroceries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .run("--spring.profiles.active=benchmark");
+        new SyntheticCatalog(context.getBean(JdbcTemplate.class)).generate(recipeCount, refrigeratorItems);
+        // The catalog was inserted with JDBC, so the registry has not seen it yet
+        context.getBean(RecipeIdRegistry.class).rebuild();
+
+        recipeService = context.getBean(RecipeService.class);
+        recipeRankingService = context.getBean(RecipeRankingService.class);
+        groceryService = context.getBean(GroceryService.class);
+        refrigeratorMatchCache = context.getBean(RefrigeratorMatchCache.class);
+
+        fetchRecipesDTO = new FetchRecipesDTO();
+        fetchRecipesDTO.setRefrigeratorId(SyntheticCatalog.REFRIGERATOR_ID);
+        fetchRecipesDTO.setNumRecipes(RECIPES_TO_FETCH);
+        fetchRecipesDTO.setFetchedRecipeIds(List.of());
+
+        List<Long> recipeIds = LongStream.rangeClosed(1, Math.min(RECIPES_TO_CONVERT, recipeCount))
+                .boxed()
+                .collect(Collectors.toList());
+        recipesToConvert = context.getBean(RecipeRepository.class).findAllById(recipeIds);
+        recipeGroceries = recipeService.getIngredientsByRecipe(recipesToConvert.get(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Ranking for /api/recipe/fetch, with the groceries and scores of the refrigerator already cached.
+     */
+    @Benchmark
+    public List<RecipeDTO> recipesByGroceriesAndExpirationDates() {
+        return recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO);
+    }
+
+    /**
+     * Ranking for /api/recipe/fetch with the refrigerator read from the database, as on the first request after a restart.
+     */
+    @Benchmark
+    public List<RecipeDTO> recipesByGroceriesAndExpirationDatesColdCache() {
+        refrigeratorMatchCache.evict(SyntheticCatalog.REFRIGERATOR_ID);
+        return recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO);
+    }
+
+    /**
+     * Ranking of the whole catalog, done when a new recipe suggestion session is started.
+     */
+    @Benchmark
+    public List<Long> rankAllRecipeIds() {
+        return recipeRankingService.rankAllRecipeIds(SyntheticCatalog.REFRIGERATOR_ID);
+    }
+
+    @Benchmark
+    public List<RecipeDTO> convertToDTOs() {
+        return recipeService.convertToDTOs(recipesToConvert);
+    }
+
+    @Benchmark
+    public HashMap<Long, List<RefrigeratorGroceryDTO>> ingredientsInRefrigerator() {
+        return groceryService.getIngredientsInRefrigerator(recipeGroceries, SyntheticCatalog.REFRIGERATOR_ID);
+    }
+}
@@ -0,0 +1,112 @@
+package ntnu.idatt2106.backend.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a synthetic recipe catalog and one refrigerator for the benchmarks.
+ * Rows are inserted with batched JDBC, since saving 100k recipes through JPA would dominate the setup time.
+ * The data is generated from a fixed seed, so every run measures the same catalog.
+ */
+public class SyntheticCatalog {
+
+    /**
+     * Id of the generated refrigerator.
+     */
+    public static final long REFRIGERATOR_ID = 1L;
+
+    static final int GROCERY_COUNT = 2000;
+    static final int INGREDIENTS_PER_RECIPE = 8;
+    private static final int SUB_CATEGORY_COUNT = 20;
+    private static final int BATCH_SIZE = 10_000;
+    private static final long SEED = 42L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Random random = new Random(SEED);
+
+    public SyntheticCatalog(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the catalog and the refrigerator.
+     * @param recipeCount number of recipes
+     * @param refrigeratorItems number of groceries stored in the refrigerator
+     */
+    public void generate(int recipeCount, int refrigeratorItems) {
+        jdbcTemplate.update("INSERT INTO category (id, name) VALUES (1, 'Category')");
+        jdbcTemplate.update("INSERT INTO Unit (id, name, weight) VALUES (1, 'g', 1), (2, 'dl', 100), (3, 'stk', 0)");
+        jdbcTemplate.update("INSERT INTO RecipeCategory (id, name, iconId) VALUES (1, 'Dinner', NULL)");
+        jdbcTemplate.update("INSERT INTO Refrigerator (id, name, address) VALUES (?, 'Benchmark', NULL)", REFRIGERATOR_ID);
+
+        List<Object[]> subCategories = new ArrayList<>();
+        for (long id = 1; id <= SUB_CATEGORY_COUNT; id++) {
+            subCategories.add(new Object[]{id, "SubCategory " + id, 1L, 7});
+        }
+        insert("INSERT INTO SubCategory (id, name, categoryId, categoryExpiryDays) VALUES (?, ?, ?, ?)", subCategories);
+
+        List<Object[]> groceries = new ArrayList<>();
+        for (long id = 1; id <= GROCERY_COUNT; id++) {
+            groceries.add(new Object[]{id, "Grocery " + id, 1 + random.nextInt(30), null, 1 + id % SUB_CATEGORY_COUNT});
+        }
+        insert("INSERT INTO Grocery (id, name, groceryExpiryDays, description, subCategoryId) VALUES (?, ?, ?, ?, ?)", groceries);
+
+        List<Object[]> recipes = new ArrayList<>();
+        List<Object[]> ingredients = new ArrayList<>();
+        long ingredientId = 1;
+        for (long recipeId = 1; recipeId <= recipeCount; recipeId++) {
+            recipes.add(new Object[]{recipeId, "Recipe " + recipeId, null, 1L});
+            for (long groceryId : distinctGroceryIds(INGREDIENTS_PER_RECIPE)) {
+                ingredients.add(new Object[]{ingredientId++, recipeId, groceryId, 1 + random.nextInt(5), 1 + random.nextInt(3)});
+            }
+            if (ingredients.size() >= BATCH_SIZE) {
+                insertRecipes(recipes, ingredients);
+            }
+        }
+        insertRecipes(recipes, ingredients);
+
+        List<Object[]> items = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (long id = 1; id <= refrigeratorItems; id++) {
+            items.add(new Object[]{id, Date.valueOf(today.plusDays(random.nextInt(14))), REFRIGERATOR_ID,
+                    1 + random.nextInt(GROCERY_COUNT), 1 + random.nextInt(3), 1 + random.nextInt(5)});
+        }
+        insert("INSERT INTO RefrigeratorGrocery (id, physicalExpireDate, refrigeratorId, groceryId, unitId, quantity) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", items);
+    }
+
+    private long[] distinctGroceryIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            long candidate;
+            boolean duplicate;
+            do {
+                candidate = 1 + random.nextInt(GROCERY_COUNT);
+                duplicate = false;
+                for (int j = 0; j < i; j++) {
+                    duplicate |= ids[j] == candidate;
+                }
+            } while (duplicate);
+            ids[i] = candidate;
+        }
+        return ids;
+    }
+
+    private void insertRecipes(List<Object[]> recipes, List<Object[]> ingredients) {
+        insert("INSERT INTO Recipe (id, name, url, categoryID) VALUES (?, ?, ?, ?)", recipes);
+        insert("INSERT INTO RecipeGrocery (id, recipeID, groceryID, quantity, unitId) VALUES (?, ?, ?, ?, ?)", ingredients);
+        recipes.clear();
+        ingredients.clear();
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
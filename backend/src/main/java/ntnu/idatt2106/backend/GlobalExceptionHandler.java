@@ -169,6 +169,40 @@ public class GlobalExceptionHandler {
                 .body(ex.getMessage());
     }
 
+    /**
+     * Handles InvalidCursorException by returning a ResponseEntity with a BAD_REQUEST status and the exception message.
+     * @param ex the InvalidCursorException that was thrown
+     * @return ResponseEntity containing a BAD_REQUEST status and an error message
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> handleInvalidCursorException(InvalidCursorException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles InvalidUnitException by returning a ResponseEntity with a BAD_REQUEST status and the exception message.
+     * @param ex the InvalidUnitException that was thrown
+     * @return ResponseEntity containing a BAD_REQUEST status and an error message
+     */
+    @ExceptionHandler(InvalidUnitException.class)
+    public ResponseEntity<String> handleInvalidUnitException(InvalidUnitException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles ExpiredCursorException by returning a ResponseEntity with a GONE status and the exception message,
+     * telling the client to start the pagination over without a cursor.
+     * @param ex the ExpiredCursorException that was thrown
+     * @return ResponseEntity containing a GONE status and an error message
+     */
+    @ExceptionHandler(ExpiredCursorException.class)
+    public ResponseEntity<String> handleExpiredCursorException(ExpiredCursorException ex) {
+        return ResponseEntity.status(HttpStatus.GONE)
+                .body(ex.getMessage());
+    }
+
     /**
      * Handles RefrigeratorNotFoundException and returns a ResponseEntity with a NOT_FOUND status code
      * and the exception message as the response body.
@@ -0,0 +1,87 @@
+package ntnu.idatt2106.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.model.GroceryHistory;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Moves the id sequences of the batch inserted entities past the ids already in their tables.
+ * <p>
+ * Sequence ids are allocated in blocks, so inserts can be batched, which identity columns prevent.
+ * The entities used to have identity columns, and a sequence created by the schema update starts at 1
+ * even when the table already has rows, so every sequence is moved past the highest id on startup,
+ * before any entity is inserted.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdSequenceInitializer {
+
+    /**
+     * Number of ids allocated from a sequence at a time, matching the JDBC batch size.
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<Class<?>, String> SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCES.put(RefrigeratorGrocery.class, "refrigerator_grocery_seq");
+        SEQUENCES.put(GroceryHistory.class, "grocery_history_seq");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    /**
+     * Moves every sequence past the highest id in its table.
+     */
+    @PostConstruct
+    public void initializeSequences() {
+        Dialect dialect = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        SEQUENCES.forEach((entity, sequenceName) -> {
+            Long maxId = entityManager.createQuery(
+                    "SELECT COALESCE(MAX(e.id), 0) FROM " + entity.getSimpleName() + " e", Long.class).getSingleResult();
+            // Pooled ids are handed out below the value read from the sequence, so leave a full block of room
+            long nextValue = maxId + ALLOCATION_SIZE + 1;
+            initializeSequence(dialect, sequenceName, nextValue);
+        });
+    }
+
+    private void initializeSequence(Dialect dialect, String sequenceName, long nextValue) {
+        if (dialect instanceof H2Dialect) {
+            Long currentValue = jdbcTemplate.queryForObject(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE UPPER(SEQUENCE_NAME) = UPPER(?)",
+                    Long.class, sequenceName);
+            if (currentValue != null && currentValue < nextValue) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequenceName + " RESTART WITH " + nextValue);
+                logger.info("Moved sequence {} to {}", sequenceName, nextValue);
+            }
+        } else if (!dialect.getSequenceSupport().supportsSequences()) {
+            // Hibernate emulates sequences with a single row table on databases without sequences, such as MySQL
+            int updated = jdbcTemplate.update(
+                    "UPDATE " + sequenceName + " SET next_val = ? WHERE next_val < ?", nextValue, nextValue);
+            if (updated > 0) {
+                logger.info("Moved sequence {} to {}", sequenceName, nextValue);
+            }
+        } else {
+            logger.warn("Could not check sequence {} on {}", sequenceName, dialect.getClass().getSimpleName());
+        }
+    }
+}
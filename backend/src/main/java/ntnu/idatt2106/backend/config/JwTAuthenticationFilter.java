@@ -2,9 +2,11 @@ package ntnu.idatt2106.backend.config;
 
 
 import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.model.User;
 import ntnu.idatt2106.backend.model.enums.AuthenticationState;
+import ntnu.idatt2106.backend.service.AuthenticationCache;
 import ntnu.idatt2106.backend.service.CookieService;
-import ntnu.idatt2106.backend.service.JwtService;
+import ntnu.idatt2106.backend.service.MembershipTokenService;
 import org.springframework.lang.NonNull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -15,7 +17,6 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -28,15 +29,18 @@ import java.util.stream.Collectors;
 
 /**
  * JWTAuthentication filter is used for authenticating users based on JWT token
- * The JWTAuthentication filter validates the token before the request is sent to a controller
+ * The JWTAuthentication filter validates the token before the request is sent to a controller.
+ * Verified tokens and their users are cached in {@link AuthenticationCache}.
+ * When tokens carry refrigerator memberships, a token with stale memberships is reissued,
+ * see {@link MembershipTokenService}.
  */
 @Component
 @RequiredArgsConstructor
 public class JwTAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final AuthenticationCache authenticationCache;
     private final CookieService cookieService;
+    private final MembershipTokenService membershipTokenService;
 
     /**
      * Method for extracting the jwt token from the cookie.
@@ -68,13 +72,15 @@ public class JwTAuthenticationFilter extends OncePerRequestFilter {
         final String jwt = cookieService.extractTokenFromCookie(request);
 
         String username = null;
+        AuthenticationCache.VerifiedToken verifiedToken = null;
         AuthenticationState authState = AuthenticationState.UNAUTHENTICATED;
 
         List<GrantedAuthority> authorities = new ArrayList<>();
         if (jwt != null) {
             try {
-                username = jwtService.extractUsername(jwt);
-                authorities = jwtService.extractRoles(jwt).stream()
+                verifiedToken = authenticationCache.verify(jwt);
+                username = verifiedToken.getUsername();
+                authorities = verifiedToken.getRoles().stream()
                         .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
                         .collect(Collectors.toList());
             } catch (ExpiredJwtException e) {
@@ -86,17 +92,23 @@ public class JwTAuthenticationFilter extends OncePerRequestFilter {
         }
 
         if (username != null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = authenticationCache.getUser(username);
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (verifiedToken.isValidFor(userDetails)) {
                 authState = AuthenticationState.AUTHENTICATED;
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
-                        null,
+                        verifiedToken,
                         authorities
                 );
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+
+                // The memberships in the token are ignored for this request, the next one uses the new token
+                if (membershipTokenService.isEnabled() && userDetails instanceof User user
+                        && !membershipTokenService.isCurrent(verifiedToken, user.getId())) {
+                    cookieService.addTokenCookie(request, response, membershipTokenService.generateToken(user));
+                }
             }
         }
         request.setAttribute("authState", authState);
@@ -0,0 +1,65 @@
+package ntnu.idatt2106.backend.config;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.event.RecipeCatalogChangedEvent;
+import ntnu.idatt2106.backend.model.recipe.Recipe;
+import ntnu.idatt2106.backend.model.recipe.RecipeCategory;
+import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener for the recipe catalog entities.
+ * Publishes a {@link RecipeCatalogChangedEvent} for every write to a Recipe, RecipeGrocery or RecipeCategory,
+ * regardless of which repository or service performed the write.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeCatalogListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Called by JPA after an entity is inserted.
+     * @param entity the inserted entity
+     */
+    @PostPersist
+    public void onPersist(Object entity) {
+        publish(entity, RecipeCatalogChangedEvent.Action.PERSIST);
+    }
+
+    /**
+     * Called by JPA after an entity is updated.
+     * @param entity the updated entity
+     */
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        publish(entity, RecipeCatalogChangedEvent.Action.UPDATE);
+    }
+
+    /**
+     * Called by JPA after an entity is removed.
+     * @param entity the removed entity
+     */
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, RecipeCatalogChangedEvent.Action.REMOVE);
+    }
+
+    private void publish(Object entity, RecipeCatalogChangedEvent.Action action) {
+        if (entity instanceof Recipe recipe) {
+            eventPublisher.publishEvent(new RecipeCatalogChangedEvent(
+                    RecipeCatalogChangedEvent.EntityType.RECIPE, action, recipe.getId(), null));
+        } else if (entity instanceof RecipeGrocery recipeGrocery) {
+            eventPublisher.publishEvent(new RecipeCatalogChangedEvent(
+                    RecipeCatalogChangedEvent.EntityType.RECIPE_GROCERY, action,
+                    recipeGrocery.getRecipe().getId(), recipeGrocery.getGrocery().getId()));
+        } else if (entity instanceof RecipeCategory) {
+            eventPublisher.publishEvent(new RecipeCatalogChangedEvent(
+                    RecipeCatalogChangedEvent.EntityType.RECIPE_CATEGORY, action, null, null));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ntnu.idatt2106.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.service.GroceryHistoryService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the grocery history rollups from the existing history on startup, before the web server
+ * accepts requests, so no history is written while the rollups are built.
+ * The backfill records a marker when it is done, and is only applied once.
+ */
+@Component
+@RequiredArgsConstructor
+public class RollupBackfillInitializer {
+
+    private final GroceryHistoryService groceryHistoryService;
+
+    /**
+     * Backfills the rollups if it has not been done yet.
+     */
+    @PostConstruct
+    public void backfillRollups() {
+        groceryHistoryService.backfillRollups();
+    }
+}
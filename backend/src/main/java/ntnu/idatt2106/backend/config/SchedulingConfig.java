@@ -0,0 +1,12 @@
+package ntnu.idatt2106.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class enabling scheduled background jobs, such as the daily generation of expiry notifications.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
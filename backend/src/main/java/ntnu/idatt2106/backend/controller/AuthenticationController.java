@@ -17,6 +17,7 @@ import ntnu.idatt2106.backend.model.authentication.AuthenticationRequest;
 import ntnu.idatt2106.backend.model.authentication.RegisterRequest;
 import ntnu.idatt2106.backend.model.dto.response.AuthenticationResponse;
 import ntnu.idatt2106.backend.model.dto.response.RegisterResponse;
+import ntnu.idatt2106.backend.service.AuthenticationCache;
 import ntnu.idatt2106.backend.service.AuthenticationService;
 import ntnu.idatt2106.backend.service.UserService;
 import org.apache.http.auth.InvalidCredentialsException;
@@ -37,6 +38,7 @@ public class AuthenticationController {
 
     private final AuthenticationService authenticationService;
     private final UserService userService;
+    private final AuthenticationCache authenticationCache;
 
     Logger logger = Logger.getLogger(AuthenticationController.class.getName());
 
@@ -120,6 +122,7 @@ public class AuthenticationController {
             for(Cookie cookie : cookies){
                 if(cookie.getName().equals("SmartMatAccessToken")){
                     logger.info("Deleting cookie");
+                    authenticationCache.invalidateToken(cookie.getValue());
 
                     String cookieValue = "SmartMatAccessToken=; Path=/; Max-Age=0; HttpOnly; SameSite=Lax";
 
@@ -120,6 +120,7 @@ public class GroceryController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Refrigerator grocery quantity updated successfully", content = @Content(schema = @Schema(implementation = SuccessResponse.class))),
             @ApiResponse(responseCode = "204", description = "Refrigerator grocery, user or shopping list not found"),
+            @ApiResponse(responseCode = "400", description = "The quantity can not be converted to the given unit"),
             @ApiResponse(responseCode = "401", description = "User is unauthorized"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
@@ -134,6 +135,8 @@ public class GroceryController {
                 shoppingListService.saveGroceryToSuggestionForRefrigerator(grocery.getGrocery().getId(),
                         grocery.getRefrigerator().getId(), dto.getUnitDTO().getId(),dto.getQuantity(), httpServletRequest);
             }
+        }catch(InvalidUnitException e){
+            throw e;
         }catch(Exception e){
             throw new Exception(e);
         }
@@ -151,6 +154,7 @@ public class GroceryController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Refrigerator grocery quantity removed successfully", content = @Content(schema = @Schema(implementation = SuccessResponse.class))),
             @ApiResponse(responseCode = "204", description = "Refrigerator grocery, user or shopping list not found"),
+            @ApiResponse(responseCode = "400", description = "The quantity can not be converted to the given unit"),
             @ApiResponse(responseCode = "401", description = "User is unauthorized"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
@@ -165,12 +169,79 @@ public class GroceryController {
                 shoppingListService.saveGroceryToSuggestionForRefrigerator(grocery.getGrocery().getId(),
                         grocery.getRefrigerator().getId(),dto.getUnitDTO().getId(),dto.getQuantity(), httpServletRequest);
             }
+        }catch(InvalidUnitException e){
+            throw e;
         }catch(Exception e){
             throw new Exception(e);
         }
         return new ResponseEntity<>(new SuccessResponse("Grocery updated properly", HttpStatus.OK.value()), HttpStatus.OK);
     }
 
+    /**
+     * "Eats" part of or entire refrigeratorGroceries in one request. Used up groceries are sent to the shopping list suggestions.
+     * @param dtos Each contains the RefrigeratorGroceryDTO, UnitDTO and quantity
+     * @param httpServletRequest request
+     * @return returns a ResponseEntity.
+     * @throws Exception
+     */
+    @Operation(summary = "eat parts or all of many refrigeratorGroceries at once")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Refrigerator grocery quantities updated successfully", content = @Content(schema = @Schema(implementation = SuccessResponse.class))),
+            @ApiResponse(responseCode = "204", description = "Refrigerator grocery, user or shopping list not found"),
+            @ApiResponse(responseCode = "400", description = "The quantity can not be converted to the given unit"),
+            @ApiResponse(responseCode = "401", description = "User is unauthorized"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/eat/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> eatRefrigeratorGroceries(@RequestBody List<DeleteRefrigeratorGroceryDTO> dtos, HttpServletRequest httpServletRequest) throws Exception {
+        try{
+            logger.info("Received request to eat " + dtos.size() + " refrigeratorGroceries");
+            sendToShoppingListSuggestions(groceryService.useRefrigeratorGroceries(dtos, false, httpServletRequest), httpServletRequest);
+        }catch(InvalidUnitException e){
+            throw e;
+        }catch(Exception e){
+            throw new Exception(e);
+        }
+        return new ResponseEntity<>(new SuccessResponse("Groceries updated properly", HttpStatus.OK.value()), HttpStatus.OK);
+    }
+
+    /**
+     * Trashes part of or entire refrigeratorGroceries in one request. Used up groceries are sent to the shopping list suggestions.
+     * @param dtos Each contains the RefrigeratorGroceryDTO, UnitDTO and quantity
+     * @param httpServletRequest request
+     * @return returns a ResponseEntity.
+     * @throws Exception
+     */
+    @Operation(summary = "Trashes parts or all of many refrigeratorGroceries at once")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Refrigerator grocery quantities removed successfully", content = @Content(schema = @Schema(implementation = SuccessResponse.class))),
+            @ApiResponse(responseCode = "204", description = "Refrigerator grocery, user or shopping list not found"),
+            @ApiResponse(responseCode = "400", description = "The quantity can not be converted to the given unit"),
+            @ApiResponse(responseCode = "401", description = "User is unauthorized"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/trash/batch")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> trashRefrigeratorGroceries(@RequestBody List<DeleteRefrigeratorGroceryDTO> dtos, HttpServletRequest httpServletRequest) throws Exception {
+        try{
+            logger.info("Received request to trash " + dtos.size() + " refrigeratorGroceries");
+            sendToShoppingListSuggestions(groceryService.useRefrigeratorGroceries(dtos, true, httpServletRequest), httpServletRequest);
+        }catch(InvalidUnitException e){
+            throw e;
+        }catch(Exception e){
+            throw new Exception(e);
+        }
+        return new ResponseEntity<>(new SuccessResponse("Groceries updated properly", HttpStatus.OK.value()), HttpStatus.OK);
+    }
+
+    private void sendToShoppingListSuggestions(List<RefrigeratorGrocery> usedUp, HttpServletRequest httpServletRequest) throws Exception {
+        for (RefrigeratorGrocery grocery : usedUp) {
+            shoppingListService.saveGroceryToSuggestionForRefrigerator(grocery.getGrocery().getId(),
+                    grocery.getRefrigerator().getId(), grocery.getUnit().getId(), grocery.getQuantity(), httpServletRequest);
+        }
+    }
+
     /**
      * Removes part of or entire refrigeratorGrocery. Calls the groceryService and passes entire DTO.
      * @param dto Contains the RefrigeratorGroceryDTO, UnitDTO and quantity
@@ -182,6 +253,7 @@ public class GroceryController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Refrigerator grocery quantity removed successfully", content = @Content(schema = @Schema(implementation = SuccessResponse.class))),
             @ApiResponse(responseCode = "204", description = "Refrigerator grocery, user or shopping list not found"),
+            @ApiResponse(responseCode = "400", description = "The quantity can not be converted to the given unit"),
             @ApiResponse(responseCode = "401", description = "User is unauthorized"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
@@ -196,6 +268,8 @@ public class GroceryController {
                 shoppingListService.saveGroceryToSuggestionForRefrigerator(grocery.getGrocery().getId(),
                         grocery.getRefrigerator().getId(),dto.getUnitDTO().getId(),dto.getQuantity(), httpServletRequest);
             }
+        }catch(InvalidUnitException e){
+            throw e;
         }catch(Exception e){
             throw new Exception(e);
         }
@@ -9,22 +9,34 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import ntnu.idatt2106.backend.exceptions.RefrigeratorNotFoundException;
+import ntnu.idatt2106.backend.exceptions.UnauthorizedException;
+import ntnu.idatt2106.backend.exceptions.UserNotFoundException;
 import ntnu.idatt2106.backend.model.Refrigerator;
 import ntnu.idatt2106.backend.model.dto.GroceryStatisticDTO;
+import ntnu.idatt2106.backend.model.dto.WasteAnalyticsDTO;
+import ntnu.idatt2106.backend.model.enums.ExportFormat;
 import ntnu.idatt2106.backend.model.dto.response.ErrorResponse;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.service.GroceryHistoryExportService;
 import ntnu.idatt2106.backend.service.GroceryHistoryService;
 import ntnu.idatt2106.backend.service.RefrigeratorService;
+import ntnu.idatt2106.backend.service.WasteAnalyticsService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -37,6 +49,8 @@ import java.util.List;
 public class GroceryHistoryController {
     private final GroceryHistoryService groceryHistoryService;
     private final RefrigeratorService refrigeratorService;
+    private final WasteAnalyticsService wasteAnalyticsService;
+    private final GroceryHistoryExportService groceryHistoryExportService;
 
     /**
      * Getter for the stats for groceries eaten or trashed the last year
@@ -59,4 +73,71 @@ public class GroceryHistoryController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Getter for the waste analytics of a refrigerator: the most wasted sub categories, the monthly waste ratio
+     * and the waste of every member
+     * @param refrigeratorId ID to the refrigerator to retrieve analytics from
+     * @param months number of months to cover, including the current month
+     * @param top maximum number of sub categories to return
+     * @param request http request
+     * @return the waste analytics
+     * @throws RefrigeratorNotFoundException If the refrigerator was not found
+     * @throws UserNotFoundException If the user was not found
+     * @throws UnauthorizedException If the user is not a member of the refrigerator
+     */
+    @Operation(summary = "Get the waste analytics of a refrigerator")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "analytics retrieved correctly", content = @Content(schema = @Schema(implementation = WasteAnalyticsDTO.class))),
+            @ApiResponse(responseCode = "204", description = "No content - Refrigerator not found", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/analytics/{refrigeratorId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<WasteAnalyticsDTO> getWasteAnalytics(@Valid @PathVariable long refrigeratorId,
+                                                               @RequestParam(defaultValue = "12") int months,
+                                                               @RequestParam(defaultValue = "5") int top,
+                                                               HttpServletRequest request) throws RefrigeratorNotFoundException, UserNotFoundException, UnauthorizedException {
+        Refrigerator refrigerator = refrigeratorService.getRefrigerator(refrigeratorId);
+        //Throws if user is not member
+        refrigeratorService.getFridgeRole(refrigerator, refrigeratorService.extractEmail(request));
+        return ResponseEntity.ok(wasteAnalyticsService.getWasteAnalytics(refrigerator.getId(), months, top));
+    }
+
+    /**
+     * Exports the history of a refrigerator as CSV or newline delimited JSON. The history is streamed
+     * from the database straight to the response, so large histories are never loaded into memory
+     * @param refrigeratorId ID to the refrigerator to export history from
+     * @param format CSV or NDJSON
+     * @param from first date to export, optional
+     * @param to last date to export, optional
+     * @param request http request
+     * @param response http response the export is written to
+     * @throws RefrigeratorNotFoundException If the refrigerator was not found
+     * @throws UserNotFoundException If the user was not found
+     * @throws UnauthorizedException If the user is not a member of the refrigerator
+     * @throws IOException If writing the response fails
+     */
+    @Operation(summary = "Export the grocery history of a refrigerator as CSV or NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "history exported", content = {
+                    @Content(mediaType = "text/csv"), @Content(mediaType = "application/x-ndjson")}),
+            @ApiResponse(responseCode = "204", description = "No content - Refrigerator not found", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping("/export/{refrigeratorId}")
+    @PreAuthorize("isAuthenticated()")
+    public void exportHistory(@Valid @PathVariable long refrigeratorId,
+                              @RequestParam(defaultValue = "CSV") ExportFormat format,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                              HttpServletRequest request, HttpServletResponse response) throws RefrigeratorNotFoundException, UserNotFoundException, UnauthorizedException, IOException {
+        Refrigerator refrigerator = refrigeratorService.getRefrigerator(refrigeratorId);
+        //Throws if user is not member
+        refrigeratorService.getFridgeRole(refrigerator, refrigeratorService.extractEmail(request));
+        String fileName = "history-" + refrigerator.getId() + (format == ExportFormat.CSV ? ".csv" : ".ndjson");
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        groceryHistoryExportService.export(refrigerator.getId(), from, to, format, response.getOutputStream());
+    }
 }
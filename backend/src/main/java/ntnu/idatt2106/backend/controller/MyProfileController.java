@@ -15,6 +15,7 @@ import ntnu.idatt2106.backend.model.dto.response.SuccessResponse;
 import ntnu.idatt2106.backend.model.dto.response.UserStatusResponse;
 import ntnu.idatt2106.backend.model.enums.AuthenticationState;
 import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.service.AuthenticationCache;
 import ntnu.idatt2106.backend.service.CookieService;
 import ntnu.idatt2106.backend.service.JwtService;
 import ntnu.idatt2106.backend.service.UserService;
@@ -42,6 +43,7 @@ public class MyProfileController {
 
     private final CookieService cookieService;
     private final PasswordEncoder passwordEncoder;
+    private final AuthenticationCache authenticationCache;
 
     Logger logger = Logger.getLogger(MyProfileController.class.getName());
 
@@ -147,10 +149,15 @@ public class MyProfileController {
         logger.info("Received request to edit profile; name: " + userProfileDTO.getName() + ", email: " + userProfileDTO.getEmail() + "");
 
         try {
-            User user = userService.findByEmail(jwtService.extractUsername(cookieService.extractTokenFromCookie(request)));
+            String jwt = cookieService.extractTokenFromCookie(request);
+            User user = userService.findByEmail(jwtService.extractUsername(jwt));
+            String oldEmail = user.getEmail();
             user.setName(userProfileDTO.getName());
             user.setEmail(userProfileDTO.getEmail());
             userService.save(user);
+            authenticationCache.invalidateToken(jwt);
+            authenticationCache.invalidateUser(oldEmail);
+            authenticationCache.invalidateUser(userProfileDTO.getEmail());
             return ResponseEntity.ok(userProfileDTO);
         }
         catch (TokenExpiredException e) {
@@ -198,6 +205,8 @@ public class MyProfileController {
         logger.info("Received request to change password for user: " + jwtService.extractUsername(jwt) + ". Password changed successfully.");
         user.setPassword(passwordEncoder.encode(passwordChangeDTO.getNewPassword()));
         userService.save(user);
+        authenticationCache.invalidateToken(jwt);
+        authenticationCache.invalidateUser(user.getEmail());
 
         return ResponseEntity.ok(new SuccessResponse("Password changed successfully", 200));
     }
@@ -11,20 +11,24 @@ import lombok.RequiredArgsConstructor;
 import ntnu.idatt2106.backend.exceptions.NotificationException;
 import ntnu.idatt2106.backend.model.User;
 import ntnu.idatt2106.backend.model.dto.GroceryNotificationDTO;
+import ntnu.idatt2106.backend.model.dto.NotificationDismissalDTO;
 import ntnu.idatt2106.backend.service.CookieService;
 import ntnu.idatt2106.backend.service.JwtService;
 import ntnu.idatt2106.backend.service.NotificationService;
+import ntnu.idatt2106.backend.service.NotificationStreamService;
 import ntnu.idatt2106.backend.service.UserService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.logging.Logger;
 
 /**
  * Controller for notifications
- * The controller has method to get all notifications and delete a notification
+ * The controller has method to get all notifications, delete a notification and dismiss notifications in bulk
  */
 @RestController
 @RequestMapping("api/notifications")
@@ -33,6 +37,7 @@ import java.util.logging.Logger;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
     private final UserService userService;
     private final JwtService jwtService;
     private final CookieService cookieService;
@@ -65,6 +70,29 @@ public class NotificationController {
         }
     }
 
+    /**
+     * Opens a stream of Server-Sent Events pushing the users new and deleted notifications,
+     * replacing polling of {@code /all}. Clients reconnecting send the id of the last event they received,
+     * and get the events they missed.
+     * @param request http request
+     * @param lastEventId id of the last received event, sent by the browser when it reconnects
+     * @return the event stream
+     */
+    @Operation(summary = "Streams the users new and deleted notifications",
+            description = "Server-Sent Events named notification, notification-deleted and resync",
+            responses = {
+            @ApiResponse(responseCode = "200", description = "If the stream was opened",
+            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE))
+            }
+    )
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter stream(HttpServletRequest request, @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        User user = userService.findByEmail(jwtService.extractUsername(cookieService.extractTokenFromCookie(request)));
+        logger.info("Opening notification stream");
+        return notificationStreamService.connect(user.getId(), lastEventId);
+    }
+
     /**
      * Deletes a notification with a specific ID
      * @param request http request
@@ -93,4 +121,64 @@ public class NotificationController {
             throw new NotificationException("Unexpected error occurred");
         }
     }
+
+    /**
+     * Dismisses several notifications with specific IDs
+     * @param request http request
+     * @param ids IDs of the notifications to dismiss
+     * @return the dismissal, with the number of dismissed notifications
+     */
+    @Operation(summary = "Dismiss notifications by ids")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notifications dismissed successfully"),
+            @ApiResponse(responseCode = "400", description = "Bad request"),
+            @ApiResponse(responseCode = "401", description = "User is not authenticated"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/dismiss")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<NotificationDismissalDTO> dismiss(HttpServletRequest request, @RequestBody List<Long> ids) {
+        User user = userService.findByEmail(jwtService.extractUsername(cookieService.extractTokenFromCookie(request)));
+        logger.info("Received request for dismissing " + ids.size() + " notifications");
+        return ResponseEntity.ok(notificationService.dismissNotifications(user, ids));
+    }
+
+    /**
+     * Dismisses the notifications regarding groceries in a refrigerator
+     * @param request http request
+     * @param refrigeratorId ID of the refrigerator
+     * @return the dismissal, with the number of dismissed notifications
+     */
+    @Operation(summary = "Dismiss all notifications of a refrigerator")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notifications dismissed successfully"),
+            @ApiResponse(responseCode = "401", description = "User is not authenticated"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/dismiss/refrigerator/{refrigeratorId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<NotificationDismissalDTO> dismissByRefrigerator(HttpServletRequest request, @PathVariable long refrigeratorId) {
+        User user = userService.findByEmail(jwtService.extractUsername(cookieService.extractTokenFromCookie(request)));
+        logger.info("Received request for dismissing notifications of refrigerator " + refrigeratorId);
+        return ResponseEntity.ok(notificationService.dismissNotificationsByRefrigerator(user, refrigeratorId));
+    }
+
+    /**
+     * Dismisses all notifications of the user
+     * @param request http request
+     * @return the dismissal, with the number of dismissed notifications
+     */
+    @Operation(summary = "Dismiss all notifications")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Notifications dismissed successfully"),
+            @ApiResponse(responseCode = "401", description = "User is not authenticated"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/dismiss/all")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<NotificationDismissalDTO> dismissAll(HttpServletRequest request) {
+        User user = userService.findByEmail(jwtService.extractUsername(cookieService.extractTokenFromCookie(request)));
+        logger.info("Received request for dismissing all notifications");
+        return ResponseEntity.ok(notificationService.dismissAllNotifications(user));
+    }
 }
@@ -10,14 +10,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.exceptions.InvalidCursorException;
 import ntnu.idatt2106.backend.exceptions.NoSuchElementException;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeCatalogDTO;
 import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
 import ntnu.idatt2106.backend.model.dto.recipe.FetchRecipesDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipePageDTO;
 import ntnu.idatt2106.backend.model.recipe.Recipe;
 import ntnu.idatt2106.backend.service.RecipeService;
+import ntnu.idatt2106.backend.service.RecipeSuggestionService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,6 +41,7 @@ public class RecipeController {
 
     private final Logger logger = Logger.getLogger(RecipeController.class.getName());
     private final RecipeService recipeService;
+    private final RecipeSuggestionService recipeSuggestionService;
 
 
     /**
@@ -65,37 +73,68 @@ public class RecipeController {
 
         logger.info("Received request to fetch recipes for user");
         logger.info(fetchRecipesDTO.toString());
-        List<RecipeDTO> recipes;
-        /*if (fetchRecipesDTO.getNumRecipes() == -1){
-            recipes = recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO, true);
-        }
-        else{
-            recipes = recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO, false);
-        }*/
-        recipes = recipeService.getSortedRecipesByMatchingGroceries(fetchRecipesDTO.getRefrigeratorId(), fetchRecipesDTO.getNumRecipes());
+        List<RecipeDTO> recipes = recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO);
 
         return ResponseEntity.ok(recipes);
     }
 
     /**
-     * Getter for all recipes
+     * Fetch a page of recipe suggestions, ranked by the groceries in the refrigerator and their expiration dates.
+     * The first page is fetched without a cursor, and each page returns the cursor to the next one.
+     * @param refrigeratorId ID to the refrigerator to evaluate groceries from
+     * @param pageSize number of recipes in the page
+     * @param cursor cursor returned by the previous page, if any
+     * @return page with recipes and the cursor to the next page
+     * @throws InvalidCursorException If the cursor is malformed, or an ExpiredCursorException if it has expired
+     */
+    @Operation(summary = "Fetch a page of recipe suggestions")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recipes fetched successfully", content = @Content(schema = @Schema(implementation = RecipePageDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Cursor is malformed or belongs to another refrigerator"),
+            @ApiResponse(responseCode = "410", description = "Cursor has expired"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/suggestions")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<RecipePageDTO> getRecipeSuggestions(
+            @RequestParam("refrigeratorId") long refrigeratorId,
+            @RequestParam(value = "pageSize", defaultValue = "10") int pageSize,
+            @RequestParam(value = "cursor", required = false) String cursor) throws InvalidCursorException {
+        logger.info("Received request to fetch recipe suggestions for refrigerator " + refrigeratorId);
+        return ResponseEntity.ok(recipeSuggestionService.getSuggestions(refrigeratorId, pageSize, cursor));
+    }
+
+    /**
+     * Getter for all recipes. The response carries an ETag for the current version of the recipe catalog,
+     * and a request with a matching If-None-Match header gets 304 Not Modified without a body.
+     * @param webRequest the request, checked against the ETag of the catalog
      * @return list with all recipes
      * @throws NoSuchElementException If no recipes
      */
     @Operation(summary = "Get all recipes")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "All recipes retrieved successfully", content = @Content(array = @ArraySchema(schema = @Schema(implementation = RecipeDTO.class)))),
+            @ApiResponse(responseCode = "304", description = "Recipes not modified since the given ETag"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/all")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getAllRecipes() throws NoSuchElementException {
+    public ResponseEntity<?> getAllRecipes(WebRequest webRequest) throws NoSuchElementException {
         logger.info("Received request to get all recipes");
-        List<RecipeDTO> allRecipes = recipeService.getAllRecipes();
-        if (allRecipes.isEmpty()) {
+        RecipeCatalogDTO recipeCatalog = recipeService.getRecipeCatalog();
+        if (recipeCatalog.getRecipes().isEmpty()) {
             throw new NoSuchElementException("No recipes found");
         }
 
-        return ResponseEntity.ok(allRecipes);
+        if (webRequest.checkNotModified(recipeCatalog.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(recipeCatalog.getETag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(recipeCatalog.getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(recipeCatalog.getRecipes());
     }
 }
@@ -0,0 +1,20 @@
+package ntnu.idatt2106.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Application event published when grocery history has been written or purged,
+ * so analytics computed from it can be evicted.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class GroceryHistoryChangedEvent {
+
+    /**
+     * The refrigerator whose history changed, or null if history of several refrigerators changed.
+     */
+    private final Long refrigeratorId;
+}
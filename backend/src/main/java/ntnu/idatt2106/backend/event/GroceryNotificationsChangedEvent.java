@@ -0,0 +1,19 @@
+package ntnu.idatt2106.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
+
+import java.util.List;
+
+/**
+ * Application event published when grocery notifications have been created or deleted,
+ * so they can be pushed to the users they belong to.
+ * Has no toString, since notifications and their grocery entities refer to each other.
+ */
+@Getter
+@AllArgsConstructor
+public class GroceryNotificationsChangedEvent {
+    private final List<GroceryNotification> created;
+    private final List<GroceryNotification> deleted;
+}
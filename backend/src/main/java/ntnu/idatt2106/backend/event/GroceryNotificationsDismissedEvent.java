@@ -0,0 +1,18 @@
+package ntnu.idatt2106.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import ntnu.idatt2106.backend.model.dto.NotificationDismissalDTO;
+
+/**
+ * Application event published when a user has dismissed notifications in bulk,
+ * so the dismissal can be pushed to the other connections of the user.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class GroceryNotificationsDismissedEvent {
+    private final String userId;
+    private final NotificationDismissalDTO dismissal;
+}
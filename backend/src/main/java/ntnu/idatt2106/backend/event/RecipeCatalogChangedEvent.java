@@ -0,0 +1,38 @@
+package ntnu.idatt2106.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Application event published whenever an entity in the recipe catalog is written.
+ * Used to keep the in-memory recipe indexes in sync with the database.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RecipeCatalogChangedEvent {
+
+    /**
+     * The catalog entity that was written.
+     */
+    public enum EntityType {
+        RECIPE,
+        RECIPE_GROCERY,
+        RECIPE_CATEGORY
+    }
+
+    /**
+     * The kind of write that happened to the entity.
+     */
+    public enum Action {
+        PERSIST,
+        UPDATE,
+        REMOVE
+    }
+
+    private final EntityType entityType;
+    private final Action action;
+    private final Long recipeId;
+    private final Long groceryId;
+}
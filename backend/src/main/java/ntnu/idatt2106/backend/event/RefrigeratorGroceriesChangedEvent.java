@@ -0,0 +1,19 @@
+package ntnu.idatt2106.backend.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * Application event published when groceries in a refrigerator have been added, used, updated or removed.
+ * Holds the ids of the groceries whose rows changed, so caches can apply only the delta.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RefrigeratorGroceriesChangedEvent {
+    private final long refrigeratorId;
+    private final Set<Long> groceryIds;
+}
@@ -0,0 +1,11 @@
+package ntnu.idatt2106.backend.exceptions;
+
+/**
+ * Custom exception class that represents a scenario when a well-formed pagination cursor refers to a session
+ * that has expired or been evicted.
+ */
+public class ExpiredCursorException extends InvalidCursorException {
+    public ExpiredCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package ntnu.idatt2106.backend.exceptions;
+
+/**
+ * Custom exception class that represents a scenario when a pagination cursor is malformed or can not be used.
+ */
+public class InvalidCursorException extends Exception {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package ntnu.idatt2106.backend.exceptions;
+
+/**
+ * Custom exception class that represents a scenario when a quantity can not be converted to the requested unit.
+ */
+public class InvalidUnitException extends Exception {
+    public InvalidUnitException(String message) {
+        super(message);
+    }
+}
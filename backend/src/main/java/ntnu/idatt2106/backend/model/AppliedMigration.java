@@ -0,0 +1,35 @@
+package ntnu.idatt2106.backend.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Marker of a one-time data migration that has been applied, so it is not applied again on the next startup.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "AppliedMigration")
+@Schema(description = "A data migration that has been applied")
+@Entity
+public class AppliedMigration {
+
+    @Id
+    @Column(name = "name")
+    @Schema(description = "The name of the migration")
+    private String name;
+
+    @NotNull
+    @Column(name = "appliedAt")
+    @Schema(description = "When the migration was applied")
+    private LocalDateTime appliedAt;
+}
@@ -7,6 +7,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ntnu.idatt2106.backend.config.IdSequenceInitializer;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
 
 import java.time.LocalDate;
 import java.util.Date;
@@ -19,13 +21,17 @@ import java.util.Date;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "GroceryHistory")
+@Table(name = "GroceryHistory", indexes = {
+        @Index(name = "idx_grocery_history_date_consumed", columnList = "dateConsumed"),
+        @Index(name = "idx_grocery_history_refrigerator_date", columnList = "refrigeratorId, dateConsumed")
+})
 @Schema(description = "An entity represents a previously existing grocery")
 @Entity
 public class GroceryHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "grocery_history_seq")
+    @SequenceGenerator(name = "grocery_history_seq", sequenceName = "grocery_history_seq", allocationSize = IdSequenceInitializer.ALLOCATION_SIZE)
     @Schema(description = "The id to the refrigerator where the grocery existed, automatically generated")
     private long id;
 
@@ -48,4 +54,19 @@ public class GroceryHistory {
     @Column(name = "weightInGrams")
     private Integer weightInGrams;
 
+    @ManyToOne()
+    @JoinColumn(name = "groceryId")
+    @Schema(description = "The grocery that was eaten or trashed, missing on history recorded before it was tracked")
+    private Grocery grocery;
+
+    @ManyToOne()
+    @JoinColumn(name = "subCategoryId")
+    @Schema(description = "The sub category of the grocery when it was eaten or trashed")
+    private SubCategory subCategory;
+
+    @ManyToOne()
+    @JoinColumn(name = "userId")
+    @Schema(description = "The member who ate or trashed the grocery")
+    private User user;
+
 }
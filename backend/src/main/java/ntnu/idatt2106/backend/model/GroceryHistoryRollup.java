@@ -0,0 +1,35 @@
+package ntnu.idatt2106.backend.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+/**
+ * Totals of the grocery history of a refrigerator in one month, kept up to date when history is written,
+ * so statistics are read without scanning the history.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "GroceryHistoryRollup")
+@Schema(description = "The total weight eaten and trashed in a refrigerator during one month")
+@Entity
+public class GroceryHistoryRollup {
+
+    @EmbeddedId
+    @Schema(description = "The refrigerator and month of the totals")
+    private GroceryHistoryRollupId id;
+
+    @Column(name = "eatenInGrams")
+    @Schema(description = "Total weight of eaten groceries")
+    private long eatenInGrams;
+
+    @Column(name = "trashedInGrams")
+    @Schema(description = "Total weight of trashed groceries")
+    private long trashedInGrams;
+}
@@ -0,0 +1,46 @@
+package ntnu.idatt2106.backend.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.YearMonth;
+
+/**
+ * Primary key of a {@link GroceryHistoryRollup}, a refrigerator and a month. The month is stored as
+ * {@code year * 100 + month}, so a range of months is a range of keys.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class GroceryHistoryRollupId implements Serializable {
+
+    @Column(name = "refrigeratorId")
+    private long refrigeratorId;
+
+    @Column(name = "yearMonthKey")
+    private int yearMonth;
+
+    /**
+     * Creates the key of a refrigerator and a month.
+     * @param refrigeratorId id of the refrigerator
+     * @param month the month
+     * @return the key
+     */
+    public static GroceryHistoryRollupId of(long refrigeratorId, YearMonth month) {
+        return new GroceryHistoryRollupId(refrigeratorId, toKey(month));
+    }
+
+    /**
+     * Converts a month to its stored value.
+     * @param month the month
+     * @return {@code year * 100 + month}
+     */
+    public static int toKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+}
@@ -0,0 +1,18 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the total weight of groceries of one sub category trashed and eaten in a refrigerator.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryWasteDTO {
+    private Long subCategoryId;
+    private String subCategoryName;
+    private Long trashedInGrams;
+    private Long eatenInGrams;
+}
@@ -0,0 +1,27 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO for one exported grocery history entry. The grocery, sub category and member are missing on history
+ * recorded before they were tracked.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroceryHistoryExportDTO {
+    private Long id;
+    private LocalDate dateConsumed;
+    private Boolean wasTrashed;
+    private Integer weightInGrams;
+    private Long groceryId;
+    private String groceryName;
+    private Long subCategoryId;
+    private String subCategoryName;
+    private String userId;
+    private String userName;
+}
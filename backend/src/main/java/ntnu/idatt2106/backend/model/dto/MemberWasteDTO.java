@@ -0,0 +1,18 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the total weight of groceries one member of a refrigerator has trashed and eaten.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberWasteDTO {
+    private String userId;
+    private String name;
+    private Long trashedInGrams;
+    private Long eatenInGrams;
+}
@@ -0,0 +1,19 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the total weight of groceries eaten or trashed in a refrigerator during one month.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyConsumptionDTO {
+    private Long refrigeratorId;
+    private Integer year;
+    private Integer month;
+    private Boolean wasTrashed;
+    private Long weightInGrams;
+}
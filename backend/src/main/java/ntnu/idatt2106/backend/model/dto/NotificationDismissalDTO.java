@@ -0,0 +1,20 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Describes notifications dismissed in bulk: the given ids, the notifications of a refrigerator,
+ * or all notifications of the user when both are null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDismissalDTO {
+    private List<Long> ids;
+    private Long refrigeratorId;
+    private int dismissed;
+}
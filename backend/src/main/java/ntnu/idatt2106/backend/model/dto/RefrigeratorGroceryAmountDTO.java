@@ -0,0 +1,21 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO for the amount and expiry date of a grocery stored in a refrigerator.
+ * The unit id is null if the grocery has no unit.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefrigeratorGroceryAmountDTO {
+    private long groceryId;
+    private int quantity;
+    private Long unitId;
+    private LocalDate physicalExpireDate;
+}
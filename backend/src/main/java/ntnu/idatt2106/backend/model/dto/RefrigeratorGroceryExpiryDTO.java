@@ -0,0 +1,20 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO for the expiry date of a grocery stored in a refrigerator, with the ids of the refrigerator and grocery.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefrigeratorGroceryExpiryDTO {
+    private long refrigeratorGroceryId;
+    private long refrigeratorId;
+    private long groceryId;
+    private LocalDate physicalExpireDate;
+}
@@ -0,0 +1,22 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for the waste analytics of a refrigerator: the most wasted sub categories, the monthly waste ratio
+ * with the current month first, and the waste of every member.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WasteAnalyticsDTO {
+    private List<CategoryWasteDTO> topWastedCategories;
+    private List<WasteTrendDTO> wasteTrend;
+    private List<MemberWasteDTO> members;
+}
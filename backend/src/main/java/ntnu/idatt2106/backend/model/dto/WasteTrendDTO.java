@@ -0,0 +1,21 @@
+package ntnu.idatt2106.backend.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the share of the groceries of a refrigerator that were trashed during one month.
+ * Holds a month and year in monthName in following syntax "January, 2023".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WasteTrendDTO {
+    private String monthName;
+    private Long trashedInGrams;
+    private Long eatenInGrams;
+    private Double wasteRatio;
+}
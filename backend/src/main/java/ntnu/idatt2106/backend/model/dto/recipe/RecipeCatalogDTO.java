@@ -0,0 +1,22 @@
+package ntnu.idatt2106.backend.model.dto.recipe;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Immutable snapshot of the recipe catalog.
+ * The version is increased on every change to the catalog, and is used to build the ETag.
+ */
+@Getter
+public class RecipeCatalogDTO {
+    private final long version;
+    private final String eTag;
+    private final List<RecipeDTO> recipes;
+
+    public RecipeCatalogDTO(long version, String eTag, List<RecipeDTO> recipes) {
+        this.version = version;
+        this.eTag = eTag;
+        this.recipes = List.copyOf(recipes);
+    }
+}
@@ -0,0 +1,20 @@
+package ntnu.idatt2106.backend.model.dto.recipe;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ntnu.idatt2106.backend.model.Unit;
+
+/**
+ * DTO for one ingredient row of a recipe, with the grocery name and unit already joined in.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeIngredientRowDTO {
+    private long recipeId;
+    private long groceryId;
+    private String groceryName;
+    private int quantity;
+    private Unit unit;
+}
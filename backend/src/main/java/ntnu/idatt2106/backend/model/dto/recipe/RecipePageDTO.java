@@ -0,0 +1,19 @@
+package ntnu.idatt2106.backend.model.dto.recipe;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for one page of recipe suggestions.
+ * The next cursor is used to fetch the following page, and is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipePageDTO {
+    private List<RecipeDTO> recipes;
+    private String nextCursor;
+}
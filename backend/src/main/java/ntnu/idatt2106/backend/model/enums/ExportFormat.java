@@ -0,0 +1,19 @@
+package ntnu.idatt2106.backend.model.enums;
+
+/**
+ * Format of an export, with its content type.
+ */
+public enum ExportFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
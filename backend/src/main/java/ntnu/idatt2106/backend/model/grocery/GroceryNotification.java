@@ -13,7 +13,7 @@ import ntnu.idatt2106.backend.model.User;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "GroceryNotification")
+@Table(name = "GroceryNotification", indexes = @Index(name = "idx_grocery_notification_user_deleted", columnList = "users, deleted"))
 @Schema(description = "A notification regarding a grocery entity, for example a grocery entity is expiring soon")
 @Entity
 public class GroceryNotification {
@@ -1,5 +1,6 @@
 package ntnu.idatt2106.backend.model.grocery;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
@@ -7,6 +8,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ntnu.idatt2106.backend.config.IdSequenceInitializer;
 import ntnu.idatt2106.backend.model.Refrigerator;
 import ntnu.idatt2106.backend.model.Unit;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
@@ -31,7 +33,8 @@ import java.util.Set;
 public class RefrigeratorGrocery {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refrigerator_grocery_seq")
+    @SequenceGenerator(name = "refrigerator_grocery_seq", sequenceName = "refrigerator_grocery_seq", allocationSize = IdSequenceInitializer.ALLOCATION_SIZE)
     @Schema(description = "The id for the connection between refrigerator and grocery, automatically generated")
     private long id;
 
@@ -62,6 +65,7 @@ public class RefrigeratorGrocery {
     @Schema(description = "THe quantity of specified units")
     private int quantity;
 
+    @JsonIgnore
     @OneToMany(mappedBy = "groceryEntity", cascade = CascadeType.REMOVE)
     private Set<GroceryNotification> groceryNotifications = new HashSet<>();
 }
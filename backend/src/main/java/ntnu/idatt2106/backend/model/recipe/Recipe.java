@@ -4,6 +4,7 @@ package ntnu.idatt2106.backend.model.recipe;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.*;
+import ntnu.idatt2106.backend.config.RecipeCatalogListener;
 
 
 /**
@@ -14,6 +15,7 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(RecipeCatalogListener.class)
 @Table(name = "Recipe")
 @Schema(description = "A recipe in the application")
 public class Recipe {
@@ -3,6 +3,7 @@ package ntnu.idatt2106.backend.model.recipe;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import lombok.*;
+import ntnu.idatt2106.backend.config.RecipeCatalogListener;
 
 
 /**
@@ -13,6 +14,7 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(RecipeCatalogListener.class)
 @Table(name = "RecipeCategory")
 @Schema(description = "A recipe category in the application")
 public class RecipeCategory {
@@ -3,6 +3,7 @@ package ntnu.idatt2106.backend.model.recipe;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
+import ntnu.idatt2106.backend.config.RecipeCatalogListener;
 import jakarta.persistence.*;
 import ntnu.idatt2106.backend.model.Unit;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
@@ -16,6 +17,7 @@ import ntnu.idatt2106.backend.model.grocery.Grocery;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(RecipeCatalogListener.class)
 @Table(name = "RecipeGrocery")
 @Schema(description = "A relationship between a recipe and its grocery items")
 public class RecipeGrocery {
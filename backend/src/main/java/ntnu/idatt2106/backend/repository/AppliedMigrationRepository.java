@@ -0,0 +1,12 @@
+package ntnu.idatt2106.backend.repository;
+
+import ntnu.idatt2106.backend.model.AppliedMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for AppliedMigration entity.
+ */
+@Repository
+public interface AppliedMigrationRepository extends JpaRepository<AppliedMigration, String> {
+}
@@ -1,14 +1,28 @@
 package ntnu.idatt2106.backend.repository;
 
 
+import jakarta.persistence.QueryHint;
 import ntnu.idatt2106.backend.model.GroceryHistory;
 import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.dto.CategoryWasteDTO;
+import ntnu.idatt2106.backend.model.dto.GroceryHistoryExportDTO;
+import ntnu.idatt2106.backend.model.dto.MemberWasteDTO;
+import ntnu.idatt2106.backend.model.dto.MonthlyConsumptionDTO;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 /**
@@ -34,10 +48,83 @@ public interface GroceryHistoryRepository extends JpaRepository<GroceryHistory,
     List<GroceryHistory> findByDateConsumedBetweenAndRefrigeratorId(LocalDate startDate, LocalDate endDate, Long refrigeratorId);
 
     /**
-     * Deletes all consumed before given date.
+     * Returns the total weight eaten and trashed per refrigerator and month, over all history.
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.MonthlyConsumptionDTO(" +
+            "h.refrigerator.id, YEAR(h.dateConsumed), MONTH(h.dateConsumed), h.wasTrashed, SUM(h.weightInGrams)) " +
+            "FROM GroceryHistory h " +
+            "GROUP BY h.refrigerator.id, YEAR(h.dateConsumed), MONTH(h.dateConsumed), h.wasTrashed")
+    List<MonthlyConsumptionDTO> sumWeightByRefrigeratorAndMonth();
+
+    /**
+     * Returns the total weight trashed and eaten per sub category in a specified refrigerator since given date.
+     * History without a sub category is left out.
+     * @param refrigeratorId
+     * @param startDate
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.CategoryWasteDTO(sc.id, sc.name, " +
+            "SUM(CASE WHEN h.wasTrashed = true THEN h.weightInGrams ELSE 0 END), " +
+            "SUM(CASE WHEN h.wasTrashed = false THEN h.weightInGrams ELSE 0 END)) " +
+            "FROM GroceryHistory h JOIN h.subCategory sc " +
+            "WHERE h.refrigerator.id = :refrigeratorId AND h.dateConsumed >= :startDate " +
+            "GROUP BY sc.id, sc.name")
+    List<CategoryWasteDTO> sumWeightBySubCategory(@Param("refrigeratorId") long refrigeratorId,
+                                                  @Param("startDate") LocalDate startDate);
+
+    /**
+     * Returns the total weight trashed and eaten per member in a specified refrigerator since given date.
+     * History without a member is left out.
+     * @param refrigeratorId
+     * @param startDate
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.MemberWasteDTO(u.id, u.name, " +
+            "SUM(CASE WHEN h.wasTrashed = true THEN h.weightInGrams ELSE 0 END), " +
+            "SUM(CASE WHEN h.wasTrashed = false THEN h.weightInGrams ELSE 0 END)) " +
+            "FROM GroceryHistory h JOIN h.user u " +
+            "WHERE h.refrigerator.id = :refrigeratorId AND h.dateConsumed >= :startDate " +
+            "GROUP BY u.id, u.name")
+    List<MemberWasteDTO> sumWeightByUser(@Param("refrigeratorId") long refrigeratorId,
+                                         @Param("startDate") LocalDate startDate);
+
+    /**
+     * Streams the GroceryHistory elements of a specified refrigerator between two dates as export rows,
+     * oldest first. Rows are fetched from the database in batches, and must be read within a transaction.
+     * @param refrigeratorId
+     * @param startDate
+     * @param endDate
+     * @return
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.GroceryHistoryExportDTO(h.id, h.dateConsumed, h.wasTrashed, " +
+            "h.weightInGrams, g.id, g.name, sc.id, sc.name, u.id, u.name) " +
+            "FROM GroceryHistory h LEFT JOIN h.grocery g LEFT JOIN h.subCategory sc LEFT JOIN h.user u " +
+            "WHERE h.refrigerator.id = :refrigeratorId AND h.dateConsumed BETWEEN :startDate AND :endDate " +
+            "ORDER BY h.dateConsumed, h.id")
+    Stream<GroceryHistoryExportDTO> streamExport(@Param("refrigeratorId") long refrigeratorId,
+                                                 @Param("startDate") LocalDate startDate,
+                                                 @Param("endDate") LocalDate endDate);
+
+    /**
+     * Returns ids of GroceryHistory elements consumed before given date, limited by the pageable.
      * @param date
+     * @param pageable
+     * @return
+     */
+    @Query("SELECT h.id FROM GroceryHistory h WHERE h.dateConsumed < :date")
+    List<Long> findIdsByDateConsumedBefore(@Param("date") LocalDate date, Pageable pageable);
+
+    /**
+     * Deletes the GroceryHistory elements with given ids in one statement, in its own transaction.
+     * @param ids
+     * @return number of deleted elements
      */
-    void deleteByDateConsumedBefore(LocalDate date);
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GroceryHistory h WHERE h.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 
     /**
      * Finds a potential GroceryHistory object based on the date consumed, weight in grams and the refrigerator.
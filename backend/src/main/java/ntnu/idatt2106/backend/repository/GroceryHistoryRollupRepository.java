@@ -0,0 +1,33 @@
+package ntnu.idatt2106.backend.repository;
+
+
+import ntnu.idatt2106.backend.model.GroceryHistoryRollup;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+
+/**
+ * Repository for GroceryHistoryRollup entity.
+ */
+@Repository
+public interface GroceryHistoryRollupRepository extends JpaRepository<GroceryHistoryRollup, GroceryHistoryRollupId>,
+        GroceryHistoryRollupRepositoryCustom {
+
+    /**
+     * Returns the rollups of a refrigerator between two months, both included.
+     * @param refrigeratorId
+     * @param startMonth
+     * @param endMonth
+     * @return
+     */
+    @Query("SELECT r FROM GroceryHistoryRollup r WHERE r.id.refrigeratorId = :refrigeratorId " +
+            "AND r.id.yearMonth BETWEEN :startMonth AND :endMonth")
+    List<GroceryHistoryRollup> findAllByRefrigeratorIdAndMonths(@Param("refrigeratorId") long refrigeratorId,
+                                                                @Param("startMonth") int startMonth,
+                                                                @Param("endMonth") int endMonth);
+}
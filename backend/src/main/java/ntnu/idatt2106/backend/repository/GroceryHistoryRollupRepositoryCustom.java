@@ -0,0 +1,18 @@
+package ntnu.idatt2106.backend.repository;
+
+
+/**
+ * Custom queries for the GroceryHistoryRollup entity, that can not be expressed in JPQL.
+ */
+public interface GroceryHistoryRollupRepositoryCustom {
+
+    /**
+     * Adds weights to the totals of a rollup in one statement, creating the rollup if it does not exist.
+     * Safe against concurrent writers creating the same rollup.
+     * @param refrigeratorId
+     * @param yearMonth
+     * @param eatenInGrams
+     * @param trashedInGrams
+     */
+    void addToTotals(long refrigeratorId, int yearMonth, long eatenInGrams, long trashedInGrams);
+}
@@ -0,0 +1,83 @@
+package ntnu.idatt2106.backend.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollup;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.mapping.BasicValuedModelPart;
+import org.hibernate.metamodel.mapping.CompositeIdentifierMapping;
+import org.hibernate.metamodel.mapping.EmbeddableMappingType;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+
+/**
+ * Implementation of the custom GroceryHistoryRollup queries, as native upserts.
+ * Uses MERGE on H2 and INSERT ... ON DUPLICATE KEY UPDATE on MySQL and MariaDB. Other databases are
+ * rejected on startup. The table and column names are read from the Hibernate mapping, so the statements
+ * follow the physical naming strategy in use.
+ */
+public class GroceryHistoryRollupRepositoryImpl implements GroceryHistoryRollupRepositoryCustom {
+
+    private static final String MERGE_H2 = "MERGE INTO %1$s r " +
+            "USING (VALUES (CAST(:refrigeratorId AS BIGINT), CAST(:yearMonth AS INTEGER))) s(%2$s, %3$s) " +
+            "ON r.%2$s = s.%2$s AND r.%3$s = s.%3$s " +
+            "WHEN MATCHED THEN UPDATE SET %4$s = r.%4$s + :eatenInGrams, %5$s = r.%5$s + :trashedInGrams " +
+            "WHEN NOT MATCHED THEN INSERT (%2$s, %3$s, %4$s, %5$s) " +
+            "VALUES (:refrigeratorId, :yearMonth, :eatenInGrams, :trashedInGrams)";
+
+    private static final String UPSERT_MYSQL = "INSERT INTO %1$s (%2$s, %3$s, %4$s, %5$s) " +
+            "VALUES (:refrigeratorId, :yearMonth, :eatenInGrams, :trashedInGrams) " +
+            "ON DUPLICATE KEY UPDATE %4$s = %4$s + :eatenInGrams, %5$s = %5$s + :trashedInGrams";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private String upsert;
+
+    /**
+     * Builds the upsert statement for the database in use.
+     * @throws IllegalStateException if the database has no supported upsert statement
+     */
+    @PostConstruct
+    public void prepareUpsert() {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class);
+        AbstractEntityPersister persister = (AbstractEntityPersister) sessionFactory.getRuntimeMetamodels()
+                .getMappingMetamodel().getEntityDescriptor(GroceryHistoryRollup.class);
+        EmbeddableMappingType id = ((CompositeIdentifierMapping) persister.getIdentifierMapping()).getPartMappingType();
+
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        String template;
+        if (dialect instanceof H2Dialect) {
+            template = MERGE_H2;
+        } else if (dialect instanceof MySQLDialect) {
+            template = UPSERT_MYSQL;
+        } else {
+            throw new IllegalStateException("Grocery history rollups can not be upserted on "
+                    + dialect.getClass().getSimpleName() + ", only H2, MySQL and MariaDB are supported");
+        }
+        upsert = String.format(template, persister.getRootTableName(),
+                column(id.findAttributeMapping("refrigeratorId")), column(id.findAttributeMapping("yearMonth")),
+                column(persister.findAttributeMapping("eatenInGrams")),
+                column(persister.findAttributeMapping("trashedInGrams")));
+    }
+
+    @Override
+    public void addToTotals(long refrigeratorId, int yearMonth, long eatenInGrams, long trashedInGrams) {
+        entityManager.createNativeQuery(upsert)
+                .setParameter("refrigeratorId", refrigeratorId)
+                .setParameter("yearMonth", yearMonth)
+                .setParameter("eatenInGrams", eatenInGrams)
+                .setParameter("trashedInGrams", trashedInGrams)
+                .executeUpdate();
+    }
+
+    private static String column(ModelPart attribute) {
+        return ((BasicValuedModelPart) attribute).getSelectionExpression();
+    }
+}
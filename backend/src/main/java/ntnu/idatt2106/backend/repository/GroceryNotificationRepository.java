@@ -4,8 +4,12 @@ package ntnu.idatt2106.backend.repository;
 import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,4 +41,70 @@ public interface GroceryNotificationRepository extends JpaRepository<GroceryNoti
      */
     List<GroceryNotification> findAllByGroceryEntity(RefrigeratorGrocery groceryEntity);
 
+    /**
+     * Returns the notifications of a user which are not deleted, with their grocery entities fetched in the same query.
+     * @param userId
+     * @return
+     */
+    @Query("SELECT n FROM GroceryNotification n JOIN FETCH n.user LEFT JOIN FETCH n.groceryEntity rg " +
+            "LEFT JOIN FETCH rg.refrigerator LEFT JOIN FETCH rg.grocery g LEFT JOIN FETCH g.subCategory sc " +
+            "LEFT JOIN FETCH sc.category LEFT JOIN FETCH rg.unit " +
+            "WHERE n.user.id = :userId AND n.deleted = false")
+    List<GroceryNotification> findAllActiveByUserId(@Param("userId") String userId);
+
+    /**
+     * Returns the notifications of the given grocery entities.
+     * @param groceryEntityIds
+     * @return
+     */
+    @Query("SELECT n FROM GroceryNotification n WHERE n.groceryEntity.id IN :groceryEntityIds")
+    List<GroceryNotification> findAllByGroceryEntityIds(@Param("groceryEntityIds") Collection<Long> groceryEntityIds);
+
+    /**
+     * Marks the given notifications of a user as deleted in one statement.
+     * @param userId
+     * @param ids
+     * @return number of dismissed notifications
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE GroceryNotification n SET n.deleted = true WHERE n.user.id = :userId AND n.id IN :ids AND n.deleted = false")
+    int dismissAllByUserIdAndIds(@Param("userId") String userId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Marks the notifications of a user regarding groceries in a refrigerator as deleted in one statement.
+     * @param userId
+     * @param refrigeratorId
+     * @return number of dismissed notifications
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE GroceryNotification n SET n.deleted = true WHERE n.user.id = :userId AND n.deleted = false " +
+            "AND n.groceryEntity.id IN (SELECT rg.id FROM RefrigeratorGrocery rg WHERE rg.refrigerator.id = :refrigeratorId)")
+    int dismissAllByUserIdAndRefrigeratorId(@Param("userId") String userId, @Param("refrigeratorId") long refrigeratorId);
+
+    /**
+     * Marks all notifications of a user as deleted in one statement.
+     * @param userId
+     * @return number of dismissed notifications
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE GroceryNotification n SET n.deleted = true WHERE n.user.id = :userId AND n.deleted = false")
+    int dismissAllByUserId(@Param("userId") String userId);
+
+    /**
+     * Deletes the notifications of a grocery entity in one statement.
+     * @param groceryEntityId
+     * @return number of deleted notifications
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM GroceryNotification n WHERE n.groceryEntity.id = :groceryEntityId")
+    int deleteAllByGroceryEntityId(@Param("groceryEntityId") long groceryEntityId);
+
+    /**
+     * Deletes the notifications of the given grocery entities in one statement.
+     * @param groceryEntityIds
+     * @return number of deleted notifications
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM GroceryNotification n WHERE n.groceryEntity.id IN :groceryEntityIds")
+    int deleteAllByGroceryEntityIdIn(@Param("groceryEntityIds") Collection<Long> groceryEntityIds);
 }
@@ -2,8 +2,13 @@ package ntnu.idatt2106.backend.repository;
 
 import ntnu.idatt2106.backend.model.grocery.GroceryShoppingCart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 
@@ -20,4 +25,24 @@ public interface GroceryShoppingCartRepository extends JpaRepository<GroceryShop
      * @return
      */
     Optional<GroceryShoppingCart> findByGroceryIdAndShoppingCartId(Long groceryId, Long shoppingCartId);
+
+    /**
+     * Returns the GroceryShoppingCart elements with given ids, with their grocery, unit and refrigerator, in one query.
+     * @param ids
+     * @return
+     */
+    @Query("SELECT gsc FROM GroceryShoppingCart gsc JOIN FETCH gsc.grocery g " +
+            "LEFT JOIN FETCH g.subCategory sc LEFT JOIN FETCH sc.category LEFT JOIN FETCH gsc.unit " +
+            "JOIN FETCH gsc.shoppingCart c JOIN FETCH c.shoppingList l JOIN FETCH l.refrigerator " +
+            "WHERE gsc.id IN :ids")
+    List<GroceryShoppingCart> findAllFetchedByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes the GroceryShoppingCart elements with given ids in one statement.
+     * @param ids
+     * @return number of deleted elements
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM GroceryShoppingCart gsc WHERE gsc.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
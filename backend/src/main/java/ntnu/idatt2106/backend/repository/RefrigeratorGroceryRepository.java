@@ -1,17 +1,25 @@
 package ntnu.idatt2106.backend.repository;
 
 
+import jakarta.persistence.QueryHint;
 import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryAmountDTO;
+import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryExpiryDTO;
 import ntnu.idatt2106.backend.model.Refrigerator;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 /**
@@ -51,4 +59,68 @@ public interface RefrigeratorGroceryRepository extends JpaRepository<Refrigerato
      */
     @Query("SELECT CASE WHEN COUNT(rg) > 0 THEN true ELSE false END FROM RefrigeratorGrocery rg WHERE rg.refrigerator = :refrigerator AND rg.grocery = :grocery")
     boolean existsByRefrigeratorAndGrocery(@Param("refrigerator") Refrigerator refrigerator, @Param("grocery") Grocery grocery);
+
+    /**
+     * Returns the amount and expiry date of every grocery stored in a refrigerator.
+     * @param refrigeratorId
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryAmountDTO(rg.grocery.id, rg.quantity, u.id, rg.physicalExpireDate) " +
+            "FROM RefrigeratorGrocery rg LEFT JOIN rg.unit u WHERE rg.refrigerator.id = :refrigeratorId")
+    List<RefrigeratorGroceryAmountDTO> findGroceryAmountsByRefrigeratorId(@Param("refrigeratorId") long refrigeratorId);
+
+    /**
+     * Returns the amount and expiry date of the given groceries stored in a refrigerator.
+     * @param refrigeratorId
+     * @param groceryIds
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryAmountDTO(rg.grocery.id, rg.quantity, u.id, rg.physicalExpireDate) " +
+            "FROM RefrigeratorGrocery rg LEFT JOIN rg.unit u WHERE rg.refrigerator.id = :refrigeratorId AND rg.grocery.id IN :groceryIds")
+    List<RefrigeratorGroceryAmountDTO> findGroceryAmountsByRefrigeratorIdAndGroceryIds(@Param("refrigeratorId") long refrigeratorId,
+                                                                                      @Param("groceryIds") Collection<Long> groceryIds);
+
+    /**
+     * Returns the refrigeratorGroceries of the given groceries in a refrigerator,
+     * with their grocery, subcategory and unit fetched in the same query.
+     * @param refrigeratorId
+     * @param groceryIds
+     * @return
+     */
+    @Query("SELECT rg FROM RefrigeratorGrocery rg JOIN FETCH rg.refrigerator JOIN FETCH rg.grocery g " +
+            "LEFT JOIN FETCH g.subCategory sc LEFT JOIN FETCH sc.category LEFT JOIN FETCH rg.unit " +
+            "WHERE rg.refrigerator.id = :refrigeratorId AND g.id IN :groceryIds")
+    List<RefrigeratorGrocery> findAllByRefrigeratorIdAndGroceryIds(@Param("refrigeratorId") long refrigeratorId,
+                                                                  @Param("groceryIds") Collection<Long> groceryIds);
+
+    /**
+     * Streams the expiry date of every refrigeratorGrocery, fetching the rows in chunks.
+     * Must be consumed inside a transaction.
+     * @return
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryExpiryDTO(rg.id, rg.refrigerator.id, rg.grocery.id, rg.physicalExpireDate) " +
+            "FROM RefrigeratorGrocery rg")
+    Stream<RefrigeratorGroceryExpiryDTO> streamExpiryDates();
+
+    /**
+     * Returns the refrigeratorGroceries with the given ids, with their refrigerator, grocery,
+     * subcategory and unit fetched in the same query.
+     * @param ids
+     * @return
+     */
+    @Query("SELECT rg FROM RefrigeratorGrocery rg JOIN FETCH rg.refrigerator JOIN FETCH rg.grocery g " +
+            "LEFT JOIN FETCH g.subCategory sc LEFT JOIN FETCH sc.category LEFT JOIN FETCH rg.unit " +
+            "WHERE rg.id IN :ids")
+    List<RefrigeratorGrocery> findAllFetchedByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes the refrigeratorGroceries with the given ids in one statement.
+     * Their notifications must be deleted first, since the cascade is not applied to bulk deletes.
+     * @param ids
+     * @return number of deleted refrigeratorGroceries
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM RefrigeratorGrocery rg WHERE rg.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
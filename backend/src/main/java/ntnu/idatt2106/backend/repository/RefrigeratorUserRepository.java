@@ -5,7 +5,10 @@ import ntnu.idatt2106.backend.model.RefrigeratorUser;
 import ntnu.idatt2106.backend.model.User;
 import ntnu.idatt2106.backend.model.enums.FridgeRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,4 +59,12 @@ public interface RefrigeratorUserRepository extends JpaRepository<RefrigeratorUs
      * @param refrigeratorId ID of refrigerator
      */
     void removeByRefrigeratorId(long refrigeratorId);
+
+    /**
+     * Finds the refrigerator users of the given refrigerators, with their users fetched in the same query
+     * @param refrigeratorIds IDs of the refrigerators
+     * @return List of refrigerator users in the given refrigerators
+     */
+    @Query("SELECT ru FROM RefrigeratorUser ru JOIN FETCH ru.user WHERE ru.refrigerator.id IN :refrigeratorIds")
+    List<RefrigeratorUser> findAllByRefrigeratorIds(@Param("refrigeratorIds") Collection<Long> refrigeratorIds);
 }
@@ -1,13 +1,17 @@
 package ntnu.idatt2106.backend.repository.recipe;
 
 import ntnu.idatt2106.backend.model.dto.GroceryInfoDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientAmountDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientRowDTO;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.recipe.Recipe;
 import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,4 +60,22 @@ public interface RecipeGroceryRepository extends JpaRepository<RecipeGrocery, Lo
      */
     Optional<RecipeGrocery> findByRecipeId(long id);
 
+    /**
+     * Returns the required amount of every recipe ingredient that is one of the given groceries.
+     * @param groceryIds
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientAmountDTO(rg.recipe.id, rg.grocery.id, rg.quantity, u.id) " +
+            "FROM RecipeGrocery rg LEFT JOIN rg.unit u WHERE rg.grocery.id IN :groceryIds")
+    List<RecipeIngredientAmountDTO> findIngredientAmountsByGroceryIds(@Param("groceryIds") Collection<Long> groceryIds);
+
+    /**
+     * Returns the ingredient rows of all the given recipes, with grocery name and unit, in a single query.
+     * @param recipeIds
+     * @return
+     */
+    @Query("SELECT new ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientRowDTO(rg.recipe.id, g.id, g.name, rg.quantity, u) " +
+            "FROM RecipeGrocery rg JOIN rg.grocery g LEFT JOIN rg.unit u WHERE rg.recipe.id IN :recipeIds ORDER BY rg.id")
+    List<RecipeIngredientRowDTO> findIngredientRowsByRecipeIds(@Param("recipeIds") Collection<Long> recipeIds);
+
 }
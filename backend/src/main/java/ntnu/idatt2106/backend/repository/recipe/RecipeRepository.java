@@ -1,9 +1,12 @@
 package ntnu.idatt2106.backend.repository.recipe;
 
 import ntnu.idatt2106.backend.model.recipe.Recipe;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 
@@ -12,6 +15,23 @@ import java.util.Optional;
  */
 @Repository
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
+    /**
+     * Returns all recipes, with their category fetched in the same query.
+     * @return
+     */
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Recipe> findAll();
+
+    /**
+     * Returns the recipes with the given ids, with their category fetched in the same query.
+     * @param ids
+     * @return
+     */
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Recipe> findAllById(Iterable<Long> ids);
+
     /**
      * Returns an optional Recipe based on a recipe name.
      * @param name
@@ -25,4 +45,11 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
      * @return
      */
     boolean existsByName(String recipeName);
-}
\ No newline at end of file
+
+    /**
+     * Returns the ids of all recipes.
+     * @return
+     */
+    @Query("SELECT r.id FROM Recipe r")
+    List<Long> findAllIds();
+}
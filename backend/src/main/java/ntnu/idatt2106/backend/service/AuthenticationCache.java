@@ -0,0 +1,188 @@
+package ntnu.idatt2106.backend.service;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Cache used by the authentication filter, so a request neither verifies the signature of
+ * a token it has already seen, nor reads the user from the database.
+ * <p>
+ * Verified tokens are keyed by the SHA-256 hash of the token, so the tokens themselves are not kept,
+ * and are dropped when the token expires. Users are keyed by email and read again after
+ * {@link #USER_TIME_TO_LIVE}. Both caches are bounded and evict the least recently used entries first.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuthenticationCache {
+
+    /**
+     * Maximum number of verified tokens kept.
+     */
+    static final int MAX_TOKENS = 10_000;
+
+    /**
+     * Maximum number of users kept.
+     */
+    static final int MAX_USERS = 10_000;
+
+    /**
+     * Time before a cached user is read from the database again.
+     */
+    static final Duration USER_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+
+    private final BoundedCache<String, VerifiedToken> tokens = new BoundedCache<>(MAX_TOKENS);
+    private final BoundedCache<String, UserDetails> users = new BoundedCache<>(MAX_USERS, USER_TIME_TO_LIVE);
+
+    /**
+     * Returns the verified claims of a token, verifying its signature only the first time it is seen.
+     * @param token the JWT token
+     * @return the verified claims
+     * @throws RuntimeException if the token is malformed, has an invalid signature or is expired,
+     * as thrown by {@link JwtService#extractAllClaims(String)}
+     */
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        VerifiedToken cached = tokens.get(key);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+        tokens.remove(key);
+
+        Claims claims = jwtService.extractAllClaims(token);
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), getRoles(claims), claims.getExpiration(),
+                MembershipTokenService.decode(claims.get(MembershipTokenService.FRIDGE_ROLES_CLAIM, Map.class)),
+                getMembershipEpoch(claims));
+        tokens.put(key, verified);
+        return verified;
+    }
+
+    /**
+     * Returns a user by email, reading it from the database if it is not cached.
+     * @param email the email of the user
+     * @return the user
+     * @throws org.springframework.security.core.userdetails.UsernameNotFoundException if the user does not exist
+     */
+    public UserDetails getUser(String email) {
+        UserDetails cached = users.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        UserDetails user = userDetailsService.loadUserByUsername(email);
+        users.put(email, user);
+        return user;
+    }
+
+    /**
+     * Removes a token and the user it belongs to from the cache, for example when the user logs out.
+     * @param token the JWT token, may be null
+     */
+    public void invalidateToken(String token) {
+        if (token == null) {
+            return;
+        }
+        VerifiedToken removed = tokens.remove(hash(token));
+        if (removed != null) {
+            invalidateUser(removed.getUsername());
+        }
+    }
+
+    /**
+     * Removes a user from the cache, for example when the profile or password of the user is changed.
+     * @param email the email of the user, may be null
+     */
+    public void invalidateUser(String email) {
+        if (email != null) {
+            users.remove(email);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> getRoles(Claims claims) {
+        List<String> roles = claims.get("roles", List.class);
+        return roles == null ? List.of() : List.copyOf(roles);
+    }
+
+    private static Long getMembershipEpoch(Claims claims) {
+        Object epoch = claims.get(MembershipTokenService.MEMBERSHIP_EPOCH_CLAIM);
+        return epoch instanceof Number number ? number.longValue() : null;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The claims of a token whose signature has been verified.
+     */
+    public static class VerifiedToken {
+        private final String username;
+        private final List<String> roles;
+        private final Date expiration;
+        private final Map<Long, FridgeRole> fridgeRoles;
+        private final Long membershipEpoch;
+
+        private VerifiedToken(String username, List<String> roles, Date expiration,
+                              Map<Long, FridgeRole> fridgeRoles, Long membershipEpoch) {
+            this.username = username;
+            this.roles = roles;
+            this.expiration = expiration;
+            this.fridgeRoles = fridgeRoles;
+            this.membershipEpoch = membershipEpoch;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+
+        /**
+         * Returns the refrigerator memberships carried by the token, see {@link MembershipTokenService}.
+         * @return refrigerator id to role, or null if the token carries no memberships
+         */
+        public Map<Long, FridgeRole> getFridgeRoles() {
+            return fridgeRoles;
+        }
+
+        public Long getMembershipEpoch() {
+            return membershipEpoch;
+        }
+
+        /**
+         * Checks if the token has expired.
+         * @return true if the token has expired
+         */
+        public boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
+        }
+
+        /**
+         * Checks if the token is valid for a user, the same check as {@link JwtService#isTokenValid}.
+         * @param userDetails the user
+         * @return true if the token belongs to the user and has not expired
+         */
+        public boolean isValidFor(UserDetails userDetails) {
+            return userDetails != null && username != null && username.equals(userDetails.getUsername()) && !isExpired();
+        }
+    }
+}
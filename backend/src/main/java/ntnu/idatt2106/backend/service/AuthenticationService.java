@@ -29,10 +29,10 @@ public class AuthenticationService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final JwtService jwtService;
-
     private final AuthenticationManager authenticationManager;
 
+    private final MembershipTokenService membershipTokenService;
+
     Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
 
 
@@ -77,7 +77,7 @@ public class AuthenticationService {
         }
         var user = repository.findByEmail(request.getEmail()).orElseThrow(() -> new InvalidCredentialsException("Invalid credentials"));
 
-        var jwToken = jwtService.generateToken(user);
+        var jwToken = membershipTokenService.generateToken(user);
         logger.info("User {} logged in", user.getEmail());
         return AuthenticationResponse.builder().token(jwToken).build();
     }
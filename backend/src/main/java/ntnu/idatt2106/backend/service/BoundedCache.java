@@ -0,0 +1,151 @@
+package ntnu.idatt2106.backend.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Thread safe in-memory cache holding at most a fixed number of entries, evicting the least recently
+ * used entry first. Entries can also be given a time to live, after which they are treated as missing.
+ * <p>
+ * Every operation holds the monitor of the cache, so values computed by {@link #computeIfAbsent} must be
+ * cheap to create. Expensive loads are done outside the cache and put afterwards.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final long timeToLiveMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * Creates a cache whose entries only leave it when evicted or removed.
+     * @param maxSize maximum number of entries
+     */
+    public BoundedCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Creates a cache whose entries expire a fixed time after they were put.
+     * @param maxSize maximum number of entries
+     * @param timeToLive time an entry is kept after it was put, null if entries never expire
+     */
+    public BoundedCache(int maxSize, Duration timeToLive) {
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = timeToLive == null ? Long.MAX_VALUE : timeToLive.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > BoundedCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the value of a key, removing it if it has expired.
+     * @param key the key
+     * @return the value, or null if the key is missing or has expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis(), timeToLiveMillis)) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Puts a value, replacing any previous value of the key and restarting its time to live.
+     * @param key the key
+     * @param value the value
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+    }
+
+    /**
+     * Returns the value of a key, putting the value created by the mapping function if the key is
+     * missing or has expired. The function is called while the cache is locked.
+     * @param key the key
+     * @param mappingFunction creates the value of a missing key
+     * @return the current value
+     */
+    public synchronized V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Removes a key.
+     * @param key the key
+     * @return the removed value, or null if the key was missing or had expired
+     */
+    public synchronized V remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        return removed == null || removed.isExpired(System.currentTimeMillis(), timeToLiveMillis)
+                ? null : removed.value;
+    }
+
+    /**
+     * Removes every entry matching a filter.
+     * @param filter tests the key and value of an entry
+     */
+    public synchronized void removeIf(BiPredicate<? super K, ? super V> filter) {
+        entries.entrySet().removeIf(entry -> filter.test(entry.getKey(), entry.getValue().value));
+    }
+
+    /**
+     * Removes every expired entry, so entries that are never read again do not wait for eviction.
+     * @return number of removed entries
+     */
+    public synchronized int removeExpired() {
+        long now = System.currentTimeMillis();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.isExpired(now, timeToLiveMillis));
+        return before - entries.size();
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of entries, including expired entries that have not been removed yet.
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * A cached value and the time it was put.
+     */
+    private static class Entry<V> {
+        private final V value;
+        private final long putAt;
+
+        private Entry(V value, long putAt) {
+            this.value = value;
+            this.putAt = putAt;
+        }
+
+        private boolean isExpired(long now, long timeToLiveMillis) {
+            return now - putAt >= timeToLiveMillis;
+        }
+    }
+}
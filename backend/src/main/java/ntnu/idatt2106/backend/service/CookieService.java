@@ -2,12 +2,13 @@ package ntnu.idatt2106.backend.service;
 
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Service;
 
 import java.util.logging.Logger;
 
 /**
- * Service for cookie extraction.
+ * Service for cookie extraction and renewal.
  */
 @Service
 public class CookieService {
@@ -28,4 +29,22 @@ public class CookieService {
         }
         return null;
     }
+
+    /**
+     * Sets the access token cookie, with the same attributes as the cookie set at login.
+     * @param request HttpServletRequest, used to tell if the application runs locally
+     * @param response HttpServletResponse the cookie is added to
+     * @param token the JWT token
+     */
+    public void addTokenCookie(HttpServletRequest request, HttpServletResponse response, String token) {
+        String cookieValue = String.format("SmartMatAccessToken=%s; Path=/; Max-Age=%d; HttpOnly; SameSite=Lax", token, 20 * 60);
+
+        if (!"localhost".equals(request.getServerName())) {
+            cookieValue += "; Domain=smartmat.online; Secure";
+        } else {
+            cookieValue += "; Domain=localhost";
+        }
+
+        response.addHeader("Set-Cookie", cookieValue);
+    }
 }
@@ -0,0 +1,317 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.event.RefrigeratorGroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryExpiryDTO;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * In-memory tracker of when groceries in refrigerators cross the notification thresholds,
+ * {@link NotificationService#NOTIFICATION_DAYS} days before and on their expiry date.
+ * <p>
+ * Upcoming crossings are kept in a sorted set ordered by date, and indexed by the grocery they belong to.
+ * The set is rebuilt in one streaming pass over the expiry dates when the application starts, and kept current
+ * by {@link RefrigeratorGroceriesChangedEvent}s. The crossings of a changed grocery replace its old crossings,
+ * and the crossings of removed groceries are dropped. Every midnight only the groceries whose crossing is due
+ * are read, and their notifications generated.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExpiryTracker {
+
+    /**
+     * Maximum number of groceries read in one query when notifications are generated.
+     */
+    static final int CHUNK_SIZE = 1000;
+
+    private final RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+    private final NotificationService notificationService;
+
+    private final Logger logger = LoggerFactory.getLogger(ExpiryTracker.class);
+
+    private final Object lock = new Object();
+
+    /**
+     * The tracked crossings. Replaced as a whole by a rebuild, guarded by the lock.
+     */
+    private Tracking tracking = new Tracking();
+
+    /**
+     * Changes applied while a rebuild streams the expiry dates, applied again to the rebuilt crossings
+     * before they replace the current ones. Null when no rebuild is running. Guarded by the lock.
+     */
+    private List<Change> changesDuringRebuild;
+
+    /**
+     * Rebuilds the tracked crossings from the database and generates the notifications that are already due.
+     * The expiry dates are streamed into new crossings without holding the lock, so changes and midnight
+     * crossings are not blocked meanwhile. Changes made during the stream are applied to the new crossings
+     * as well, in the order they were made, before they replace the current ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        List<Long> due = new ArrayList<>();
+        Tracking rebuilt = new Tracking();
+        synchronized (lock) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        try {
+            try (Stream<RefrigeratorGroceryExpiryDTO> expiryDates = refrigeratorGroceryRepository.streamExpiryDates()) {
+                expiryDates.forEach(expiry -> {
+                    if (rebuilt.track(expiry, today)) {
+                        due.add(expiry.getRefrigeratorGroceryId());
+                    }
+                });
+            }
+            synchronized (lock) {
+                for (Change change : changesDuringRebuild) {
+                    rebuilt.apply(change, today);
+                }
+                tracking = rebuilt;
+            }
+        } finally {
+            synchronized (lock) {
+                changesDuringRebuild = null;
+            }
+        }
+        int generated = generateNotifications(due);
+        logger.info("Tracking {} expiry crossings, generated {} notifications", size(), generated);
+    }
+
+    /**
+     * Generates the notifications of the groceries crossing a threshold today.
+     */
+    @Scheduled(cron = "${smartmat.notifications.cron:0 0 0 * * *}")
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public void fireDueCrossings() {
+        long today = LocalDate.now().toEpochDay();
+        Set<Long> due;
+        synchronized (lock) {
+            due = tracking.pollDue(today);
+        }
+        int generated = generateNotifications(due);
+        logger.info("{} groceries crossed an expiry threshold, generated {} notifications", due.size(), generated);
+    }
+
+    /**
+     * Tracks changed groceries once the change has committed, and generates the notifications
+     * of those already within the notification threshold. Groceries of the changed types that
+     * are no longer in the refrigerator are no longer tracked.
+     * <p>
+     * The groceries are read while holding the lock, so concurrent changes to the same groceries
+     * are applied in the order they were read and the last one applied holds the latest expiry dates.
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public void onRefrigeratorGroceriesChanged(RefrigeratorGroceriesChangedEvent event) {
+        if (event.getGroceryIds().isEmpty()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        List<RefrigeratorGrocery> due = new ArrayList<>();
+        synchronized (lock) {
+            List<RefrigeratorGrocery> changed = refrigeratorGroceryRepository
+                    .findAllByRefrigeratorIdAndGroceryIds(event.getRefrigeratorId(), event.getGroceryIds());
+            Map<Long, RefrigeratorGrocery> changedById = new HashMap<>();
+            List<RefrigeratorGroceryExpiryDTO> expiryDates = new ArrayList<>(changed.size());
+            for (RefrigeratorGrocery refrigeratorGrocery : changed) {
+                changedById.put(refrigeratorGrocery.getId(), refrigeratorGrocery);
+                expiryDates.add(new RefrigeratorGroceryExpiryDTO(refrigeratorGrocery.getId(), event.getRefrigeratorId(),
+                        refrigeratorGrocery.getGrocery().getId(), refrigeratorGrocery.getPhysicalExpireDate()));
+            }
+            Change change = new Change(event.getRefrigeratorId(), event.getGroceryIds(), expiryDates);
+            for (Long dueId : tracking.apply(change, today)) {
+                due.add(changedById.get(dueId));
+            }
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        }
+        notificationService.generateNotifications(due);
+    }
+
+    /**
+     * Returns the number of tracked crossings.
+     * @return number of tracked crossings
+     */
+    public int size() {
+        synchronized (lock) {
+            return tracking.crossings.size();
+        }
+    }
+
+    private int generateNotifications(Collection<Long> refrigeratorGroceryIds) {
+        List<Long> ids = new ArrayList<>(refrigeratorGroceryIds);
+        int generated = 0;
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            generated += notificationService.generateNotifications(refrigeratorGroceryRepository
+                    .findAllFetchedByIds(ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()))));
+        }
+        return generated;
+    }
+
+    /**
+     * Upcoming crossings, sorted by date and indexed by the grocery they belong to.
+     * Not thread safe, the tracker guards the instance in use with its lock.
+     */
+    private static class Tracking {
+        private final NavigableSet<Crossing> crossings = new TreeSet<>(Comparator
+                .comparingLong((Crossing crossing) -> crossing.epochDay)
+                .thenComparingLong(crossing -> crossing.refrigeratorGroceryId));
+        private final Map<Long, TrackedGrocery> trackedGroceries = new HashMap<>();
+        private final Map<Long, Set<Long>> trackedGroceryIdsByRefrigerator = new HashMap<>();
+
+        /**
+         * Applies a change: the groceries of the changed types that were not read again are no longer tracked,
+         * and the crossings of those read replace their earlier crossings.
+         * @param change the change
+         * @param today the current date
+         * @return ids of the changed groceries already within the notification threshold
+         */
+        private List<Long> apply(Change change, LocalDate today) {
+            Set<Long> changedIds = new HashSet<>();
+            for (RefrigeratorGroceryExpiryDTO expiry : change.expiryDates) {
+                changedIds.add(expiry.getRefrigeratorGroceryId());
+            }
+            Set<Long> trackedIds = trackedGroceryIdsByRefrigerator.getOrDefault(change.refrigeratorId, Set.of());
+            for (Long trackedId : new ArrayList<>(trackedIds)) {
+                if (!changedIds.contains(trackedId)
+                        && change.groceryIds.contains(trackedGroceries.get(trackedId).groceryId)) {
+                    untrack(trackedId);
+                }
+            }
+            List<Long> due = new ArrayList<>();
+            for (RefrigeratorGroceryExpiryDTO expiry : change.expiryDates) {
+                if (track(expiry, today)) {
+                    due.add(expiry.getRefrigeratorGroceryId());
+                }
+            }
+            return due;
+        }
+
+        /**
+         * Removes the crossings due on or before a day.
+         * @param epochDay the day
+         * @return ids of the groceries with a due crossing
+         */
+        private Set<Long> pollDue(long epochDay) {
+            Set<Long> due = new HashSet<>();
+            while (!crossings.isEmpty() && crossings.first().epochDay <= epochDay) {
+                Crossing crossing = crossings.pollFirst();
+                due.add(crossing.refrigeratorGroceryId);
+                TrackedGrocery trackedGrocery = trackedGroceries.get(crossing.refrigeratorGroceryId);
+                trackedGrocery.crossings.remove(crossing);
+                if (trackedGrocery.crossings.isEmpty()) {
+                    untrack(crossing.refrigeratorGroceryId);
+                }
+            }
+            return due;
+        }
+
+        /**
+         * Tracks the upcoming threshold crossings of a grocery, replacing its earlier crossings.
+         * @param expiry the grocery and its expiry date, which may be null
+         * @param today the current date
+         * @return true if the grocery is already within the notification threshold
+         */
+        private boolean track(RefrigeratorGroceryExpiryDTO expiry, LocalDate today) {
+            long refrigeratorGroceryId = expiry.getRefrigeratorGroceryId();
+            untrack(refrigeratorGroceryId);
+            if (expiry.getPhysicalExpireDate() == null) {
+                return false;
+            }
+            long expiryDay = expiry.getPhysicalExpireDate().toEpochDay();
+            long warningDay = expiryDay - NotificationService.NOTIFICATION_DAYS;
+            TrackedGrocery trackedGrocery = new TrackedGrocery(expiry.getRefrigeratorId(), expiry.getGroceryId());
+            if (warningDay > today.toEpochDay()) {
+                trackedGrocery.crossings.add(new Crossing(warningDay, refrigeratorGroceryId));
+            }
+            if (expiryDay > today.toEpochDay()) {
+                trackedGrocery.crossings.add(new Crossing(expiryDay, refrigeratorGroceryId));
+            }
+            if (!trackedGrocery.crossings.isEmpty()) {
+                crossings.addAll(trackedGrocery.crossings);
+                trackedGroceries.put(refrigeratorGroceryId, trackedGrocery);
+                trackedGroceryIdsByRefrigerator.computeIfAbsent(expiry.getRefrigeratorId(), key -> new HashSet<>())
+                        .add(refrigeratorGroceryId);
+            }
+            return warningDay <= today.toEpochDay();
+        }
+
+        /**
+         * Removes the upcoming threshold crossings of a grocery.
+         * @param refrigeratorGroceryId id of the grocery in the refrigerator
+         */
+        private void untrack(long refrigeratorGroceryId) {
+            TrackedGrocery trackedGrocery = trackedGroceries.remove(refrigeratorGroceryId);
+            if (trackedGrocery == null) {
+                return;
+            }
+            trackedGrocery.crossings.forEach(crossings::remove);
+            Set<Long> trackedIds = trackedGroceryIdsByRefrigerator.get(trackedGrocery.refrigeratorId);
+            trackedIds.remove(refrigeratorGroceryId);
+            if (trackedIds.isEmpty()) {
+                trackedGroceryIdsByRefrigerator.remove(trackedGrocery.refrigeratorId);
+            }
+        }
+    }
+
+    /**
+     * The groceries of the changed types in a refrigerator, as read after the change.
+     */
+    private static class Change {
+        private final long refrigeratorId;
+        private final Set<Long> groceryIds;
+        private final List<RefrigeratorGroceryExpiryDTO> expiryDates;
+
+        private Change(long refrigeratorId, Set<Long> groceryIds, List<RefrigeratorGroceryExpiryDTO> expiryDates) {
+            this.refrigeratorId = refrigeratorId;
+            this.groceryIds = groceryIds;
+            this.expiryDates = expiryDates;
+        }
+    }
+
+    /**
+     * The day a grocery crosses a notification threshold.
+     */
+    private static class Crossing {
+        private final long epochDay;
+        private final long refrigeratorGroceryId;
+
+        private Crossing(long epochDay, long refrigeratorGroceryId) {
+            this.epochDay = epochDay;
+            this.refrigeratorGroceryId = refrigeratorGroceryId;
+        }
+    }
+
+    /**
+     * A grocery in a refrigerator with upcoming crossings.
+     */
+    private static class TrackedGrocery {
+        private final long refrigeratorId;
+        private final long groceryId;
+        private final List<Crossing> crossings = new ArrayList<>(2);
+
+        private TrackedGrocery(long refrigeratorId, long groceryId) {
+            this.refrigeratorId = refrigeratorId;
+            this.groceryId = groceryId;
+        }
+    }
+}
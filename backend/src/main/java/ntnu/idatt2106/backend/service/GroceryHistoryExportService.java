@@ -0,0 +1,117 @@
+package ntnu.idatt2106.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.model.dto.GroceryHistoryExportDTO;
+import ntnu.idatt2106.backend.model.enums.ExportFormat;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exports the grocery history of a refrigerator as CSV or newline delimited JSON.
+ * <p>
+ * Rows are read from a database stream as DTOs, fetched in batches, and written to the output one at a time,
+ * so the memory used does not grow with the amount of history.
+ */
+@Service
+@RequiredArgsConstructor
+public class GroceryHistoryExportService {
+
+    /**
+     * Header line of CSV exports.
+     */
+    static final String CSV_HEADER = "id,dateConsumed,wasTrashed,weightInGrams,groceryId,groceryName," +
+            "subCategoryId,subCategoryName,userId,userName";
+
+    /**
+     * Start of the date range when none is given.
+     */
+    static final LocalDate EARLIEST_DATE = LocalDate.of(1970, 1, 1);
+
+    /**
+     * End of the date range when none is given.
+     */
+    static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+
+    /**
+     * First characters that make a spreadsheet read a field as a formula.
+     */
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final GroceryHistoryRepository groceryHistoryRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes the history of a refrigerator between two dates to an output stream, oldest first.
+     * @param refrigeratorId id of the refrigerator
+     * @param startDate first date to export, or null for no lower bound
+     * @param endDate last date to export, or null for no upper bound
+     * @param format format of the export
+     * @param outputStream the stream to write to, which is flushed but not closed
+     * @return the number of exported entries
+     * @throws IOException if writing to the stream fails
+     */
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public long export(long refrigeratorId, LocalDate startDate, LocalDate endDate, ExportFormat format,
+                       OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long exported = 0;
+        try (Stream<GroceryHistoryExportDTO> rows = groceryHistoryRepository.streamExport(refrigeratorId,
+                startDate == null ? EARLIEST_DATE : startDate, endDate == null ? LATEST_DATE : endDate)) {
+            Iterator<GroceryHistoryExportDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                GroceryHistoryExportDTO row = iterator.next();
+                writer.write(format == ExportFormat.CSV ? toCsv(row) : objectMapper.writeValueAsString(row));
+                writer.write('\n');
+                exported++;
+            }
+        }
+        writer.flush();
+        return exported;
+    }
+
+    private static String toCsv(GroceryHistoryExportDTO row) {
+        return String.join(",",
+                csvValue(row.getId()),
+                csvValue(row.getDateConsumed()),
+                csvValue(row.getWasTrashed()),
+                csvValue(row.getWeightInGrams()),
+                csvValue(row.getGroceryId()),
+                csvValue(row.getGroceryName()),
+                csvValue(row.getSubCategoryId()),
+                csvValue(row.getSubCategoryName()),
+                csvValue(row.getUserId()),
+                csvValue(row.getUserName()));
+    }
+
+    /**
+     * Formats a CSV field, quoting it if it contains a separator, quote or line break.
+     * Text starting with a character a spreadsheet reads as the start of a formula is prefixed with a quote,
+     * so names entered by users are shown as text instead of being evaluated when the file is opened.
+     */
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof CharSequence && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -1,27 +1,68 @@
 package ntnu.idatt2106.backend.service;
 
 import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.event.GroceryHistoryChangedEvent;
+import ntnu.idatt2106.backend.model.AppliedMigration;
 import ntnu.idatt2106.backend.model.GroceryHistory;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollup;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollupId;
 import ntnu.idatt2106.backend.model.dto.GroceryStatisticDTO;
+import ntnu.idatt2106.backend.model.dto.MonthlyConsumptionDTO;
 import ntnu.idatt2106.backend.model.dto.UnitDTO;
+import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.repository.AppliedMigrationRepository;
 import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
- * The GroceryHistoryService provides methods to get the stats for the last 12 months
+ * The GroceryHistoryService provides methods to get the stats for the last 12 months.
+ * The eaten and trashed totals of every refrigerator and month are kept in {@link GroceryHistoryRollup}s,
+ * updated together with the history, so statistics are read without scanning the history.
  */
 @Service
 @RequiredArgsConstructor
 public class GroceryHistoryService {
 
+    /**
+     * Name of the migration building the rollups from the history written before they existed.
+     */
+    static final String ROLLUP_BACKFILL = "grocery-history-rollup-backfill";
+
     private final GroceryHistoryRepository groceryHistoryRepository;
+    private final GroceryHistoryRollupRepository groceryHistoryRollupRepository;
+    private final AppliedMigrationRepository appliedMigrationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${smartmat.history.retention-days:400}")
+    private int retentionDays;
+
+    @Value("${smartmat.history.purge-chunk-size:1000}")
+    private int purgeChunkSize;
+
+    private final Logger logger = LoggerFactory.getLogger(GroceryHistoryService.class);
 
     /**
      * Returns a list of all GroceryHistory objects consumed during the specified month x number of months ago for a specific refrigerator.
@@ -37,33 +78,29 @@ public class GroceryHistoryService {
     }
 
     /**
-     * Generates statistics for the last 12 months of a specified refrigerator. Deletes old statistics (older than 400 days, or exactly 365 days if change is made) before generating new statistics.
+     * Generates statistics for the last 12 months of a specified refrigerator.
+     * The totals are read from the rollups of the 12 months, and months without history are filled with zero.
      * @param refrigeratorId the id of the refrigerator for which to generate statistics
      * @return a list of {@code GroceryStatisticDTO} objects representing statistics for each month in the last year
      */
     public List<GroceryStatisticDTO> getStatsforLastYear(long refrigeratorId){
-        deleteOldStatistics();
+        YearMonth currentMonth = YearMonth.now();
+        Map<Integer, GroceryHistoryRollup> rollups = new HashMap<>();
+        for (GroceryHistoryRollup rollup : groceryHistoryRollupRepository.findAllByRefrigeratorIdAndMonths(refrigeratorId,
+                GroceryHistoryRollupId.toKey(currentMonth.minusMonths(11)), GroceryHistoryRollupId.toKey(currentMonth))) {
+            rollups.put(rollup.getId().getYearMonth(), rollup);
+        }
+
         List<GroceryStatisticDTO> stats = new ArrayList<>();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM, yyyy");
         for(int i = 0; i < 12; i++){
-            List<GroceryHistory> iMonth = findGroceriesForMonth(i, refrigeratorId);
-            LocalDate dateXMonthsBack = LocalDate.now().minusMonths(i);
-            String formattedDate = dateXMonthsBack.format(formatter);
-
-            if(iMonth.size() == 0){
-                stats.add(GroceryStatisticDTO.builder()
-                        .foodWaste(0)
-                        .foodEaten(0)
-                        .monthName(formattedDate)
-                        .build());
-            }
-            else{
-                stats.add(GroceryStatisticDTO.builder()
-                        .foodWaste(sumTrash(iMonth))
-                        .foodEaten(sumEaten(iMonth))
-                        .monthName(formattedDate)
-                        .build());
-            }
+            YearMonth month = currentMonth.minusMonths(i);
+            GroceryHistoryRollup rollup = rollups.get(GroceryHistoryRollupId.toKey(month));
+            stats.add(GroceryStatisticDTO.builder()
+                    .foodWaste(rollup == null ? 0 : (int) rollup.getTrashedInGrams())
+                    .foodEaten(rollup == null ? 0 : (int) rollup.getEatenInGrams())
+                    .monthName(month.format(formatter))
+                    .build());
         }
         return stats;
     }
@@ -102,31 +139,141 @@ public class GroceryHistoryService {
         return totalWeight;
     }
 
+    /**
+     * Deletes old grocery consumption statistics from the database on a schedule,
+     * so reading statistics never waits for the deletion.
+     */
+    @Scheduled(cron = "${smartmat.history.purge-cron:0 30 0 * * *}")
+    public void purgeOldStatistics() {
+        int deleted = deleteOldStatistics();
+        logger.info("Deleted {} grocery history entries older than {} days", deleted, retentionDays);
+    }
+
     /**
      * Deletes old grocery consumption statistics from the database.
-     * Statistics older than 400 days (or 365 if you want exactly 12 months) are removed.
-     * @throws Exception if there is an error deleting the statistics
+     * History older than {@code smartmat.history.retention-days} (default 400) days is removed in chunks of
+     * {@code smartmat.history.purge-chunk-size} rows, each chunk with a single delete in its own transaction.
+     * The monthly rollups are kept.
+     * @return the number of deleted history entries
      */
-    public void deleteOldStatistics() {
-        LocalDate dateThreshold = LocalDate.now().minusDays(400); // Change to 365 if you want exactly 12 months
-        groceryHistoryRepository.deleteByDateConsumedBefore(dateThreshold);
+    public int deleteOldStatistics() {
+        LocalDate dateThreshold = LocalDate.now().minusDays(retentionDays);
+        int deleted = 0;
+        List<Long> ids;
+        do {
+            ids = groceryHistoryRepository.findIdsByDateConsumedBefore(dateThreshold, PageRequest.of(0, purgeChunkSize));
+            if (!ids.isEmpty()) {
+                deleted += groceryHistoryRepository.deleteAllByIdIn(ids);
+            }
+        } while (ids.size() == purgeChunkSize);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new GroceryHistoryChangedEvent(null));
+        }
+        return deleted;
     }
 
     /**
-     Creates a new grocery history object and saves it to the database.
+     Creates a new grocery history object and saves it to the database, and adds its weight to the rollup of its month
+     in the same transaction.
      @param refrigeratorGrocery the RefrigeratorGrocery object associated with the grocery history
      @param quantity the quantity of the grocery consumed or trashed
      @param unitDTO the UnitDTO object associated with the grocery
      @param isTrash a boolean indicating whether the grocery was trashed or consumed
+     @param user the member who ate or trashed the grocery
+     */
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public void newGroceryHistory(RefrigeratorGrocery refrigeratorGrocery, int quantity, UnitDTO unitDTO, boolean isTrash, User user){
+        GroceryHistory groceryHistory = createGroceryHistory(refrigeratorGrocery, quantity * unitDTO.getWeight(), isTrash, user);
+        groceryHistoryRepository.save(groceryHistory);
+        addToRollup(GroceryHistoryRollupId.of(groceryHistory.getRefrigerator().getId(), YearMonth.from(groceryHistory.getDateConsumed())),
+                isTrash ? 0 : groceryHistory.getWeightInGrams(), isTrash ? groceryHistory.getWeightInGrams() : 0);
+        eventPublisher.publishEvent(new GroceryHistoryChangedEvent(groceryHistory.getRefrigerator().getId()));
+    }
+
+    /**
+     * Creates a grocery history object of today, without saving it.
+     * @param refrigeratorGrocery the RefrigeratorGrocery object associated with the grocery history
+     * @param weightInGrams the weight of the grocery consumed or trashed
+     * @param isTrash a boolean indicating whether the grocery was trashed or consumed
+     * @param user the member who ate or trashed the grocery
+     * @return the grocery history
      */
-    public void newGroceryHistory(RefrigeratorGrocery refrigeratorGrocery, int quantity, UnitDTO unitDTO, boolean isTrash){
-        GroceryHistory groceryHistory = GroceryHistory.builder()
+    public GroceryHistory createGroceryHistory(RefrigeratorGrocery refrigeratorGrocery, int weightInGrams, boolean isTrash, User user) {
+        Grocery grocery = refrigeratorGrocery.getGrocery();
+        return GroceryHistory.builder()
                 .dateConsumed(LocalDate.now())
                 .refrigerator(refrigeratorGrocery.getRefrigerator())
+                .grocery(grocery)
+                .subCategory(grocery == null ? null : grocery.getSubCategory())
+                .user(user)
                 .wasTrashed(isTrash)
-                .weightInGrams(quantity * unitDTO.getWeight())
+                .weightInGrams(weightInGrams)
                 .build();
-        groceryHistoryRepository.save(groceryHistory);
+    }
+
+    /**
+     * Saves many grocery history objects with one batched insert, and adds their weights to the rollups
+     * with one update per refrigerator and month, in the same transaction.
+     * @param groceryHistories the grocery history objects to save
+     */
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public void saveGroceryHistories(List<GroceryHistory> groceryHistories) {
+        if (groceryHistories.isEmpty()) {
+            return;
+        }
+        groceryHistoryRepository.saveAll(groceryHistories);
+        Map<GroceryHistoryRollupId, GroceryHistoryRollup> totals = new HashMap<>();
+        for (GroceryHistory groceryHistory : groceryHistories) {
+            GroceryHistoryRollupId id = GroceryHistoryRollupId.of(groceryHistory.getRefrigerator().getId(),
+                    YearMonth.from(groceryHistory.getDateConsumed()));
+            GroceryHistoryRollup total = totals.computeIfAbsent(id, key -> GroceryHistoryRollup.builder().id(key).build());
+            if (groceryHistory.isWasTrashed()) {
+                total.setTrashedInGrams(total.getTrashedInGrams() + groceryHistory.getWeightInGrams());
+            } else {
+                total.setEatenInGrams(total.getEatenInGrams() + groceryHistory.getWeightInGrams());
+            }
+        }
+        Set<Long> refrigeratorIds = new HashSet<>();
+        for (GroceryHistoryRollup total : totals.values()) {
+            addToRollup(total.getId(), total.getEatenInGrams(), total.getTrashedInGrams());
+            refrigeratorIds.add(total.getId().getRefrigeratorId());
+        }
+        refrigeratorIds.forEach(refrigeratorId -> eventPublisher.publishEvent(new GroceryHistoryChangedEvent(refrigeratorId)));
+    }
+
+    /**
+     * Adds weights to the rollup of a refrigerator and month with a single upsert, creating the rollup
+     * on the first history of the month.
+     */
+    private void addToRollup(GroceryHistoryRollupId id, long eatenInGrams, long trashedInGrams) {
+        groceryHistoryRollupRepository.addToTotals(id.getRefrigeratorId(), id.getYearMonth(), eatenInGrams, trashedInGrams);
+    }
+
+    /**
+     * Builds the rollups from the existing history with one aggregate query, unless this has been done before.
+     * The rollups built replace any rollups of the same months, and a marker is saved in the same transaction,
+     * so the history is counted exactly once. Called on startup by the
+     * {@link ntnu.idatt2106.backend.config.RollupBackfillInitializer}, before history can be written.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public void backfillRollups() {
+        if (appliedMigrationRepository.existsById(ROLLUP_BACKFILL)) {
+            return;
+        }
+        Map<GroceryHistoryRollupId, GroceryHistoryRollup> rollups = new HashMap<>();
+        for (MonthlyConsumptionDTO monthly : groceryHistoryRepository.sumWeightByRefrigeratorAndMonth()) {
+            GroceryHistoryRollupId id = GroceryHistoryRollupId.of(monthly.getRefrigeratorId(),
+                    YearMonth.of(monthly.getYear(), monthly.getMonth()));
+            GroceryHistoryRollup rollup = rollups.computeIfAbsent(id, key -> GroceryHistoryRollup.builder().id(key).build());
+            if (Boolean.TRUE.equals(monthly.getWasTrashed())) {
+                rollup.setTrashedInGrams(rollup.getTrashedInGrams() + monthly.getWeightInGrams());
+            } else {
+                rollup.setEatenInGrams(rollup.getEatenInGrams() + monthly.getWeightInGrams());
+            }
+        }
+        groceryHistoryRollupRepository.saveAll(rollups.values());
+        appliedMigrationRepository.save(new AppliedMigration(ROLLUP_BACKFILL, LocalDateTime.now()));
+        logger.info("Backfilled {} grocery history rollups", rollups.size());
     }
 
 }
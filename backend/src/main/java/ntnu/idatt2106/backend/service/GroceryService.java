@@ -5,6 +5,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import ntnu.idatt2106.backend.exceptions.*;
 import ntnu.idatt2106.backend.exceptions.NoSuchElementException;
+import ntnu.idatt2106.backend.event.RefrigeratorGroceriesChangedEvent;
 import ntnu.idatt2106.backend.model.*;
 import ntnu.idatt2106.backend.model.dto.DeleteRefrigeratorGroceryDTO;
 import ntnu.idatt2106.backend.model.dto.GroceryDTO;
@@ -21,6 +22,7 @@ import ntnu.idatt2106.backend.repository.SubCategoryRepository;
 import ntnu.idatt2106.backend.repository.UnitRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -49,11 +51,12 @@ public class GroceryService {
     private final SubCategoryRepository subCategoryRepository;
     private final RefrigeratorService refrigeratorService;
     private final NotificationService notificationService;
-    private final UnitService unitService;
     private final GroceryHistoryService groceryHistoryService;
 
     private final UnitRepository unitRepository;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Saves a grocery to a refrigerator. If it is a custom
      * grocery, it gets added to the groceries first.
@@ -72,6 +75,17 @@ public class GroceryService {
         if(FridgeRole != ADD_PRIVILEGE) throw new UnauthorizedException("User not authorized to add groceries");
 
         logger.info("Saving grocery list to refrigerator");
+        //Fetch all existing groceries and the unit once, instead of once per grocery
+        Set<Long> existingGroceryIds = saveRequest.getGroceryList().stream()
+                .filter(groceryDTO -> !groceryDTO.isCustom())
+                .map(GroceryDTO::getId)
+                .collect(Collectors.toSet());
+        Map<Long, Grocery> existingGroceries = groceryRepository.findAllById(existingGroceryIds).stream()
+                .collect(Collectors.toMap(Grocery::getId, grocery -> grocery));
+        Unit unit = unitRepository.findById(saveRequest.getUnitDTO().getId()).orElseThrow();
+
+        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
+        Set<Long> addedGroceryIds = new HashSet<>();
         //Handle each grocery in the list individually based on custom grocery or existing
         for (GroceryDTO groceryDTO: saveRequest.getGroceryList()) {
             Grocery grocery;
@@ -79,9 +93,10 @@ public class GroceryService {
             if(groceryDTO.isCustom()) {
                 grocery = addCustomGrocery(groceryDTO);
             } else {
-                logger.debug("Fetching grocery with ID: " + groceryDTO.getId());
-                grocery = getGroceryById(groceryDTO.getId());
-                logger.debug("Fetched grocery: " + grocery);
+                grocery = existingGroceries.get(groceryDTO.getId());
+                if (grocery == null) {
+                    throw new EntityNotFoundException("Existing grocery not found");
+                }
             }
 
             //Define refrigerator grocery
@@ -89,11 +104,13 @@ public class GroceryService {
             refrigeratorGrocery.setGrocery(grocery);
             refrigeratorGrocery.setRefrigerator(refrigerator);
             refrigeratorGrocery.setPhysicalExpireDate(getPhysicalExpireDate(groceryDTO.getGroceryExpiryDays()));
-            Optional<Unit> unit = unitRepository.findById(saveRequest.getUnitDTO().getId());
-            refrigeratorGrocery.setUnit(unit.get());
+            refrigeratorGrocery.setUnit(unit);
             refrigeratorGrocery.setQuantity(saveRequest.getQuantity());
-            saveRefrigeratorGrocery(refrigeratorGrocery);
+            refrigeratorGroceries.add(refrigeratorGrocery);
+            addedGroceryIds.add(grocery.getId());
         }
+        saveRefrigeratorGroceries(refrigeratorGroceries);
+        publishGroceriesChanged(refrigerator, addedGroceryIds);
     }
 
     /**
@@ -201,27 +218,25 @@ public class GroceryService {
 
     /**
      * Method for fetching groceries from refrigerator
-     * that matches a recipes groceris
+     * that matches a recipes groceries.
+     * Only the refrigeratorGroceries of the recipe's groceries are loaded, in a single query,
+     * and grouped by grocery id.
      *
      * @param recipeGroceries RecipeGroceries in recipe
      * @param refrigeratorId Refrigerator ID
      * @return Map binding grocery id to refrigeratorGroceryDTO
      */
     public HashMap<Long,List<RefrigeratorGroceryDTO>> getIngredientsInRefrigerator(List<RecipeGrocery> recipeGroceries, long refrigeratorId) {
-        HashMap<Long,List<RefrigeratorGroceryDTO>> result = new HashMap<Long, List<RefrigeratorGroceryDTO>>();
-        List<RefrigeratorGrocery> refrigeratorGroceries = refrigeratorGroceryRepository.findAllByRefrigeratorId(refrigeratorId);
-        for (RecipeGrocery recipeGrocery : recipeGroceries) {
-            long groceryId = recipeGrocery.getGrocery().getId();
-            for(RefrigeratorGrocery refrigeratorGrocery : refrigeratorGroceries){
-                if(refrigeratorGrocery.getGrocery().getId() == groceryId){
-                    if(!result.containsKey(groceryId)){
-                        result.put(groceryId, new ArrayList<>());
-                    }
-                    result.get(groceryId).add(new RefrigeratorGroceryDTO(refrigeratorGrocery));
-                }
-            }
+        Set<Long> groceryIds = recipeGroceries.stream()
+                .map(recipeGrocery -> recipeGrocery.getGrocery().getId())
+                .collect(Collectors.toSet());
+        if (groceryIds.isEmpty()) {
+            return new HashMap<>();
         }
-        return result;
+        return refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryIds(refrigeratorId, groceryIds)
+                .stream()
+                .collect(Collectors.groupingBy(refrigeratorGrocery -> refrigeratorGrocery.getGrocery().getId(),
+                        HashMap::new, Collectors.mapping(RefrigeratorGroceryDTO::new, Collectors.toList())));
     }
 
     /**
@@ -240,6 +255,17 @@ public class GroceryService {
             throw new UnauthorizedException("User is not a member of the refrigerator");
         }
         refrigeratorGroceryRepository.deleteById(refrigeratorGroceryId);
+        publishGroceriesChanged(refrigeratorGrocery.getRefrigerator(), Set.of(refrigeratorGrocery.getGrocery().getId()));
+    }
+
+    /**
+     * Publishes that groceries in a refrigerator have changed, so cached recipe matches can be updated.
+     *
+     * @param refrigerator the refrigerator that changed
+     * @param groceryIds ids of the groceries that were added, used, updated or removed
+     */
+    private void publishGroceriesChanged(Refrigerator refrigerator, Set<Long> groceryIds) {
+        eventPublisher.publishEvent(new RefrigeratorGroceriesChangedEvent(refrigerator.getId(), groceryIds));
     }
 
     /**
@@ -270,6 +296,36 @@ public class GroceryService {
         }
     }
 
+    /**
+     * Adds groceries to a refrigerator in one batch, and publishes them as changed.
+     * The caller is responsible for checking that the user may add groceries to the refrigerator.
+     *
+     * @param refrigerator the refrigerator the groceries are added to
+     * @param groceries the groceries to add
+     * @throws SaveException If save fails
+     */
+    public void addRefrigeratorGroceries(Refrigerator refrigerator, List<RefrigeratorGrocery> groceries) throws SaveException {
+        saveRefrigeratorGroceries(groceries);
+        publishGroceriesChanged(refrigerator, groceries.stream()
+                .map(refrigeratorGrocery -> refrigeratorGrocery.getGrocery().getId())
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Saves refrigerator groceries to the refrigeratorGrocery table in one call,
+     * so the inserts are sent to the database in JDBC batches
+     *
+     * @param groceries the groceries to be saved
+     * @throws SaveException If save fails
+     */
+    public void saveRefrigeratorGroceries(List<RefrigeratorGrocery> groceries) throws SaveException {
+        try {
+            refrigeratorGroceryRepository.saveAll(groceries);
+        } catch (Exception e) {
+            throw new SaveException(e.getMessage());
+        }
+    }
+
 
     /**
      Returns a list of all GroceryDTO objects.
@@ -303,7 +359,8 @@ public class GroceryService {
             throw new NoSuchElementException("Could not find grocery with id: " + dto.getRefrigeratorGroceryDTO().getId());
         }
         logger.info("Creating history object");
-        groceryHistoryService.newGroceryHistory(grocery.get(), dto.getQuantity(), dto.getUnitDTO(), false);
+        groceryHistoryService.newGroceryHistory(grocery.get(), dto.getQuantity(), dto.getUnitDTO(), false,
+                refrigeratorService.getUser(extractEmail(request)));
         return result;
     }
 
@@ -321,7 +378,8 @@ public class GroceryService {
             throw new NoSuchElementException("Could not find grocery with id: " + dto.getRefrigeratorGroceryDTO().getId());
         }
         logger.info("Creating history object");
-        groceryHistoryService.newGroceryHistory(grocery.get(),dto.getQuantity(), dto.getUnitDTO(), true);
+        groceryHistoryService.newGroceryHistory(grocery.get(),dto.getQuantity(), dto.getUnitDTO(), true,
+                refrigeratorService.getUser(extractEmail(request)));
         return result;
     }
 
@@ -332,7 +390,8 @@ public class GroceryService {
      * @return the updated {@link RefrigeratorGrocery} object, or null if the quantity was not updated
      * @throws NoSuchElementException if the grocery with the given ID cannot be found
      * @throws UnauthorizedException if the user is not authorized to perform the action
-     * @throws Exception if there is an error converting the grocery unit or deleting notifications
+     * @throws InvalidUnitException if the quantity of the grocery can not be converted to the given unit
+     * @throws Exception if there is an error deleting notifications
      */
     public RefrigeratorGrocery useRefrigeratorGrocery(DeleteRefrigeratorGroceryDTO dto, HttpServletRequest request) throws Exception {
         Optional<RefrigeratorGrocery> grocery = refrigeratorGroceryRepository.findById(dto.getRefrigeratorGroceryDTO().getId());
@@ -343,21 +402,131 @@ public class GroceryService {
         if(userRole == null){
             throw new UnauthorizedException("User is not a member of the refrigerator");
         }
-        RefrigeratorGrocery newGrocery = unitService.convertGrocery(grocery.get(), dto.getUnitDTO().getId());
-        if(newGrocery.getQuantity() - dto.getQuantity() <= 0){
+        Unit unit = unitRepository.findById(dto.getUnitDTO().getId())
+                .orElseThrow(() -> new EntityNotFoundException("Could not find unit with unitId" + dto.getUnitDTO().getId()));
+        // Converted without changing the grocery, so it is only written when part of it is left
+        int quantity = UnitWeightTable.convert(grocery.get().getQuantity(), grocery.get().getUnit(), unit);
+        if(quantity - dto.getQuantity() <= 0){
             notificationService.deleteNotificationsByRefrigeratorGrocery(grocery.get());
             removeRefrigeratorGrocery(grocery.get().getId(), request);
-            return newGrocery;
+            return RefrigeratorGrocery.builder()
+                    .id(grocery.get().getId())
+                    .grocery(grocery.get().getGrocery())
+                    .refrigerator(grocery.get().getRefrigerator())
+                    .physicalExpireDate(grocery.get().getPhysicalExpireDate())
+                    .unit(unit)
+                    .quantity(quantity)
+                    .build();
         }
         else{
-            if(newGrocery.getUnit().getId() == dto.getUnitDTO().getId()){
-                newGrocery.setQuantity(newGrocery.getQuantity() - dto.getQuantity());
-                refrigeratorGroceryRepository.save(newGrocery);
-            }
+            grocery.get().setQuantity(quantity - dto.getQuantity());
+            grocery.get().setUnit(unit);
+            refrigeratorGroceryRepository.save(grocery.get());
+            publishGroceriesChanged(grocery.get().getRefrigerator(), Set.of(grocery.get().getGrocery().getId()));
         }
         return null;
     }
 
+    /**
+     * Eats or trashes many {@link RefrigeratorGrocery} objects in one transaction. The groceries are read with one query,
+     * the user is authorized once per refrigerator and the units are read with one query. Quantities are converted and
+     * updated like in {@link #useRefrigeratorGrocery}, groceries that are used up are deleted together with their
+     * notifications in one statement each, and the grocery history is saved with one batched insert.
+     * @param dtos the groceries to use, each with the quantity and unit to use
+     * @param isTrash true if the groceries are trashed, false if they are eaten
+     * @param request the {@link HttpServletRequest} object representing the incoming request
+     * @return the groceries that were used up, with the unit and quantity they were used in
+     * @throws NoSuchElementException if a grocery cannot be found, or is used up by an earlier item of the request
+     * @throws UnauthorizedException if the user is not a member of a refrigerator
+     * @throws UserNotFoundException if the user cannot be found
+     * @throws InvalidUnitException if the quantity of a grocery can not be converted to the given unit
+     */
+    @Transactional(propagation =  Propagation.REQUIRED, rollbackFor = Exception.class)
+    public List<RefrigeratorGrocery> useRefrigeratorGroceries(List<DeleteRefrigeratorGroceryDTO> dtos, boolean isTrash, HttpServletRequest request) throws NoSuchElementException, UnauthorizedException, UserNotFoundException, InvalidUnitException {
+        Set<Long> ids = new HashSet<>();
+        Set<Long> unitIds = new HashSet<>();
+        for (DeleteRefrigeratorGroceryDTO dto : dtos) {
+            ids.add(dto.getRefrigeratorGroceryDTO().getId());
+            unitIds.add(dto.getUnitDTO().getId());
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, RefrigeratorGrocery> groceries = new HashMap<>();
+        for (RefrigeratorGrocery refrigeratorGrocery : refrigeratorGroceryRepository.findAllFetchedByIds(ids)) {
+            groceries.put(refrigeratorGrocery.getId(), refrigeratorGrocery);
+        }
+        for (Long id : ids) {
+            if (!groceries.containsKey(id)) {
+                throw new NoSuchElementException("Could not find grocery with id: " + id);
+            }
+        }
+
+        Map<Long, Refrigerator> refrigerators = new HashMap<>();
+        for (RefrigeratorGrocery refrigeratorGrocery : groceries.values()) {
+            refrigerators.putIfAbsent(refrigeratorGrocery.getRefrigerator().getId(), refrigeratorGrocery.getRefrigerator());
+        }
+        for (Refrigerator refrigerator : refrigerators.values()) {
+            if (getFridgeRole(refrigerator, request) == null) {
+                throw new UnauthorizedException("User is not a member of the refrigerator");
+            }
+        }
+
+        Map<Long, Unit> units = new HashMap<>();
+        for (Unit unit : unitRepository.findAllById(unitIds)) {
+            units.put(unit.getId(), unit);
+        }
+        for (Long unitId : unitIds) {
+            if (!units.containsKey(unitId)) {
+                throw new EntityNotFoundException("Could not find unit with unitId" + unitId);
+            }
+        }
+
+        User user = refrigeratorService.getUser(extractEmail(request));
+        Set<Long> usedUpIds = new HashSet<>();
+        List<RefrigeratorGrocery> usedUp = new ArrayList<>();
+        List<GroceryHistory> groceryHistories = new ArrayList<>();
+        Map<Long, Set<Long>> changedGroceryIds = new HashMap<>();
+        for (DeleteRefrigeratorGroceryDTO dto : dtos) {
+            long id = dto.getRefrigeratorGroceryDTO().getId();
+            if (usedUpIds.contains(id)) {
+                throw new NoSuchElementException("Could not find grocery with id: " + id);
+            }
+            RefrigeratorGrocery refrigeratorGrocery = groceries.get(id);
+            Unit unit = units.get(dto.getUnitDTO().getId());
+            // Converted without changing the grocery, since used up groceries are deleted with a bulk delete
+            int quantity = UnitWeightTable.convert(refrigeratorGrocery.getQuantity(), refrigeratorGrocery.getUnit(), unit);
+            if (quantity - dto.getQuantity() <= 0) {
+                usedUpIds.add(id);
+                usedUp.add(RefrigeratorGrocery.builder()
+                        .id(id)
+                        .grocery(refrigeratorGrocery.getGrocery())
+                        .refrigerator(refrigeratorGrocery.getRefrigerator())
+                        .physicalExpireDate(refrigeratorGrocery.getPhysicalExpireDate())
+                        .unit(unit)
+                        .quantity(dto.getQuantity())
+                        .build());
+            } else {
+                refrigeratorGrocery.setQuantity(quantity - dto.getQuantity());
+                refrigeratorGrocery.setUnit(unit);
+            }
+            groceryHistories.add(groceryHistoryService.createGroceryHistory(refrigeratorGrocery,
+                    dto.getQuantity() * unit.getWeight(), isTrash, user));
+            changedGroceryIds.computeIfAbsent(refrigeratorGrocery.getRefrigerator().getId(), refrigeratorId -> new HashSet<>())
+                    .add(refrigeratorGrocery.getGrocery().getId());
+        }
+
+        if (!usedUpIds.isEmpty()) {
+            notificationService.deleteNotificationsByRefrigeratorGroceries(usedUpIds);
+            refrigeratorGroceryRepository.deleteAllByIdIn(usedUpIds);
+        }
+        groceryHistoryService.saveGroceryHistories(groceryHistories);
+        changedGroceryIds.forEach((refrigeratorId, groceryIds) -> publishGroceriesChanged(refrigerators.get(refrigeratorId), groceryIds));
+        logger.info("Used {} refrigerator groceries, {} used up", dtos.size(), usedUpIds.size());
+        return usedUp;
+    }
+
     /**
      * Updates a {@link RefrigeratorGrocery} object with the given information.
      * @param refrigeratorGroceryDTO the {@link RefrigeratorGroceryDTO} object containing the updated information
@@ -389,6 +558,7 @@ public class GroceryService {
                 .unit(oldGrocery.get().getUnit())
         .build();
         refrigeratorGroceryRepository.save(newGrocery);
+        publishGroceriesChanged(newGrocery.getRefrigerator(), Set.of(newGrocery.getGrocery().getId()));
     }
 
     /**
@@ -83,7 +83,19 @@ public class JwtService {
      @return the generated JWT
      */
     public String generateToken(UserDetails userDetails) {
-        Map<String, Object> extraClaims = new HashMap<>();
+        return generateToken(userDetails, Map.of());
+    }
+
+
+    /**
+
+     Generates a JWT containing a user's authorities (roles) and additional claims.
+     @param userDetails the UserDetails object representing the user for which to generate the token
+     @param additionalClaims the claims to include in addition to the roles
+     @return the generated JWT
+     */
+    public String generateToken(UserDetails userDetails, Map<String, Object> additionalClaims) {
+        Map<String, Object> extraClaims = new HashMap<>(additionalClaims);
         List<String> roles = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
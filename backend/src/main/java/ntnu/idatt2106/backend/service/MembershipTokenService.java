@@ -0,0 +1,144 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.model.RefrigeratorUser;
+import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import ntnu.idatt2106.backend.repository.RefrigeratorUserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues tokens carrying the refrigerator memberships of a user, so the role of a user in a
+ * refrigerator can be answered from the token of the request instead of the database.
+ * <p>
+ * The mode is enabled with {@code smartmat.jwt.membership-claims=true}. A token then holds a compact map
+ * of refrigerator id to role, and the membership epoch of the user at the time it was issued.
+ * Membership changes bump the epoch, after which the claims of older tokens are ignored until the
+ * authentication filter has reissued the cookie. Epochs are kept in memory and start at the time the
+ * application started, so tokens from before a restart are never trusted. The mode assumes a single
+ * application instance, since another instance would not see the bumped epoch.
+ */
+@Service
+@RequiredArgsConstructor
+public class MembershipTokenService {
+
+    /**
+     * Claim holding the map of refrigerator id to role.
+     */
+    static final String FRIDGE_ROLES_CLAIM = "fr";
+
+    /**
+     * Claim holding the membership epoch of the user when the token was issued.
+     */
+    static final String MEMBERSHIP_EPOCH_CLAIM = "fe";
+
+    private final JwtService jwtService;
+    private final RefrigeratorUserRepository refrigeratorUserRepository;
+
+    @Value("${smartmat.jwt.membership-claims:false}")
+    private boolean enabled;
+
+    private final long initialEpoch = System.currentTimeMillis();
+    private final Map<String, Long> epochs = new ConcurrentHashMap<>();
+
+    /**
+     * Checks if tokens carry membership claims.
+     * @return true if the mode is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Generates a token for a user, with the memberships of the user when the mode is enabled.
+     * @param user the user
+     * @return the generated JWT
+     */
+    public String generateToken(User user) {
+        if (!enabled) {
+            return jwtService.generateToken(user);
+        }
+        // Read the epoch before the memberships, so a change made in between makes the token stale
+        long epoch = getEpoch(user.getId());
+        Map<String, String> fridgeRoles = new HashMap<>();
+        for (RefrigeratorUser refrigeratorUser : refrigeratorUserRepository.findByUser(user)) {
+            fridgeRoles.put(String.valueOf(refrigeratorUser.getRefrigerator().getId()),
+                    encode(refrigeratorUser.getFridgeRole()));
+        }
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(FRIDGE_ROLES_CLAIM, fridgeRoles);
+        claims.put(MEMBERSHIP_EPOCH_CLAIM, epoch);
+        return jwtService.generateToken(user, claims);
+    }
+
+    /**
+     * Returns the memberships carried by the token of the current request.
+     * @param user the user the roles are checked for
+     * @return refrigerator id to role, or empty if the mode is disabled, the request was not
+     * authenticated with a token of the user, or the memberships of the token are stale
+     */
+    public Optional<Map<Long, FridgeRole>> getCurrentFridgeRoles(User user) {
+        if (!enabled || user == null) {
+            return Optional.empty();
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getCredentials() instanceof AuthenticationCache.VerifiedToken token
+                && user.getEmail() != null && user.getEmail().equals(token.getUsername())
+                && isCurrent(token, user.getId())) {
+            return Optional.of(token.getFridgeRoles());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Checks if the memberships of a token are current.
+     * @param token the verified token
+     * @param userId id of the user of the token
+     * @return true if the token carries memberships issued at the current epoch of the user
+     */
+    public boolean isCurrent(AuthenticationCache.VerifiedToken token, String userId) {
+        return token.getFridgeRoles() != null && token.getMembershipEpoch() != null
+                && token.getMembershipEpoch() == getEpoch(userId);
+    }
+
+    /**
+     * Marks the memberships of a user as changed, so the claims of tokens issued before are ignored.
+     * @param userId id of the user, may be null
+     */
+    public void bumpEpoch(String userId) {
+        if (userId != null) {
+            epochs.merge(userId, initialEpoch + 1, (epoch, ignored) -> epoch + 1);
+        }
+    }
+
+    long getEpoch(String userId) {
+        return userId == null ? initialEpoch : epochs.getOrDefault(userId, initialEpoch);
+    }
+
+    private static String encode(FridgeRole fridgeRole) {
+        return fridgeRole == FridgeRole.SUPERUSER ? "S" : "U";
+    }
+
+    /**
+     * Decodes the membership claim of a token.
+     * @param claim the claim, may be null
+     * @return refrigerator id to role, or null if the token has no membership claim
+     */
+    static Map<Long, FridgeRole> decode(Map<?, ?> claim) {
+        if (claim == null) {
+            return null;
+        }
+        Map<Long, FridgeRole> fridgeRoles = new HashMap<>();
+        for (Map.Entry<?, ?> entry : claim.entrySet()) {
+            fridgeRoles.put(Long.valueOf(String.valueOf(entry.getKey())),
+                    "S".equals(entry.getValue()) ? FridgeRole.SUPERUSER : FridgeRole.USER);
+        }
+        return Collections.unmodifiableMap(fridgeRoles);
+    }
+}
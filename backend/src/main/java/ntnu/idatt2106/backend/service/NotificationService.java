@@ -2,15 +2,20 @@ package ntnu.idatt2106.backend.service;
 
 
 import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.event.GroceryNotificationsChangedEvent;
+import ntnu.idatt2106.backend.event.GroceryNotificationsDismissedEvent;
 import ntnu.idatt2106.backend.exceptions.NotificationException;
 import ntnu.idatt2106.backend.model.*;
 import ntnu.idatt2106.backend.model.dto.GroceryNotificationDTO;
+import ntnu.idatt2106.backend.model.dto.NotificationDismissalDTO;
 import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.repository.GroceryNotificationRepository;
-import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
 import ntnu.idatt2106.backend.repository.RefrigeratorUserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
@@ -19,84 +24,99 @@ import java.util.stream.Collectors;
 
 
 /**
- * Service for notifications
+ * Service for notifications.
+ * Expiry notifications are generated in the background by {@link ExpiryTracker},
+ * so reading the notifications of a user does not scan any refrigerator.
+ * Created and deleted notifications are pushed to connected users by {@link NotificationStreamService}.
  */
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
 
+    /**
+     * Number of days before its expiry date a grocery gets a notification.
+     */
+    static final int NOTIFICATION_DAYS = 3;
+
     private final GroceryNotificationRepository groceryNotificationRepository;
     private final RefrigeratorUserRepository refrigeratorUserRepository;
-    private final RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     /**
      * Gets all the grocery notifications for a user.
+     * Notifications are generated by {@link ExpiryTracker}, so reading them is a single select.
      *
      * @param user
      * @return
      */
     public List<GroceryNotificationDTO> getNotifications(User user) {
-        List<Refrigerator> refrigerators = refrigeratorUserRepository.findByUser(user)
-                .stream().map(refrigeratorUser -> refrigeratorUser.getRefrigerator())
-                .collect(Collectors.toList());
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-
-        refrigerators.stream().forEach(refrigerator -> {
-            refrigeratorGroceries.addAll(refrigeratorGroceryRepository.findAllByRefrigeratorId(refrigerator.getId()));
-        });
-
-        generateNotifications(refrigeratorGroceries, user);
-
-        List<GroceryNotificationDTO> notifications = groceryNotificationRepository
-                .findAllByUserId(user.getId())
+        return groceryNotificationRepository.findAllActiveByUserId(user.getId())
                 .stream()
-                .filter(groceryNotification -> !groceryNotification.isDeleted())
                 .map(groceryNotification -> new GroceryNotificationDTO(groceryNotification))
                 .collect(Collectors.toList());
-
-        return notifications;
     }
 
     /**
-     * Generates a new notification and saves it to database either if the
-     * grocery entity has no existing notifications or has one existing notification but expires the current day.
+     * Generates a new notification for every member of the refrigerator of an expiring grocery, either if the
+     * member has no existing notification for the grocery entity, or has one existing notification which is not
+     * deleted and the grocery expires the current day. Members and existing notifications are read with one query
+     * each, and the new notifications are saved in one batch.
      *
-     * @param refrigeratorGroceries
-     * @param user
+     * @param refrigeratorGroceries groceries which may expire within {@link #NOTIFICATION_DAYS} days
+     * @return the number of generated notifications
      */
-    public void generateNotifications(List<RefrigeratorGrocery> refrigeratorGroceries, User user) {
-        Date date = new Date();
+    public int generateNotifications(List<RefrigeratorGrocery> refrigeratorGroceries) {
+        if (refrigeratorGroceries.isEmpty()) {
+            return 0;
+        }
+        Set<Long> refrigeratorIds = new HashSet<>();
+        Set<Long> groceryEntityIds = new HashSet<>();
+        for (RefrigeratorGrocery refrigeratorGrocery : refrigeratorGroceries) {
+            refrigeratorIds.add(refrigeratorGrocery.getRefrigerator().getId());
+            groceryEntityIds.add(refrigeratorGrocery.getId());
+        }
 
-        //Get all groceries which have below 3 days left.
-        List<RefrigeratorGrocery> mightNeedNotification = refrigeratorGroceries.stream()
-                .filter(refrigeratorGrocery -> getDaysBetweenTodayAndDate(refrigeratorGrocery.getPhysicalExpireDate()) <= 3)
-                .collect(Collectors.toList());
+        Map<Long, List<User>> members = refrigeratorUserRepository.findAllByRefrigeratorIds(refrigeratorIds)
+                .stream()
+                .collect(Collectors.groupingBy(refrigeratorUser -> refrigeratorUser.getRefrigerator().getId(),
+                        Collectors.mapping(RefrigeratorUser::getUser, Collectors.toList())));
+        Map<String, List<GroceryNotification>> preExisting = groceryNotificationRepository
+                .findAllByGroceryEntityIds(groceryEntityIds)
+                .stream()
+                .filter(groceryNotification -> groceryNotification.getUser() != null)
+                .collect(Collectors.groupingBy(groceryNotification ->
+                        notificationKey(groceryNotification.getUser().getId(), groceryNotification.getGroceryEntity().getId())));
 
         List<GroceryNotification> notifications = new ArrayList<>();
+        for (RefrigeratorGrocery refrigeratorGrocery : refrigeratorGroceries) {
+            long daysLeft = getDaysBetweenTodayAndDate(refrigeratorGrocery.getPhysicalExpireDate());
+            if (daysLeft > NOTIFICATION_DAYS) {
+                continue;
+            }
+            for (User user : members.getOrDefault(refrigeratorGrocery.getRefrigerator().getId(), List.of())) {
+                List<GroceryNotification> existing = preExisting
+                        .getOrDefault(notificationKey(user.getId(), refrigeratorGrocery.getId()), List.of());
+                if (existing.isEmpty() || (existing.size() == 1 && daysLeft == 0 && !existing.get(0).isDeleted())) {
+                    notifications.add(GroceryNotification.builder()
+                            .groceryEntity(refrigeratorGrocery)
+                            .daysLeft(daysLeft)
+                            .user(user)
+                            .deleted(false)
+                            .build());
+                }
+            }
+        }
+
+        groceryNotificationRepository.saveAll(notifications);
+        if (!notifications.isEmpty()) {
+            eventPublisher.publishEvent(new GroceryNotificationsChangedEvent(notifications, List.of()));
+        }
+        return notifications.size();
+    }
 
-        mightNeedNotification.stream()
-                .forEach(refrigatorGrocery -> {
-                    List<GroceryNotification> preExisting = groceryNotificationRepository.findAllByGroceryEntity(refrigatorGrocery);
-                    if (preExisting.isEmpty()) {
-                        notifications.add(GroceryNotification.builder()
-                                .groceryEntity(refrigatorGrocery)
-                                .daysLeft(getDaysBetweenTodayAndDate(refrigatorGrocery.getPhysicalExpireDate()))
-                                .user(user)
-                                .deleted(false)
-                                .build());
-                    }
-                    if (preExisting.size() == 1 && getDaysBetweenTodayAndDate(refrigatorGrocery.getPhysicalExpireDate()) == 0 && !preExisting.get(0).isDeleted()) {
-                        notifications.add(GroceryNotification.builder()
-                                .groceryEntity(refrigatorGrocery)
-                                .daysLeft(getDaysBetweenTodayAndDate(refrigatorGrocery.getPhysicalExpireDate()))
-                                .user(user)
-                                .deleted(false)
-                                .build());
-                    }
-                });
-
-        notifications.forEach(groceryNotification -> groceryNotificationRepository.save(groceryNotification));
+    private static String notificationKey(String userId, long groceryEntityId) {
+        return userId + ":" + groceryEntityId;
     }
 
     public GroceryNotificationDTO deleteNotification(User user, long notifId) throws NotificationException {
@@ -114,20 +134,100 @@ public class NotificationService {
         } catch (Exception e) {
             throw new NotificationException("Could not find notification in repository when deleting" + e.getMessage());
         }
+        eventPublisher.publishEvent(new GroceryNotificationsChangedEvent(List.of(), List.of(found)));
         return new GroceryNotificationDTO(found);
     }
 
+    /**
+     * Dismisses the given notifications of a user with a single update. Ids of notifications
+     * owned by other users or already dismissed are ignored.
+     *
+     * @param user the owner of the notifications
+     * @param ids ids of the notifications
+     * @return the dismissal, with the number of dismissed notifications
+     */
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public NotificationDismissalDTO dismissNotifications(User user, List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new NotificationDismissalDTO(List.of(), null, 0);
+        }
+        int dismissed = groceryNotificationRepository.dismissAllByUserIdAndIds(user.getId(), ids);
+        return publishDismissal(user, new NotificationDismissalDTO(ids, null, dismissed));
+    }
+
+    /**
+     * Dismisses the notifications of a user regarding groceries in a refrigerator with a single update.
+     *
+     * @param user the owner of the notifications
+     * @param refrigeratorId id of the refrigerator
+     * @return the dismissal, with the number of dismissed notifications
+     */
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public NotificationDismissalDTO dismissNotificationsByRefrigerator(User user, long refrigeratorId) {
+        int dismissed = groceryNotificationRepository.dismissAllByUserIdAndRefrigeratorId(user.getId(), refrigeratorId);
+        return publishDismissal(user, new NotificationDismissalDTO(null, refrigeratorId, dismissed));
+    }
+
+    /**
+     * Dismisses all notifications of a user with a single update.
+     *
+     * @param user the owner of the notifications
+     * @return the dismissal, with the number of dismissed notifications
+     */
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public NotificationDismissalDTO dismissAllNotifications(User user) {
+        int dismissed = groceryNotificationRepository.dismissAllByUserId(user.getId());
+        return publishDismissal(user, new NotificationDismissalDTO(null, null, dismissed));
+    }
+
+    private NotificationDismissalDTO publishDismissal(User user, NotificationDismissalDTO dismissal) {
+        if (dismissal.getDismissed() > 0) {
+            eventPublisher.publishEvent(new GroceryNotificationsDismissedEvent(user.getId(), dismissal));
+        }
+        return dismissal;
+    }
+
+    /**
+     * Deletes all notifications of a grocery entity with a single delete. The notifications are read
+     * once before, so the deletion can be pushed to their users.
+     *
+     * @param refrigeratorGrocery the grocery entity
+     * @return the deleted notifications
+     */
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public List<GroceryNotificationDTO> deleteNotificationsByRefrigeratorGrocery(RefrigeratorGrocery refrigeratorGrocery) throws NotificationException {
         List<GroceryNotification> delete = groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGrocery);
-        delete.stream()
-                .forEach((groceryNotification -> {
-                    groceryNotificationRepository.delete(groceryNotification);
-                }));
-        List<GroceryNotificationDTO> list = delete.stream()
+        if (delete.isEmpty()) {
+            return List.of();
+        }
+        groceryNotificationRepository.deleteAllByGroceryEntityId(refrigeratorGrocery.getId());
+        eventPublisher.publishEvent(new GroceryNotificationsChangedEvent(List.of(), delete));
+        return delete.stream()
                 .map(groceryNotification -> new GroceryNotificationDTO(groceryNotification))
                 .collect(Collectors.toList());
+    }
 
-        return list;
+    /**
+     * Deletes all notifications of many grocery entities with a single delete. The notifications are read
+     * once before, so the deletion can be pushed to their users.
+     *
+     * @param refrigeratorGroceryIds ids of the grocery entities
+     * @return the deleted notifications
+     */
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public List<GroceryNotificationDTO> deleteNotificationsByRefrigeratorGroceries(Collection<Long> refrigeratorGroceryIds) {
+        if (refrigeratorGroceryIds.isEmpty()) {
+            return List.of();
+        }
+        List<GroceryNotification> delete = groceryNotificationRepository.findAllByGroceryEntityIds(refrigeratorGroceryIds);
+        if (delete.isEmpty()) {
+            return List.of();
+        }
+        groceryNotificationRepository.deleteAllByGroceryEntityIdIn(refrigeratorGroceryIds);
+        eventPublisher.publishEvent(new GroceryNotificationsChangedEvent(List.of(), delete));
+        return delete.stream()
+                .map(groceryNotification -> new GroceryNotificationDTO(groceryNotification))
+                .collect(Collectors.toList());
     }
 
     private long getDaysBetweenTodayAndDate(LocalDate date) {
@@ -0,0 +1,327 @@
+package ntnu.idatt2106.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.event.GroceryNotificationsChangedEvent;
+import ntnu.idatt2106.backend.event.GroceryNotificationsDismissedEvent;
+import ntnu.idatt2106.backend.model.dto.GroceryNotificationDTO;
+import ntnu.idatt2106.backend.model.dto.NotificationDismissalDTO;
+import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes created and deleted grocery notifications to connected users as Server-Sent Events,
+ * so clients do not have to poll for notifications.
+ * <p>
+ * Events are named {@value #NOTIFICATION_EVENT} and {@value #NOTIFICATION_DELETED_EVENT} and carry a
+ * {@link GroceryNotificationDTO}. Bulk dismissals are sent as one {@value #NOTIFICATIONS_DISMISSED_EVENT} event
+ * carrying a {@link NotificationDismissalDTO}. The last {@link #MAX_REPLAY_EVENTS} events of every user are kept, so a
+ * client reconnecting with {@code Last-Event-ID} gets the events it missed. If they are no longer kept, for example
+ * after a restart, the client gets a {@value #RESYNC_EVENT} event and should read all notifications once.
+ * <p>
+ * Every connection has a bounded buffer of events waiting to be sent. A connection whose buffer is full is
+ * closed, and the client recovers by reconnecting. Clients missing more events than fit in the buffer get a
+ * {@value #RESYNC_EVENT} event instead of the replay.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationStreamService {
+
+    static final String NOTIFICATION_EVENT = "notification";
+    static final String NOTIFICATION_DELETED_EVENT = "notification-deleted";
+    static final String NOTIFICATIONS_DISMISSED_EVENT = "notifications-dismissed";
+    static final String RESYNC_EVENT = "resync";
+
+    /**
+     * Time before a connection is closed by the server, after which the client reconnects.
+     */
+    static final Duration CONNECTION_TIMEOUT = Duration.ofMinutes(30);
+
+    /**
+     * Interval between heartbeats, which keep idle connections open through proxies.
+     */
+    static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(20);
+
+    /**
+     * Number of events kept per user for replay.
+     */
+    static final int MAX_REPLAY_EVENTS = 100;
+
+    /**
+     * Maximum number of users whose events are kept for replay, least recently used are evicted first.
+     */
+    static final int MAX_REPLAY_USERS = 10_000;
+
+    /**
+     * Number of events a connection may have waiting to be sent before it is closed.
+     */
+    static final int MAX_PENDING_EVENTS = 64;
+
+    /**
+     * Maximum number of threads sending events. A client that reads slowly only holds one of them.
+     */
+    static final int MAX_SENDER_THREADS = 32;
+
+    private final ObjectMapper objectMapper;
+
+    private final Logger logger = LoggerFactory.getLogger(NotificationStreamService.class);
+
+    // Starts at the current time, so event ids from before a restart are older than every new event
+    final long firstEventId = System.currentTimeMillis();
+    private final AtomicLong lastEventId = new AtomicLong(firstEventId);
+
+    private final Map<String, List<Connection>> connections = new ConcurrentHashMap<>();
+    private final BoundedCache<String, ReplayBuffer> replayBuffers = new BoundedCache<>(MAX_REPLAY_USERS);
+
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final ThreadPoolExecutor senderExecutor = createSenderExecutor();
+
+    private static ThreadPoolExecutor createSenderExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_SENDER_THREADS, MAX_SENDER_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @PostConstruct
+    void startHeartbeat() {
+        heartbeatExecutor.scheduleAtFixedRate(this::sendHeartbeats, HEARTBEAT_INTERVAL.toMillis(),
+                HEARTBEAT_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        senderExecutor.shutdownNow();
+        connections.values().forEach(userConnections -> userConnections.forEach(connection -> connection.emitter.complete()));
+        connections.clear();
+    }
+
+    /**
+     * Opens a stream of notification events for a user.
+     * The connection is registered and the missed events are replayed while the replay buffer of the user is
+     * locked. Events are pushed under the same lock, so an event is either replayed or pushed live, never both,
+     * and every event is sent in id order.
+     * @param userId id of the user
+     * @param lastEventId id of the last event the client received, null on the first connection
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter connect(String userId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(CONNECTION_TIMEOUT.toMillis());
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(e -> remove(connection));
+        ReplayBuffer buffer = replayBuffers.computeIfAbsent(userId, id -> new ReplayBuffer());
+        synchronized (buffer) {
+            connections.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>()).add(connection);
+
+            if (lastEventId != null) {
+                List<StreamedEvent> missed = getMissedEvents(buffer, lastEventId);
+                // More missed events than a connection can buffer would close it right away, so resync instead
+                if (missed == null || missed.size() > MAX_PENDING_EVENTS) {
+                    connection.offer(new StreamedEvent(this.lastEventId.get(), RESYNC_EVENT, "{}"));
+                } else {
+                    missed.forEach(connection::offer);
+                }
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Pushes created and deleted notifications to their users once the change has committed.
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsChanged(GroceryNotificationsChangedEvent event) {
+        event.getCreated().forEach(notification -> push(notification, NOTIFICATION_EVENT));
+        event.getDeleted().forEach(notification -> push(notification, NOTIFICATION_DELETED_EVENT));
+    }
+
+    /**
+     * Pushes a bulk dismissal to the connections of its user once it has committed.
+     * @param event the dismissal
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsDismissed(GroceryNotificationsDismissedEvent event) {
+        push(event.getUserId(), event.getDismissal(), NOTIFICATIONS_DISMISSED_EVENT);
+    }
+
+    /**
+     * Returns the number of open connections of a user.
+     * @param userId id of the user
+     * @return number of connections
+     */
+    public int getConnectionCount(String userId) {
+        return connections.getOrDefault(userId, List.of()).size();
+    }
+
+    private void push(GroceryNotification notification, String name) {
+        if (notification.getUser() == null) {
+            return;
+        }
+        push(notification.getUser().getId(), new GroceryNotificationDTO(notification), name);
+    }
+
+    private void push(String userId, Object payload, String name) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialize {} event for user {}: {}", name, userId, e.getMessage());
+            return;
+        }
+        ReplayBuffer buffer = replayBuffers.computeIfAbsent(userId, id -> new ReplayBuffer());
+        // The id is taken under the lock as well, so the events of a user are buffered and sent in id order
+        synchronized (buffer) {
+            StreamedEvent event = new StreamedEvent(lastEventId.incrementAndGet(), name, data);
+            buffer.add(event);
+            connections.getOrDefault(userId, List.of()).forEach(connection -> connection.offer(event));
+        }
+    }
+
+    /**
+     * Returns the events of a user after the given id.
+     * @return the missed events, or null if some of them are no longer kept
+     */
+    List<StreamedEvent> getMissedEvents(String userId, long lastEventId) {
+        return getMissedEvents(replayBuffers.get(userId), lastEventId);
+    }
+
+    private List<StreamedEvent> getMissedEvents(ReplayBuffer buffer, long lastEventId) {
+        if (lastEventId < firstEventId) {
+            return null;
+        }
+        return buffer == null ? List.of() : buffer.after(lastEventId);
+    }
+
+    private void sendHeartbeats() {
+        connections.values().forEach(userConnections -> userConnections.forEach(Connection::offerHeartbeat));
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (userId, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    /**
+     * An event sent to a user, with the data already serialized.
+     */
+    static class StreamedEvent {
+        final long id;
+        final String name;
+        final String data;
+
+        private StreamedEvent(long id, String name, String data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    /**
+     * The last events of a user, and the id of the last event that no longer fits.
+     * Its monitor also orders pushes against new connections of the user.
+     */
+    private static class ReplayBuffer {
+        private final Deque<StreamedEvent> events = new ArrayDeque<>();
+        private long droppedUpTo = Long.MIN_VALUE;
+
+        private synchronized void add(StreamedEvent event) {
+            events.addLast(event);
+            if (events.size() > MAX_REPLAY_EVENTS) {
+                droppedUpTo = events.removeFirst().id;
+            }
+        }
+
+        private synchronized List<StreamedEvent> after(long lastEventId) {
+            if (lastEventId < droppedUpTo) {
+                return null;
+            }
+            return events.stream().filter(event -> event.id > lastEventId).toList();
+        }
+    }
+
+    /**
+     * An open stream, sending its buffered events one at a time on the sender executor.
+     */
+    private class Connection {
+        private final String userId;
+        private final SseEmitter emitter;
+        private final Deque<SseEmitter.SseEventBuilder> pending = new ArrayDeque<>();
+        private boolean draining;
+
+        private Connection(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void offer(StreamedEvent event) {
+            enqueue(SseEmitter.event()
+                    .id(String.valueOf(event.id))
+                    .name(event.name)
+                    .data(event.data, MediaType.APPLICATION_JSON));
+        }
+
+        private void offerHeartbeat() {
+            enqueue(SseEmitter.event().comment("heartbeat"));
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            synchronized (this) {
+                if (pending.size() >= MAX_PENDING_EVENTS) {
+                    pending.clear();
+                    remove(this);
+                    emitter.complete();
+                    return;
+                }
+                pending.addLast(event);
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+            senderExecutor.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                synchronized (this) {
+                    next = pending.pollFirst();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    synchronized (this) {
+                        pending.clear();
+                        draining = false;
+                    }
+                    remove(this);
+                    return;
+                }
+            }
+        }
+    }
+}
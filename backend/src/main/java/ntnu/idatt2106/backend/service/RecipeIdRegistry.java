@@ -0,0 +1,86 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.event.RecipeCatalogChangedEvent;
+import ntnu.idatt2106.backend.repository.recipe.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory registry of the ids of every recipe, numbered with dense {@link RecipeOrdinals} so the
+ * {@link RefrigeratorMatchCache} can keep recipe scores in arrays and bitsets, and {@link RecipeRankingService}
+ * can fill up rankings with recipes that do not use any stored grocery.
+ * <p>
+ * The registry is built from the Recipe table when the application is ready, and kept current through
+ * {@link RecipeCatalogChangedEvent}s. Every change publishes a new immutable numbering, so reads never lock.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipeIdRegistry {
+
+    private final RecipeRepository recipeRepository;
+
+    private final Logger logger = LoggerFactory.getLogger(RecipeIdRegistry.class);
+
+    private volatile RecipeOrdinals ordinals = RecipeOrdinals.EMPTY;
+    private volatile boolean stale = true;
+
+    /**
+     * Builds the registry when the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the registry from the database, using a projection of the recipe ids.
+     */
+    public synchronized void rebuild() {
+        ordinals = RecipeOrdinals.of(recipeRepository.findAllIds());
+        stale = false;
+        logger.info("Built recipe registry with {} recipes", ordinals.size());
+    }
+
+    /**
+     * Applies a change in the recipe catalog to the registry once the writing transaction has committed.
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRecipeCatalogChanged(RecipeCatalogChangedEvent event) {
+        if (stale || event.getRecipeId() == null
+                || event.getEntityType() == RecipeCatalogChangedEvent.EntityType.RECIPE_CATEGORY) {
+            return;
+        }
+        if (event.getAction() == RecipeCatalogChangedEvent.Action.PERSIST) {
+            ordinals = ordinals.withRecipe(event.getRecipeId());
+        } else if (event.getAction() == RecipeCatalogChangedEvent.Action.REMOVE
+                && event.getEntityType() == RecipeCatalogChangedEvent.EntityType.RECIPE) {
+            ordinals = ordinals.withoutRecipe(event.getRecipeId());
+        }
+    }
+
+    /**
+     * Returns the current numbering of the recipes in the catalog.
+     * A new instance is returned after every change, so callers can tell if the catalog has changed.
+     * @return recipe ordinals
+     */
+    public RecipeOrdinals getOrdinals() {
+        ensureBuilt();
+        return ordinals;
+    }
+
+    private void ensureBuilt() {
+        if (stale) {
+            synchronized (this) {
+                if (stale) {
+                    rebuild();
+                }
+            }
+        }
+    }
+}
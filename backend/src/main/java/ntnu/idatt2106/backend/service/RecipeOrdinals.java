@@ -0,0 +1,221 @@
+package ntnu.idatt2106.backend.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable numbering of the recipes in the catalog with dense ordinals, so data about every recipe can be
+ * kept in arrays and bitsets indexed by ordinal instead of maps keyed by recipe id.
+ * <p>
+ * A changed catalog gives a new instance. Ordinals are not reused within one numbering: a removed recipe
+ * keeps its ordinal but is no longer live, and an added recipe gets the next ordinal.
+ */
+public final class RecipeOrdinals {
+
+    static final RecipeOrdinals EMPTY = of(new long[0]);
+
+    private final long[] recipeIds;
+    private final Map<Long, Integer> ordinals;
+    private final long[] live;
+    private final int[] liveOrdinalsById;
+
+    private RecipeOrdinals(long[] recipeIds, Map<Long, Integer> ordinals, long[] live) {
+        this.recipeIds = recipeIds;
+        this.ordinals = ordinals;
+        this.live = live;
+        this.liveOrdinalsById = ordinals.values().stream()
+                .filter(ordinal -> isSet(live, ordinal))
+                .sorted((a, b) -> Long.compare(recipeIds[a], recipeIds[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Numbers the given recipes, in ascending order of recipe id.
+     * @param recipeIds the recipe ids
+     * @return the numbering
+     */
+    static RecipeOrdinals of(Collection<Long> recipeIds) {
+        return of(recipeIds.stream().mapToLong(Long::longValue).distinct().sorted().toArray());
+    }
+
+    private static RecipeOrdinals of(long[] sortedRecipeIds) {
+        Map<Long, Integer> ordinals = new HashMap<>();
+        long[] live = new long[words(sortedRecipeIds.length)];
+        for (int ordinal = 0; ordinal < sortedRecipeIds.length; ordinal++) {
+            ordinals.put(sortedRecipeIds[ordinal], ordinal);
+            set(live, ordinal);
+        }
+        return new RecipeOrdinals(sortedRecipeIds, ordinals, live);
+    }
+
+    /**
+     * Returns a numbering where a recipe is live, giving it the next ordinal if it has none.
+     * @param recipeId the added recipe
+     * @return the new numbering, or this numbering if the recipe is already live
+     */
+    RecipeOrdinals withRecipe(long recipeId) {
+        Integer ordinal = ordinals.get(recipeId);
+        if (ordinal != null && isSet(live, ordinal)) {
+            return this;
+        }
+        long[] newRecipeIds = recipeIds;
+        Map<Long, Integer> newOrdinals = ordinals;
+        if (ordinal == null) {
+            ordinal = recipeIds.length;
+            newRecipeIds = Arrays.copyOf(recipeIds, recipeIds.length + 1);
+            newRecipeIds[ordinal] = recipeId;
+            newOrdinals = new HashMap<>(ordinals);
+            newOrdinals.put(recipeId, ordinal);
+        }
+        long[] newLive = Arrays.copyOf(live, words(newRecipeIds.length));
+        set(newLive, ordinal);
+        return new RecipeOrdinals(newRecipeIds, newOrdinals, newLive);
+    }
+
+    /**
+     * Returns a numbering where a recipe is no longer live. The recipe keeps its ordinal.
+     * @param recipeId the removed recipe
+     * @return the new numbering, or this numbering if the recipe is not live
+     */
+    RecipeOrdinals withoutRecipe(long recipeId) {
+        Integer ordinal = ordinals.get(recipeId);
+        if (ordinal == null || !isSet(live, ordinal)) {
+            return this;
+        }
+        long[] newLive = live.clone();
+        clear(newLive, ordinal);
+        return new RecipeOrdinals(recipeIds, ordinals, newLive);
+    }
+
+    /**
+     * Returns the number of ordinals handed out, including those of removed recipes.
+     * Arrays indexed by ordinal must have at least this length.
+     * @return number of ordinals
+     */
+    public int capacity() {
+        return recipeIds.length;
+    }
+
+    /**
+     * Returns the number of recipes in the catalog.
+     * @return number of live recipes
+     */
+    public int size() {
+        return liveOrdinalsById.length;
+    }
+
+    /**
+     * Returns the ordinal of a recipe in the catalog.
+     * @param recipeId the recipe
+     * @return the ordinal, or -1 if the recipe is unknown or has been removed
+     */
+    public int ordinalOf(long recipeId) {
+        Integer ordinal = ordinals.get(recipeId);
+        return ordinal == null || !isSet(live, ordinal) ? -1 : ordinal;
+    }
+
+    /**
+     * Returns the recipe id of an ordinal.
+     * @param ordinal the ordinal
+     * @return the recipe id
+     */
+    public long recipeId(int ordinal) {
+        return recipeIds[ordinal];
+    }
+
+    /**
+     * Checks if the recipe of an ordinal is in the catalog.
+     * @param ordinal the ordinal
+     * @return true if the recipe has not been removed
+     */
+    public boolean isLive(int ordinal) {
+        return isSet(live, ordinal);
+    }
+
+    /**
+     * Returns the ordinal of the recipe at a position when the recipes in the catalog are ordered by id.
+     * @param position the position, from 0 to {@link #size()} - 1
+     * @return the ordinal
+     */
+    public int ordinalAt(int position) {
+        return liveOrdinalsById[position];
+    }
+
+    /**
+     * Returns the position of the first recipe with an id greater than the given id,
+     * when the recipes in the catalog are ordered by id.
+     * @param recipeId the recipe id
+     * @return the position, {@link #size()} if there is no greater id
+     */
+    public int positionAfter(long recipeId) {
+        int low = 0;
+        int high = liveOrdinalsById.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (recipeIds[liveOrdinalsById[middle]] <= recipeId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns a bitset of the ordinals of the given recipes. Recipes not in the catalog are left out.
+     * @param recipeIds the recipes, may be null
+     * @return bitset indexed by ordinal
+     */
+    public long[] toBitSet(Collection<Long> recipeIds) {
+        long[] bits = new long[words(capacity())];
+        if (recipeIds != null) {
+            for (Long recipeId : recipeIds) {
+                int ordinal = recipeId == null ? -1 : ordinalOf(recipeId);
+                if (ordinal >= 0) {
+                    set(bits, ordinal);
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the number of words of a bitset holding the given number of bits.
+     * @param bits number of bits
+     * @return number of longs
+     */
+    static int words(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /**
+     * Checks if a bit is set. Bits beyond the end of the bitset are not set.
+     * @param bits the bitset
+     * @param index the bit
+     * @return true if the bit is set
+     */
+    static boolean isSet(long[] bits, int index) {
+        return (index >>> 6) < bits.length && (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets a bit.
+     * @param bits the bitset
+     * @param index the bit
+     */
+    static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * Clears a bit.
+     * @param bits the bitset
+     * @param index the bit
+     */
+    static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
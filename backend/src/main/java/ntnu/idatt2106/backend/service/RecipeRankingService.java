@@ -0,0 +1,145 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Service for ranking recipes against the contents of a refrigerator.
+ * The recipe scores come from the {@link RefrigeratorMatchCache}. Only the scored recipes are ranked, with a
+ * bounded heap, and the rest of the ranking is filled with unscored recipes in id order, skipping the scored
+ * and excluded ones with bitset lookups. A request costs O(m log k) for m scored recipes, plus a walk over
+ * the recipe ids that stops as soon as the ranking is full.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipeRankingService {
+
+    private final RefrigeratorMatchCache refrigeratorMatchCache;
+    private final RecipeIdRegistry recipeIdRegistry;
+
+    /**
+     * Returns the ids of the best matching recipes for a refrigerator, best first.
+     * Recipes without any matching groceries are used to fill up the list.
+     * @param refrigeratorId the refrigerator to match against
+     * @param numRecipes the maximum number of recipes to return
+     * @param excludedRecipeIds recipes that should not be returned, for example already fetched ones
+     * @return ranked recipe ids
+     */
+    public List<Long> getTopRecipeIds(long refrigeratorId, int numRecipes, Collection<Long> excludedRecipeIds) {
+        if (numRecipes <= 0) {
+            return new ArrayList<>();
+        }
+        RecipeScores scores = refrigeratorMatchCache.getScores(refrigeratorId, LocalDate.now());
+        return selectTop(scores, scores.getOrdinals().toBitSet(excludedRecipeIds), numRecipes);
+    }
+
+    /**
+     * Returns the ids of all recipes ranked for a refrigerator, best first.
+     * Used when the whole order is needed at once, for example to page through it.
+     * @param refrigeratorId the refrigerator to match against
+     * @return all recipe ids, ranked
+     */
+    public List<Long> rankAllRecipeIds(long refrigeratorId) {
+        RecipeScores scores = refrigeratorMatchCache.getScores(refrigeratorId, LocalDate.now());
+        return selectTop(scores, new long[0], scores.getOrdinals().size());
+    }
+
+    /**
+     * Returns the ids of the recipes using at least one grocery in a refrigerator, best first.
+     * The other recipes rank after them in id order, and can be paged with {@link #getRecipeIdsAfter}
+     * instead of being held in memory.
+     * @param refrigeratorId the refrigerator to match against
+     * @return the scored recipe ids, ranked
+     */
+    public List<Long> rankScoredRecipeIds(long refrigeratorId) {
+        RecipeScores scores = refrigeratorMatchCache.getScores(refrigeratorId, LocalDate.now());
+        return selectTopScored(scores, new long[0], scores.matchedCount());
+    }
+
+    /**
+     * Returns the ids of the recipes in the catalog with an id greater than the given id, in id order.
+     * @param afterRecipeId only recipes with a greater id are returned
+     * @param sortedSkippedIds recipe ids to leave out, sorted ascending
+     * @param limit the maximum number of recipe ids to return
+     * @return recipe ids, ascending
+     */
+    public List<Long> getRecipeIdsAfter(long afterRecipeId, long[] sortedSkippedIds, int limit) {
+        RecipeOrdinals ordinals = recipeIdRegistry.getOrdinals();
+        List<Long> recipeIds = new ArrayList<>(Math.min(limit, ordinals.size()));
+        for (int position = ordinals.positionAfter(afterRecipeId);
+             recipeIds.size() < limit && position < ordinals.size(); position++) {
+            long recipeId = ordinals.recipeId(ordinals.ordinalAt(position));
+            if (Arrays.binarySearch(sortedSkippedIds, recipeId) < 0) {
+                recipeIds.add(recipeId);
+            }
+        }
+        return recipeIds;
+    }
+
+    /**
+     * Picks the k best recipes. The scored recipes are picked with a min-heap holding the current top k,
+     * and the remaining places are filled with unscored recipes, lowest id first.
+     * Ties are broken by the lowest recipe id, so the order is stable between requests.
+     * @param scores recipe scores
+     * @param excluded bitset of the recipe ordinals to skip
+     * @param k number of recipes to pick
+     * @return the picked recipe ids, best first
+     */
+    static List<Long> selectTop(RecipeScores scores, long[] excluded, int k) {
+        RecipeOrdinals ordinals = scores.getOrdinals();
+        List<Long> top = selectTopScored(scores, excluded, k);
+        for (int position = 0; top.size() < k && position < ordinals.size(); position++) {
+            int ordinal = ordinals.ordinalAt(position);
+            if (!scores.isMatched(ordinal) && !RecipeOrdinals.isSet(excluded, ordinal)) {
+                top.add(ordinals.recipeId(ordinal));
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Picks the k best scored recipes with a min-heap holding the current top k.
+     */
+    private static List<Long> selectTopScored(RecipeScores scores, long[] excluded, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        RecipeOrdinals ordinals = scores.getOrdinals();
+        Comparator<Integer> ranking = ranking(scores);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(k, scores.matchedCount()) + 1, ranking);
+
+        for (int i = 0; i < scores.matchedCount(); i++) {
+            int ordinal = scores.matchedOrdinal(i);
+            if (RecipeOrdinals.isSet(excluded, ordinal) || !ordinals.isLive(ordinal)) {
+                continue;
+            }
+            if (heap.size() < k) {
+                heap.offer(i);
+            } else if (ranking.compare(i, heap.peek()) > 0) {
+                heap.poll();
+                heap.offer(i);
+            }
+        }
+
+        List<Integer> best = new ArrayList<>(heap);
+        best.sort(ranking.reversed());
+        List<Long> top = new ArrayList<>(best.size());
+        for (Integer i : best) {
+            top.add(ordinals.recipeId(scores.matchedOrdinal(i)));
+        }
+        return top;
+    }
+
+    /**
+     * Orders scored recipes, given by their index in the scores, from worst to best,
+     * with the lowest id counting as best among equal scores.
+     */
+    private static Comparator<Integer> ranking(RecipeScores scores) {
+        RecipeOrdinals ordinals = scores.getOrdinals();
+        return Comparator.comparingDouble((Integer i) -> scores.matchedScore(i))
+                .thenComparing((Integer i) -> ordinals.recipeId(scores.matchedOrdinal(i)), Comparator.reverseOrder());
+    }
+}
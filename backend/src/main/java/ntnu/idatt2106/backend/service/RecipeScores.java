@@ -0,0 +1,118 @@
+package ntnu.idatt2106.backend.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable match scores of the recipes in one refrigerator, indexed by the {@link RecipeOrdinals} they were
+ * computed with. Only recipes using at least one stored grocery have a score. They are marked in a bitset and
+ * listed in ascending ordinal order, so a ranking only visits the scored recipes.
+ */
+public final class RecipeScores {
+
+    private final RecipeOrdinals ordinals;
+    private final long[] matched;
+    private final int[] matchedOrdinals;
+    private final double[] matchedScores;
+
+    /**
+     * Copies the scores of the recipes set in a bitset.
+     * @param ordinals the numbering the scores are indexed by
+     * @param scores score by ordinal
+     * @param matched bitset of the ordinals with a score
+     */
+    RecipeScores(RecipeOrdinals ordinals, double[] scores, long[] matched) {
+        this.ordinals = ordinals;
+        this.matched = matched.clone();
+        int count = 0;
+        for (long word : matched) {
+            count += Long.bitCount(word);
+        }
+        matchedOrdinals = new int[count];
+        matchedScores = new double[count];
+        int i = 0;
+        for (int w = 0; w < matched.length; w++) {
+            long word = matched[w];
+            while (word != 0) {
+                int ordinal = (w << 6) + Long.numberOfTrailingZeros(word);
+                matchedOrdinals[i] = ordinal;
+                matchedScores[i++] = scores[ordinal];
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Creates scores from a map of recipe id to score. Recipes not in the numbering are left out.
+     * @param ordinals the numbering
+     * @param scores score by recipe id
+     * @return the scores
+     */
+    static RecipeScores of(RecipeOrdinals ordinals, Map<Long, Double> scores) {
+        double[] byOrdinal = new double[ordinals.capacity()];
+        long[] matched = new long[RecipeOrdinals.words(ordinals.capacity())];
+        scores.forEach((recipeId, score) -> {
+            int ordinal = ordinals.ordinalOf(recipeId);
+            if (ordinal >= 0) {
+                byOrdinal[ordinal] = score;
+                RecipeOrdinals.set(matched, ordinal);
+            }
+        });
+        return new RecipeScores(ordinals, byOrdinal, matched);
+    }
+
+    /**
+     * Returns the numbering the scores are indexed by.
+     * @return the recipe ordinals
+     */
+    public RecipeOrdinals getOrdinals() {
+        return ordinals;
+    }
+
+    /**
+     * Returns the number of recipes with a score.
+     * @return number of scored recipes
+     */
+    public int matchedCount() {
+        return matchedOrdinals.length;
+    }
+
+    /**
+     * Returns the ordinal of the i-th scored recipe, in ascending ordinal order.
+     * @param i index from 0 to {@link #matchedCount()} - 1
+     * @return the ordinal
+     */
+    public int matchedOrdinal(int i) {
+        return matchedOrdinals[i];
+    }
+
+    /**
+     * Returns the score of the i-th scored recipe.
+     * @param i index from 0 to {@link #matchedCount()} - 1
+     * @return the score
+     */
+    public double matchedScore(int i) {
+        return matchedScores[i];
+    }
+
+    /**
+     * Checks if the recipe of an ordinal has a score.
+     * @param ordinal the ordinal
+     * @return true if the recipe uses a stored grocery
+     */
+    public boolean isMatched(int ordinal) {
+        return RecipeOrdinals.isSet(matched, ordinal);
+    }
+
+    /**
+     * Returns the scores keyed by recipe id.
+     * @return map from recipe id to score
+     */
+    public Map<Long, Double> toMap() {
+        Map<Long, Double> scores = new HashMap<>();
+        for (int i = 0; i < matchedOrdinals.length; i++) {
+            scores.put(ordinals.recipeId(matchedOrdinals[i]), matchedScores[i]);
+        }
+        return scores;
+    }
+}
@@ -2,24 +2,24 @@ package ntnu.idatt2106.backend.service;
 
 
 import lombok.RequiredArgsConstructor;
-import ntnu.idatt2106.backend.model.dto.GroceryInfoDTO;
+import ntnu.idatt2106.backend.event.RecipeCatalogChangedEvent;
 import ntnu.idatt2106.backend.model.dto.recipe.IngredientDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeCatalogDTO;
 import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
 import ntnu.idatt2106.backend.model.dto.recipe.FetchRecipesDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientRowDTO;
 import ntnu.idatt2106.backend.model.dto.recipe.SimpleGrocery;
-import ntnu.idatt2106.backend.model.grocery.Grocery;
-import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.model.recipe.Recipe;
 import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
-import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
 import ntnu.idatt2106.backend.repository.recipe.RecipeCategoryRepository;
 import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
 import ntnu.idatt2106.backend.repository.recipe.RecipeRepository;
 import org.springframework.stereotype.Service;
-import ntnu.idatt2106.backend.exceptions.NoSuchElementRuntimeException;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -27,84 +27,75 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class RecipeService {
 
-    private final RefrigeratorGroceryRepository refrigeratorGroceryRepository;
     private final RecipeGroceryRepository recipeGroceryRepository;
     private final RecipeRepository recipeRepository;
+    private final RecipeRankingService recipeRankingService;
 
     private final Logger logger = Logger.getLogger(RecipeService.class.getName());
 
-    private static int lastDuplicateIndex = 0;
+    private final String catalogBootId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private volatile RecipeCatalogDTO recipeCatalog;
 
 
     /**
-     * Method to fetch recipes based on what the user has stored in their fridge
-     * Also finds the recipes that uses groceries that are about to expire
+     * Fetches the recipes that best match the groceries in a refrigerator, ranked by how many
+     * ingredients are stored, how soon they expire, and how much of the required amount is stored.
+     * Recipes in the list of already fetched recipes are skipped.
+     * @param fetchRecipesDTO the refrigerator, number of recipes and already fetched recipes
+     * @return the best matching recipes, best first
      */
+    public List<RecipeDTO> getRecipesByGroceriesAndExpirationDates(FetchRecipesDTO fetchRecipesDTO) {
+        List<Long> recipeIds = recipeRankingService.getTopRecipeIds(fetchRecipesDTO.getRefrigeratorId(),
+                fetchRecipesDTO.getNumRecipes(), fetchRecipesDTO.getFetchedRecipeIds());
+        return convertToDTOs(findRecipesInOrder(recipeIds));
+    }
 
-    public List<RecipeDTO> getSortedRecipesByMatchingGroceries(long refrigeratorId, int numOfRecipesToFetch) {
-        List<Recipe> recipes = recipeRepository.findAll();
-        Map<Recipe, Integer> recipeMatches = new HashMap<>();
-
-        for (Recipe recipe : recipes) {
-            int matches = 0;
-            List<RefrigeratorGrocery> refrigeratorGroceries = refrigeratorGroceryRepository.findAllByRefrigeratorId(refrigeratorId);
-            Set<Grocery> groceriesInRefrigerator = new HashSet<>();
-
-            for (RefrigeratorGrocery refrigeratorGrocery : refrigeratorGroceries) {
-                groceriesInRefrigerator.add(refrigeratorGrocery.getGrocery());
-            }
-
-            List<RecipeGrocery> recipeGroceries = recipeGroceryRepository.findAllByRecipe(recipe);
-            for (RecipeGrocery recipeGrocery : recipeGroceries) {
-                if (groceriesInRefrigerator.contains(recipeGrocery.getGrocery())) {
-                    matches++;
-                }
-            }
-
-            recipeMatches.put(recipe, matches);
-        }
-
-        // Sort recipes by the number of matching groceries
-        List<Recipe> sortedRecipes = new ArrayList<>(recipes);
-        sortedRecipes.sort((recipe1, recipe2) -> recipeMatches.get(recipe2).compareTo(recipeMatches.get(recipe1)));
-
-        List<Recipe> sortedRecipeDTOs = new ArrayList<>();
-        int recipesAdded = 0;
-        while (recipesAdded < numOfRecipesToFetch) {
-            for (Recipe recipe : sortedRecipes) {
-                sortedRecipeDTOs.add(recipe);
-                recipesAdded++;
-                if (recipesAdded >= numOfRecipesToFetch) {
-                    break;
-                }
-            }
-        }
+    /**
+     * Returns the recipes with the given ids as DTOs, in the order of the ids.
+     * @param recipeIds the recipe ids
+     * @return the recipe DTOs, recipes that no longer exist are left out
+     */
+    public List<RecipeDTO> getRecipesInOrder(List<Long> recipeIds) {
+        return convertToDTOs(findRecipesInOrder(recipeIds));
+    }
 
-        return convertToDTOs(sortedRecipeDTOs);
+    /**
+     * Loads recipes with a single query and returns them in the order of the given ids.
+     * @param recipeIds the recipe ids, may contain duplicates
+     * @return the recipes in the same order
+     */
+    private List<Recipe> findRecipesInOrder(List<Long> recipeIds) {
+        Map<Long, Recipe> recipesById = recipeRepository.findAllById(new HashSet<>(recipeIds)).stream()
+                .collect(Collectors.toMap(Recipe::getId, recipe -> recipe));
+        return recipeIds.stream()
+                .map(recipesById::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
+    /**
+     * Converts recipes to DTOs with their ingredients.
+     * The ingredients of all the recipes are loaded with a single query and grouped in memory.
+     * @param recipes the recipes to convert
+     * @return the recipe DTOs, in the same order as the recipes
+     */
     public List<RecipeDTO> convertToDTOs(List<Recipe> recipes) {
+        if (recipes.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> recipeIds = recipes.stream().map(Recipe::getId).collect(Collectors.toSet());
+        Map<Long, List<IngredientDTO>> ingredientsByRecipe = recipeGroceryRepository.findIngredientRowsByRecipeIds(recipeIds)
+                .stream()
+                .collect(Collectors.groupingBy(RecipeIngredientRowDTO::getRecipeId,
+                        Collectors.mapping(row -> new IngredientDTO(
+                                new SimpleGrocery(row.getGroceryId(), row.getGroceryName()),
+                                row.getQuantity(),
+                                row.getUnit()), Collectors.toList())));
+
         return recipes.stream().map(recipe -> {
             RecipeDTO recipeDTO = new RecipeDTO(recipe);
-            List<GroceryInfoDTO> groceryInfoList = recipeGroceryRepository.findGroceryInfoByRecipe(recipe);
-
-            // Convert the GroceryInfoDTO list to a list of IngredientDTOs
-            List<IngredientDTO> ingredients = groceryInfoList.stream()
-                    .map(gi -> {
-                        SimpleGrocery grocery = new SimpleGrocery(gi.getId(), gi.getName());
-                        Grocery groceryForSearch = new Grocery();
-                        groceryForSearch.setId(gi.getId());
-                        groceryForSearch.setName(gi.getName());
-
-                        RecipeGrocery recipeGrocery = recipeGroceryRepository
-                                .findFirstByRecipeAndGrocery(recipe, groceryForSearch)
-                                .orElseThrow(() -> new NoSuchElementRuntimeException("No matching RecipeGrocery found."));
-
-                        return new IngredientDTO(grocery, recipeGrocery.getQuantity(), recipeGrocery.getUnit());
-                    })
-                    .collect(Collectors.toList());
-
-            recipeDTO.setIngredients(ingredients);
+            recipeDTO.setIngredients(new ArrayList<>(ingredientsByRecipe.getOrDefault(recipe.getId(), List.of())));
             return recipeDTO;
         }).toList();
     }
@@ -129,9 +120,44 @@ public class RecipeService {
         return recipeGroceryRepository.findAllByRecipe(recipe);
     }
 
+    /**
+     * Returns all recipes from the cached recipe catalog.
+     * @return all recipes
+     */
     public List<RecipeDTO> getAllRecipes() {
-        List<Recipe> recipes = recipeRepository.findAll();
-        return convertToDTOs(recipes);
+        return getRecipeCatalog().getRecipes();
+    }
+
+    /**
+     * Returns the current snapshot of the recipe catalog.
+     * The snapshot is only rebuilt from the database after the catalog has changed.
+     * @return the recipe catalog
+     */
+    public RecipeCatalogDTO getRecipeCatalog() {
+        RecipeCatalogDTO catalog = recipeCatalog;
+        if (catalog != null && catalog.getVersion() == catalogVersion.get()) {
+            return catalog;
+        }
+        synchronized (this) {
+            catalog = recipeCatalog;
+            long version = catalogVersion.get();
+            if (catalog == null || catalog.getVersion() != version) {
+                List<RecipeDTO> recipes = convertToDTOs(recipeRepository.findAll());
+                catalog = new RecipeCatalogDTO(version, "\"" + catalogBootId + "-" + version + "\"", recipes);
+                recipeCatalog = catalog;
+                logger.info("Rebuilt recipe catalog version " + version + " with " + recipes.size() + " recipes");
+            }
+            return catalog;
+        }
+    }
+
+    /**
+     * Invalidates the cached recipe catalog when a recipe, recipe grocery or recipe category has been written.
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeCatalogChanged(RecipeCatalogChangedEvent event) {
+        catalogVersion.incrementAndGet();
     }
 
     public void setRecipeCategoryRepository(RecipeCategoryRepository recipeCategoryRepository) {
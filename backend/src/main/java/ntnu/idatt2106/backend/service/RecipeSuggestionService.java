@@ -0,0 +1,189 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.exceptions.ExpiredCursorException;
+import ntnu.idatt2106.backend.exceptions.InvalidCursorException;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipePageDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Service for paging through the recipe suggestions of a refrigerator.
+ * The recipes using a stored grocery are ranked once, when the first page is requested, and kept in a
+ * session identified by an opaque cursor. All other recipes follow in id order. They are not kept, the cursor
+ * holds the last id returned instead, so a session only grows with the number of scored recipes.
+ * Pages never repeat a recipe and the ranking is not computed again.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipeSuggestionService {
+
+    /**
+     * Maximum number of suggestion sessions kept, least recently used are evicted first.
+     */
+    static final int MAX_SESSIONS = 1000;
+
+    /**
+     * Time a suggestion session is kept after it was created.
+     */
+    static final Duration TIME_TO_LIVE = Duration.ofMinutes(30);
+
+    /**
+     * Largest number of recipes returned in one page.
+     */
+    static final int MAX_PAGE_SIZE = 100;
+
+    private final RecipeRankingService recipeRankingService;
+    private final RecipeService recipeService;
+
+    private final Logger logger = LoggerFactory.getLogger(RecipeSuggestionService.class);
+
+    private final BoundedCache<String, SuggestionSession> sessions = new BoundedCache<>(MAX_SESSIONS, TIME_TO_LIVE);
+
+    /**
+     * Returns a page of recipe suggestions for a refrigerator.
+     * Without a cursor the recipes are ranked and the first page is returned.
+     * With a cursor the page following the one that returned the cursor is returned.
+     * @param refrigeratorId the refrigerator to suggest recipes for
+     * @param pageSize the number of recipes in the page, capped at {@value #MAX_PAGE_SIZE}
+     * @param cursor the cursor from the previous page, or null for the first page
+     * @return the page, with a cursor to the next page or null if this is the last page
+     * @throws ExpiredCursorException if the session of the cursor has expired or been evicted
+     * @throws InvalidCursorException if the cursor is malformed, belongs to another refrigerator
+     * or points past the end of the suggestions
+     */
+    public RecipePageDTO getSuggestions(long refrigeratorId, int pageSize, String cursor) throws InvalidCursorException {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        String sessionId;
+        SuggestionSession session;
+        int offset;
+        long afterRecipeId;
+
+        if (cursor == null || cursor.isBlank()) {
+            sessionId = UUID.randomUUID().toString();
+            session = new SuggestionSession(refrigeratorId,
+                    recipeRankingService.rankScoredRecipeIds(refrigeratorId).stream().mapToLong(Long::longValue).toArray());
+            sessions.put(sessionId, session);
+            offset = 0;
+            afterRecipeId = Long.MIN_VALUE;
+        } else {
+            String[] parts = decodeCursor(cursor);
+            sessionId = parts[0];
+            offset = parseOffset(parts[1]);
+            afterRecipeId = parts.length == 3 ? parseRecipeId(parts[2]) : Long.MIN_VALUE;
+            session = sessions.get(sessionId);
+            if (session == null) {
+                throw new ExpiredCursorException("Cursor has expired, fetch the first page again");
+            }
+            if (session.refrigeratorId != refrigeratorId) {
+                throw new InvalidCursorException("Cursor does not belong to this refrigerator");
+            }
+            if (offset > session.rankedIds.length) {
+                throw new InvalidCursorException("Cursor points past the end of the suggestions");
+            }
+        }
+
+        int end = Math.min(offset + size, session.rankedIds.length);
+        List<Long> pageIds = new ArrayList<>(size);
+        for (int i = offset; i < end; i++) {
+            pageIds.add(session.rankedIds[i]);
+        }
+        int remaining = size - pageIds.size();
+        List<Long> unranked = List.of();
+        if (end == session.rankedIds.length) {
+            // The ranked recipes are used up, continue with the other recipes in id order.
+            // One recipe more than needed is read to tell if there is a next page.
+            unranked = recipeRankingService.getRecipeIdsAfter(afterRecipeId, session.sortedRankedIds, remaining + 1);
+            pageIds.addAll(unranked.subList(0, Math.min(remaining, unranked.size())));
+        }
+        List<RecipeDTO> recipes = recipeService.getRecipesInOrder(pageIds);
+
+        String nextCursor = null;
+        if (end < session.rankedIds.length) {
+            nextCursor = encodeCursor(sessionId, end);
+        } else if (unranked.size() > remaining) {
+            nextCursor = remaining == 0 ? encodeCursor(sessionId, end)
+                    : encodeCursor(sessionId, end, pageIds.get(pageIds.size() - 1));
+        }
+        return new RecipePageDTO(recipes, nextCursor);
+    }
+
+    /**
+     * Removes expired sessions, so sessions whose cursor is never used again do not wait for eviction.
+     */
+    @Scheduled(fixedDelayString = "${smartmat.suggestions.sweep-delay:PT5M}")
+    public void removeExpiredSessions() {
+        int removed = sessions.removeExpired();
+        if (removed > 0) {
+            logger.debug("Removed {} expired suggestion sessions", removed);
+        }
+    }
+
+    static String encodeCursor(String sessionId, int offset) {
+        return encode(sessionId + ":" + offset);
+    }
+
+    static String encodeCursor(String sessionId, int offset, long afterRecipeId) {
+        return encode(sessionId + ":" + offset + ":" + afterRecipeId);
+    }
+
+    private static String encode(String cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) throws InvalidCursorException {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 2 && parts.length != 3) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    private static int parseOffset(String offset) throws InvalidCursorException {
+        try {
+            int value = Integer.parseInt(offset);
+            if (value < 0) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    private static long parseRecipeId(String recipeId) throws InvalidCursorException {
+        try {
+            return Long.parseLong(recipeId);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    /**
+     * The ranked ids of the scored recipes of one suggestion session, and the same ids sorted,
+     * to leave them out when paging through the other recipes.
+     */
+    private static class SuggestionSession {
+        private final long refrigeratorId;
+        private final long[] rankedIds;
+        private final long[] sortedRankedIds;
+
+        private SuggestionSession(long refrigeratorId, long[] rankedIds) {
+            this.refrigeratorId = refrigeratorId;
+            this.rankedIds = rankedIds;
+            this.sortedRankedIds = rankedIds.clone();
+            Arrays.sort(sortedRankedIds);
+        }
+    }
+}
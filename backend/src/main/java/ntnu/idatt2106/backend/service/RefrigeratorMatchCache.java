@@ -0,0 +1,348 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.event.RecipeCatalogChangedEvent;
+import ntnu.idatt2106.backend.event.RefrigeratorGroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryAmountDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientAmountDTO;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of the recipe match scores of each refrigerator.
+ * The groceries of a refrigerator are read once, and the recipe scores are kept up to date by applying
+ * only the groceries named in {@link RefrigeratorGroceriesChangedEvent}s. Scores are recomputed from the
+ * cached groceries when the day changes or the recipe catalog changes, without reading the refrigerator again.
+ * <p>
+ * Every ingredient found in the refrigerator adds to the score of its recipe. The contribution is
+ * weighted by how soon the stored grocery expires, and by how much of the required amount is stored.
+ * Both amounts are normalized to grams with the {@link UnitWeightTable}, once when they are loaded,
+ * so scoring is a pass over primitive arrays without any unit lookups.
+ * <p>
+ * Recipes are identified by their dense ordinal from the {@link RecipeIdRegistry}. The scores are kept in an
+ * array indexed by ordinal, with a bitset marking the recipes that have a score, and are computed again
+ * whenever the registry publishes a new numbering.
+ */
+@Service
+@RequiredArgsConstructor
+public class RefrigeratorMatchCache {
+
+    /**
+     * Maximum number of refrigerators kept in the cache, least recently used are evicted first.
+     */
+    static final int MAX_REFRIGERATORS = 1024;
+
+    /**
+     * Time before a cached refrigerator is read again, in case it was changed outside of GroceryService.
+     */
+    static final Duration TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    /**
+     * Extra weight given to a grocery that expires today. Decreases with the number of days left.
+     */
+    static final double URGENCY_WEIGHT = 2.0;
+
+    private final RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+    private final RecipeGroceryRepository recipeGroceryRepository;
+    private final UnitService unitService;
+    private final RecipeIdRegistry recipeIdRegistry;
+
+    private final BoundedCache<Long, RefrigeratorMatches> refrigerators =
+            new BoundedCache<>(MAX_REFRIGERATORS, TIME_TO_LIVE);
+    private final Map<Long, GroceryIngredients> ingredientsByGrocery = new ConcurrentHashMap<>();
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    /**
+     * Returns the ids of the groceries stored in a refrigerator.
+     * @param refrigeratorId the refrigerator
+     * @return grocery ids
+     */
+    public Set<Long> getGroceryIds(long refrigeratorId) {
+        RefrigeratorMatches matches = getRefrigerator(refrigeratorId);
+        synchronized (matches) {
+            load(refrigeratorId, matches);
+            return new HashSet<>(matches.storedGroceries.keySet());
+        }
+    }
+
+    /**
+     * Returns the match score of every recipe using at least one grocery in the refrigerator.
+     * @param refrigeratorId the refrigerator
+     * @param today the date used to compute days until expiry
+     * @return the scores, indexed by the current recipe ordinals
+     */
+    public RecipeScores getScores(long refrigeratorId, LocalDate today) {
+        RefrigeratorMatches matches = getRefrigerator(refrigeratorId);
+        synchronized (matches) {
+            load(refrigeratorId, matches);
+            long version = catalogVersion.get();
+            RecipeOrdinals ordinals = recipeIdRegistry.getOrdinals();
+            if (matches.scores == null || !today.equals(matches.scoredOn) || matches.catalogVersion != version
+                    || matches.ordinals != ordinals) {
+                matches.ordinals = ordinals;
+                matches.scores = new double[ordinals.capacity()];
+                matches.matched = new long[RecipeOrdinals.words(ordinals.capacity())];
+                matches.scoredOn = today;
+                matches.catalogVersion = version;
+                Map<Long, GroceryIngredients> ingredients = getIngredients(matches.storedGroceries.keySet(), ordinals);
+                matches.storedGroceries.forEach((groceryId, stored) ->
+                        addContribution(matches, ingredients.get(groceryId), stored, 1));
+            }
+            return new RecipeScores(matches.ordinals, matches.scores, matches.matched);
+        }
+    }
+
+    /**
+     * Removes a refrigerator from the cache.
+     * @param refrigeratorId the refrigerator
+     */
+    public void evict(long refrigeratorId) {
+        refrigerators.remove(refrigeratorId);
+    }
+
+    /**
+     * Applies the changed groceries of a refrigerator to its cached scores, once the change has committed.
+     * Only the rows of the changed groceries are read again. They are read while the refrigerator is locked,
+     * so concurrent changes are applied in the order they are read, and always leave the latest rows.
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRefrigeratorGroceriesChanged(RefrigeratorGroceriesChangedEvent event) {
+        RefrigeratorMatches matches = refrigerators.get(event.getRefrigeratorId());
+        if (matches == null || event.getGroceryIds().isEmpty()) {
+            return;
+        }
+        synchronized (matches) {
+            if (matches.storedGroceries == null) {
+                // Not loaded yet, the load reads the committed change
+                return;
+            }
+            Map<Long, StoredGrocery> changed = toStoredGroceries(refrigeratorGroceryRepository
+                    .findGroceryAmountsByRefrigeratorIdAndGroceryIds(event.getRefrigeratorId(), event.getGroceryIds()));
+            if (matches.scores != null && (matches.ordinals != recipeIdRegistry.getOrdinals()
+                    || matches.catalogVersion != catalogVersion.get())) {
+                // Scores of an older catalog are computed again on the next read
+                matches.scores = null;
+            }
+            Map<Long, GroceryIngredients> ingredients =
+                    matches.scores == null ? Map.of() : getIngredients(event.getGroceryIds(), matches.ordinals);
+            for (Long groceryId : event.getGroceryIds()) {
+                StoredGrocery removed = matches.storedGroceries.remove(groceryId);
+                StoredGrocery added = changed.get(groceryId);
+                if (added != null) {
+                    matches.storedGroceries.put(groceryId, added);
+                }
+                if (matches.scores != null) {
+                    addContribution(matches, ingredients.get(groceryId), removed, -1);
+                    addContribution(matches, ingredients.get(groceryId), added, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops cached recipe ingredients and scores when the recipe catalog changes.
+     * The cached refrigerator contents are kept.
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeCatalogChanged(RecipeCatalogChangedEvent event) {
+        if (event.getEntityType() == RecipeCatalogChangedEvent.EntityType.RECIPE_CATEGORY) {
+            return;
+        }
+        catalogVersion.incrementAndGet();
+        ingredientsByGrocery.clear();
+    }
+
+    /**
+     * Returns the cache entry of a refrigerator, creating an empty one if it is missing or has expired.
+     * The entry is loaded by {@link #load} while its monitor is held.
+     */
+    private RefrigeratorMatches getRefrigerator(long refrigeratorId) {
+        return refrigerators.computeIfAbsent(refrigeratorId, id -> new RefrigeratorMatches());
+    }
+
+    /**
+     * Reads the groceries of a refrigerator into its cache entry, unless they have been read already.
+     * Must be called while holding the monitor of the entry, so a change applied to the entry can not
+     * be overwritten by a read that started before it.
+     */
+    private void load(long refrigeratorId, RefrigeratorMatches matches) {
+        if (matches.storedGroceries == null) {
+            matches.storedGroceries = toStoredGroceries(
+                    refrigeratorGroceryRepository.findGroceryAmountsByRefrigeratorId(refrigeratorId));
+        }
+    }
+
+    /**
+     * Returns the recipe ingredients using each of the given groceries, loading the missing ones in one query.
+     * Ingredients numbered with other recipe ordinals count as missing.
+     */
+    private Map<Long, GroceryIngredients> getIngredients(Set<Long> groceryIds, RecipeOrdinals ordinals) {
+        Map<Long, GroceryIngredients> result = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long groceryId : groceryIds) {
+            GroceryIngredients cached = ingredientsByGrocery.get(groceryId);
+            if (cached != null && cached.ordinals == ordinals) {
+                result.put(groceryId, cached);
+            } else {
+                missing.add(groceryId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long version = catalogVersion.get();
+            List<RecipeIngredientAmountDTO> amounts = recipeGroceryRepository.findIngredientAmountsByGroceryIds(missing);
+            UnitWeightTable unitWeights = unitService.getUnitWeightTable(
+                    amounts.stream().map(RecipeIngredientAmountDTO::getUnitId).collect(Collectors.toSet()));
+            Map<Long, List<RecipeIngredientAmountDTO>> loaded = amounts.stream()
+                    .collect(Collectors.groupingBy(RecipeIngredientAmountDTO::getGroceryId));
+            Map<Long, GroceryIngredients> loadedIngredients = new HashMap<>();
+            for (Long groceryId : missing) {
+                loadedIngredients.put(groceryId,
+                        new GroceryIngredients(loaded.getOrDefault(groceryId, List.of()), unitWeights, ordinals));
+            }
+            result.putAll(loadedIngredients);
+            if (version == catalogVersion.get()) {
+                ingredientsByGrocery.putAll(loadedIngredients);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the contribution of a stored grocery to the scores of the recipes using it, or subtracts it
+     * when the sign is negative. A recipe is marked as scored while its score is not zero.
+     */
+    private static void addContribution(RefrigeratorMatches matches, GroceryIngredients ingredients,
+                                        StoredGrocery stored, int sign) {
+        if (stored == null || ingredients == null) {
+            return;
+        }
+        double weight = sign * urgency(stored.earliestExpireDate, matches.scoredOn);
+        double[] scores = matches.scores;
+        long[] matched = matches.matched;
+        for (int i = 0; i < ingredients.recipeOrdinals.length; i++) {
+            int ordinal = ingredients.recipeOrdinals[i];
+            double score = scores[ordinal] + weight * stored.coverage(ingredients.requiredGrams[i]);
+            if (Math.abs(score) < 1e-9) {
+                scores[ordinal] = 0;
+                RecipeOrdinals.clear(matched, ordinal);
+            } else {
+                scores[ordinal] = score;
+                RecipeOrdinals.set(matched, ordinal);
+            }
+        }
+    }
+
+    private Map<Long, StoredGrocery> toStoredGroceries(List<RefrigeratorGroceryAmountDTO> amounts) {
+        if (amounts.isEmpty()) {
+            return new HashMap<>();
+        }
+        UnitWeightTable unitWeights = unitService.getUnitWeightTable(
+                amounts.stream().map(RefrigeratorGroceryAmountDTO::getUnitId).collect(Collectors.toSet()));
+        Map<Long, StoredGrocery> storedGroceries = new HashMap<>();
+        for (RefrigeratorGroceryAmountDTO amount : amounts) {
+            storedGroceries.computeIfAbsent(amount.getGroceryId(), id -> new StoredGrocery()).add(amount, unitWeights);
+        }
+        return storedGroceries;
+    }
+
+    /**
+     * Returns the urgency weight of a grocery, 1 + URGENCY_WEIGHT when it expires today or has expired,
+     * approaching 1 the further away the expiry date is.
+     * @param expireDate the expiry date, null if unknown
+     * @param today today's date
+     * @return urgency weight
+     */
+    static double urgency(LocalDate expireDate, LocalDate today) {
+        if (expireDate == null) {
+            return 1.0;
+        }
+        long daysLeft = Math.max(0, ChronoUnit.DAYS.between(today, expireDate));
+        return 1.0 + URGENCY_WEIGHT / (1 + daysLeft);
+    }
+
+    /**
+     * The cached groceries and scores of one refrigerator. Guarded by its own monitor.
+     * The groceries are null until they have been read, and the scores until they have been computed.
+     */
+    private static class RefrigeratorMatches {
+        private Map<Long, StoredGrocery> storedGroceries;
+        private RecipeOrdinals ordinals;
+        private double[] scores;
+        private long[] matched;
+        private LocalDate scoredOn;
+        private long catalogVersion;
+    }
+
+    /**
+     * The total amount of a grocery in a refrigerator, and its earliest expiry date.
+     */
+    private static class StoredGrocery {
+        private long grams;
+        private boolean unknownWeight;
+        private LocalDate earliestExpireDate;
+
+        private void add(RefrigeratorGroceryAmountDTO amount, UnitWeightTable unitWeights) {
+            long amountGrams = unitWeights.toGrams(amount.getQuantity(), amount.getUnitId());
+            if (amountGrams > 0) {
+                grams += amountGrams;
+            } else {
+                unknownWeight = true;
+            }
+            LocalDate expireDate = amount.getPhysicalExpireDate();
+            if (expireDate != null && (earliestExpireDate == null || expireDate.isBefore(earliestExpireDate))) {
+                earliestExpireDate = expireDate;
+            }
+        }
+
+        /**
+         * Returns the share of the required amount that is stored, between 0 and 1.
+         * Amounts that can not be compared in grams count as fully covered.
+         */
+        private double coverage(long requiredGrams) {
+            if (unknownWeight || requiredGrams <= 0) {
+                return 1.0;
+            }
+            return Math.min(1.0, (double) grams / requiredGrams);
+        }
+    }
+
+    /**
+     * The ordinals of the recipes using one grocery and the amount in grams each of them requires,
+     * as parallel arrays. An amount of 0 means the required weight is not known.
+     * Recipes missing from the numbering are left out.
+     */
+    private static class GroceryIngredients {
+        private final RecipeOrdinals ordinals;
+        private final int[] recipeOrdinals;
+        private final long[] requiredGrams;
+
+        private GroceryIngredients(List<RecipeIngredientAmountDTO> ingredients, UnitWeightTable unitWeights,
+                                   RecipeOrdinals ordinals) {
+            this.ordinals = ordinals;
+            int[] recipeOrdinals = new int[ingredients.size()];
+            long[] requiredGrams = new long[ingredients.size()];
+            int count = 0;
+            for (RecipeIngredientAmountDTO ingredient : ingredients) {
+                int ordinal = ordinals.ordinalOf(ingredient.getRecipeId());
+                if (ordinal >= 0) {
+                    recipeOrdinals[count] = ordinal;
+                    requiredGrams[count++] = unitWeights.toGrams(ingredient.getQuantity(), ingredient.getUnitId());
+                }
+            }
+            this.recipeOrdinals = Arrays.copyOf(recipeOrdinals, count);
+            this.requiredGrams = Arrays.copyOf(requiredGrams, count);
+        }
+    }
+}
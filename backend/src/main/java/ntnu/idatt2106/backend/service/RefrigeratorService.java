@@ -23,14 +23,17 @@ import ntnu.idatt2106.backend.model.requests.RemoveMemberRequest;
 import ntnu.idatt2106.backend.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.nio.file.AccessDeniedException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.time.Duration;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -44,6 +47,17 @@ public class RefrigeratorService {
     private final FridgeRole DEFAULT_USER_Fridge_ROLE = FridgeRole.USER;
     private final FridgeRole EDIT_PRIVILEGE = FridgeRole.SUPERUSER;
 
+    /**
+     * Maximum number of cached fridge roles, least recently used are evicted first.
+     */
+    static final int MAX_CACHED_FRIDGE_ROLES = 10_000;
+
+    /**
+     * Time a fridge role is cached. Changes made through this service evict the role at once,
+     * this only bounds how long a change made elsewhere goes unnoticed.
+     */
+    static final Duration FRIDGE_ROLE_TIME_TO_LIVE = Duration.ofSeconds(60);
+
     private final CookieService cookieService;
     private final JwtService jwtService;
     private final RefrigeratorRepository refrigeratorRepository;
@@ -53,9 +67,13 @@ public class RefrigeratorService {
     private final ShoppingCartRepository shoppingCartRepository;
     private final UserRepository userRepository;
     private final UnitRepository unitRepository;
+    private final MembershipTokenService membershipTokenService;
 
     private final Logger logger = LoggerFactory.getLogger(RefrigeratorService.class);
 
+    private final BoundedCache<String, FridgeRole> fridgeRoles =
+            new BoundedCache<>(MAX_CACHED_FRIDGE_ROLES, FRIDGE_ROLE_TIME_TO_LIVE);
+
     /**
      * Adds a member to a refrigerator. Takes a member request and performs
      * necessary checks to validate that user exists, super has privileges in
@@ -93,6 +111,7 @@ public class RefrigeratorService {
         try {
             logger.info("Checks validated, saving refrigeratorUser");
             RefrigeratorUser result = refrigeratorUserRepository.save(ru);
+            evictFridgeRole(user.getId(), refrigerator.getId());
             return new MemberDTO(result);
         } catch (Exception e) {
             logger.warn("Member could not be added: Failed to save refrigeratoruser");
@@ -221,6 +240,7 @@ public class RefrigeratorService {
             }
             refrigeratorUserRepository.delete(userRole);
         }
+        evictFridgeRole(user.getId(), refrigerator.getId());
         refrigeratorRepository.save(refrigerator);
     }
 
@@ -265,6 +285,7 @@ public class RefrigeratorService {
         try {
             logger.info("Saving member");
             RefrigeratorUser refrigeratorUser1 = refrigeratorUserRepository.save(refrigeratorUser);
+            evictFridgeRole(user.getId(), refrigeratorResult.getId());
         } catch (Exception e) {
             logger.warn("Refrigerator could not be added: User could not be connected to refrigerator");
             throw new Exception("User could not be connected to refrigerator");
@@ -308,6 +329,7 @@ public class RefrigeratorService {
             try {
                 logger.info("Checks validated, updating refrigeratorUser");
                 RefrigeratorUser result = refrigeratorUserRepository.save(existingRu.get());
+                evictFridgeRole(user.getId(), refrigerator.getId());
                 return new MemberDTO(result);
             } catch (Exception e) {
                 logger.warn("Member could not be updated: Failed to update refrigeratoruser");
@@ -374,6 +396,7 @@ public class RefrigeratorService {
 
                 // Remove Refrigerator entity
                 refrigeratorRepository.deleteById(refrigeratorId);
+                evictFridgeRoles(refrigeratorId);
             } catch (Exception e) {
                 logger.error("Failed to delete refrigerator: " + e.getMessage());
                 throw e;
@@ -386,7 +409,10 @@ public class RefrigeratorService {
     }
 
     /**
-     * Gets a users role in the refrigerator
+     * Gets a users role in the refrigerator.
+     * The user of the current request is taken from the authenticated principal. When the token of the
+     * request carries current memberships the role is read from the token, otherwise roles are
+     * cached by user and refrigerator, so repeated checks do not query the database.
      *
      * @param refrigerator refrigerator
      * @param email username
@@ -395,13 +421,87 @@ public class RefrigeratorService {
      * @throws UnauthorizedException if user not member of refrigerator
      */
     public FridgeRole getFridgeRole(Refrigerator refrigerator, String email) throws UserNotFoundException, UnauthorizedException {
-        User user = getUser(email);
+        User user = getAuthenticatedUser(email);
+        Optional<Map<Long, FridgeRole>> tokenRoles = membershipTokenService.getCurrentFridgeRoles(user);
+        if (tokenRoles.isPresent()) {
+            FridgeRole role = tokenRoles.get().get(refrigerator.getId());
+            if (role == null) {
+                throw new UnauthorizedException("User not member of refrigerator");
+            }
+            return role;
+        }
+
+        String key = fridgeRoleKey(user.getId(), refrigerator.getId());
+        FridgeRole cached = key == null ? null : fridgeRoles.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
         RefrigeratorUser ru = refrigeratorUserRepository.findByUserAndRefrigerator(user, refrigerator)
                 .orElseThrow(() -> new UnauthorizedException("User not member of refrigerator"));
-        System.out.println(ru);
+        if (key != null) {
+            fridgeRoles.put(key, ru.getFridgeRole());
+        }
         return ru.getFridgeRole();
     }
 
+    /**
+     * Returns the user with the given email, using the principal set by the authentication filter
+     * when it is the same user, so the user is not read from the database again.
+     *
+     * @param email email of the user
+     * @return the user
+     * @throws UserNotFoundException if not found
+     */
+    private User getAuthenticatedUser(String email) throws UserNotFoundException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User principal
+                && principal.getEmail() != null && principal.getEmail().equals(email)) {
+            return principal;
+        }
+        return getUser(email);
+    }
+
+    /**
+     * Removes the cached role of a user in a refrigerator and marks the memberships in the tokens of
+     * the user as stale. Both are done again when the surrounding transaction completes, so a role
+     * read or a token issued before the commit is not trusted.
+     *
+     * @param userId id of the user
+     * @param refrigeratorId id of the refrigerator
+     */
+    private void evictFridgeRole(String userId, long refrigeratorId) {
+        String key = fridgeRoleKey(userId, refrigeratorId);
+        if (key == null) {
+            return;
+        }
+        fridgeRoles.remove(key);
+        membershipTokenService.bumpEpoch(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    fridgeRoles.remove(key);
+                    membershipTokenService.bumpEpoch(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes the cached roles of all members of a refrigerator.
+     *
+     * @param refrigeratorId id of the refrigerator
+     */
+    private void evictFridgeRoles(long refrigeratorId) {
+        String suffix = ":" + refrigeratorId;
+        fridgeRoles.removeIf((key, fridgeRole) -> key.endsWith(suffix));
+    }
+
+    private static String fridgeRoleKey(String userId, long refrigeratorId) {
+        return userId == null ? null : userId + ":" + refrigeratorId;
+    }
+
     /**
      * Gets refrigerator
      *
@@ -1,5 +1,6 @@
 package ntnu.idatt2106.backend.service;
 
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import ntnu.idatt2106.backend.exceptions.*;
@@ -11,6 +12,7 @@ import ntnu.idatt2106.backend.model.dto.shoppingCartElement.ShoppingCartElementD
 import ntnu.idatt2106.backend.model.enums.FridgeRole;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.GroceryShoppingCart;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryListRequest;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryRequest;
 import ntnu.idatt2106.backend.repository.*;
@@ -21,8 +23,12 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * The ShoppingCartService class provides methods to create a new shopping cart, or get an existing one,
@@ -199,7 +205,10 @@ public class ShoppingCartService {
     }
 
     /**
-     * Transfers all groceries from the shopping cart to the refrigerator
+     * Transfers all groceries from the shopping cart to the refrigerator in one transaction.
+     * The cart items and their groceries are read with one query, the user is authorized once per refrigerator,
+     * the refrigerator groceries are inserted in one batch and the cart items are deleted with one statement.
+     * @param request the cart items to transfer, identified by their id in {@code groceryId}, with the quantity and unit to add
      * @param httpRequest http request
      * @throws UserNotFoundException If the user is not found
      * @throws SaveException If there occurred an error while saving
@@ -209,15 +218,65 @@ public class ShoppingCartService {
      */
     @Transactional(propagation =  Propagation.REQUIRED, rollbackFor = Exception.class)
     public void transferAllGroceriesToRefrigerator(SaveGroceryRequest[] request, HttpServletRequest httpRequest) throws UserNotFoundException, SaveException, UnauthorizedException, RefrigeratorNotFoundException, NoGroceriesFound {
+        Set<Long> shoppingCartItemIds = new HashSet<>();
+        Set<Long> unitIds = new HashSet<>();
         for (SaveGroceryRequest grocery : request) {
-            CreateRefrigeratorGroceryDTO dto = CreateRefrigeratorGroceryDTO.builder()
-                    .groceryDTO(GroceryDTO.builder()
-                            .id(grocery.getGroceryId())
-                            .build())
+            shoppingCartItemIds.add(grocery.getGroceryId());
+            if (grocery.getUnitDTO() != null) {
+                unitIds.add(grocery.getUnitDTO().getId());
+            }
+        }
+        if (shoppingCartItemIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, GroceryShoppingCart> shoppingCartItems = new HashMap<>();
+        for (GroceryShoppingCart shoppingCartItem : groceryShoppingCartRepository.findAllFetchedByIds(shoppingCartItemIds)) {
+            shoppingCartItems.put(shoppingCartItem.getId(), shoppingCartItem);
+        }
+        if (shoppingCartItems.size() != shoppingCartItemIds.size()) {
+            throw new NoGroceriesFound("Could not find shopping cart item");
+        }
+
+        Map<Long, Refrigerator> refrigerators = new HashMap<>();
+        for (GroceryShoppingCart shoppingCartItem : shoppingCartItems.values()) {
+            Refrigerator refrigerator = shoppingCartItem.getShoppingCart().getShoppingList().getRefrigerator();
+            refrigerators.putIfAbsent(refrigerator.getId(), refrigerator);
+        }
+        for (Refrigerator refrigerator : refrigerators.values()) {
+            if (groceryService.getFridgeRole(refrigerator, httpRequest) != FridgeRole.SUPERUSER) {
+                throw new UnauthorizedException("User not authorized to add groceries");
+            }
+        }
+
+        Map<Long, Unit> units = new HashMap<>();
+        for (Unit unit : unitRepository.findAllById(unitIds)) {
+            units.put(unit.getId(), unit);
+        }
+        for (Long unitId : unitIds) {
+            if (!units.containsKey(unitId)) {
+                throw new EntityNotFoundException("Could not find unit with unitId" + unitId);
+            }
+        }
+
+        Map<Long, List<RefrigeratorGrocery>> refrigeratorGroceries = new HashMap<>();
+        for (SaveGroceryRequest grocery : request) {
+            GroceryShoppingCart shoppingCartItem = shoppingCartItems.get(grocery.getGroceryId());
+            Refrigerator refrigerator = shoppingCartItem.getShoppingCart().getShoppingList().getRefrigerator();
+            Unit unit = grocery.getUnitDTO() == null ? shoppingCartItem.getUnit()
+                    : units.get(grocery.getUnitDTO().getId());
+            refrigeratorGroceries.computeIfAbsent(refrigerator.getId(), id -> new ArrayList<>()).add(RefrigeratorGrocery.builder()
+                    .grocery(shoppingCartItem.getGrocery())
+                    .refrigerator(refrigerator)
+                    .physicalExpireDate(groceryService.getPhysicalExpireDate(shoppingCartItem.getGrocery().getGroceryExpiryDays()))
+                    .unit(unit)
                     .quantity(grocery.getQuantity())
-                    .unitDTO(grocery.getUnitDTO())
-                    .build();
-            transferGroceryToRefrigerator(grocery.getGroceryId(), httpRequest, dto);
+                    .build());
+        }
+        for (Map.Entry<Long, List<RefrigeratorGrocery>> entry : refrigeratorGroceries.entrySet()) {
+            groceryService.addRefrigeratorGroceries(refrigerators.get(entry.getKey()), entry.getValue());
         }
+        groceryShoppingCartRepository.deleteAllByIdIn(shoppingCartItemIds);
+        logger.info("Transferred {} shopping cart items to refrigerator", shoppingCartItemIds.size());
     }
 }
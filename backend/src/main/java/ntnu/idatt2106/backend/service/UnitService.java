@@ -2,11 +2,13 @@ package ntnu.idatt2106.backend.service;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.exceptions.InvalidUnitException;
 import ntnu.idatt2106.backend.model.Unit;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.repository.UnitRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -18,19 +20,38 @@ public class UnitService {
 
     private final UnitRepository unitRepository;
 
+    private volatile UnitWeightTable unitWeightTable;
+
+    /**
+     * Returns the table of unit weights, loading it on first use.
+     * Units are only added when the application is seeded, so the table is loaded again
+     * only if asked for a unit it does not hold.
+     * @param unitIds units the caller needs, may be empty
+     * @return the unit weight table
+     */
+    public UnitWeightTable getUnitWeightTable(Collection<Long> unitIds) {
+        UnitWeightTable table = unitWeightTable;
+        if (table == null || !table.containsAll(unitIds)) {
+            table = new UnitWeightTable(unitRepository.findAll());
+            unitWeightTable = table;
+        }
+        return table;
+    }
+
     /**
      * Provide a grocery and a new unit id to convert the existing unit of the
      * provided grocery into a new unit (based on the provided unit id)
      * @param refrigeratorGrocery the grocery in the refrigerator
      * @param unitId the id of the new unit
-     * @return
+     * @return the grocery, with the quantity converted with {@link UnitWeightTable#convert}
+     * @throws InvalidUnitException if the quantity can not be converted to the new unit
      */
-    public RefrigeratorGrocery convertGrocery(RefrigeratorGrocery refrigeratorGrocery, Long unitId){
+    public RefrigeratorGrocery convertGrocery(RefrigeratorGrocery refrigeratorGrocery, Long unitId) throws InvalidUnitException {
         Optional<Unit> newUnit = unitRepository.findById(unitId);
         if(newUnit.isEmpty()){
             throw new EntityNotFoundException("Could not find unit with unitId" + unitId);
         }
-        int newQuantity = (refrigeratorGrocery.getQuantity()*refrigeratorGrocery.getUnit().getWeight())/newUnit.get().getWeight();
+        int newQuantity = UnitWeightTable.convert(refrigeratorGrocery.getQuantity(), refrigeratorGrocery.getUnit(), newUnit.get());
         refrigeratorGrocery.setQuantity(newQuantity);
         refrigeratorGrocery.setUnit(newUnit.get());
         return refrigeratorGrocery;
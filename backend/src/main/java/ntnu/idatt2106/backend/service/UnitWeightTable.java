@@ -0,0 +1,89 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.exceptions.InvalidUnitException;
+import ntnu.idatt2106.backend.model.Unit;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable table of the weight in grams of every unit, used to compare amounts given in different units.
+ * The unit ids and weights are kept in two sorted arrays, so a lookup is a binary search without boxing.
+ */
+public final class UnitWeightTable {
+
+    private final long[] unitIds;
+    private final int[] weights;
+
+    /**
+     * Creates a table of the given units.
+     * @param units the units
+     */
+    public UnitWeightTable(Collection<Unit> units) {
+        List<Unit> sorted = units.stream().sorted(Comparator.comparingLong(Unit::getId)).toList();
+        unitIds = new long[sorted.size()];
+        weights = new int[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            unitIds[i] = sorted.get(i).getId();
+            weights[i] = sorted.get(i).getWeight();
+        }
+    }
+
+    /**
+     * Returns the weight of one unit in grams.
+     * @param unitId the unit, may be null
+     * @return weight in grams, 0 if the unit is null or unknown
+     */
+    public int getWeight(Long unitId) {
+        if (unitId == null) {
+            return 0;
+        }
+        int position = Arrays.binarySearch(unitIds, unitId);
+        return position < 0 ? 0 : weights[position];
+    }
+
+    /**
+     * Returns an amount in grams.
+     * @param quantity the quantity
+     * @param unitId the unit of the quantity, may be null
+     * @return the amount in grams, 0 if the weight of the unit is not known
+     */
+    public long toGrams(int quantity, Long unitId) {
+        return (long) quantity * getWeight(unitId);
+    }
+
+    /**
+     * Converts a quantity from one unit to another, rounding down, without changing anything.
+     * @param quantity the quantity in the unit it is given in
+     * @param fromUnit the unit the quantity is given in
+     * @param toUnit the unit to convert to
+     * @return the quantity in the unit converted to
+     * @throws InvalidUnitException if the units differ and the weight of one of them is not known
+     */
+    public static int convert(int quantity, Unit fromUnit, Unit toUnit) throws InvalidUnitException {
+        if (fromUnit.getId() == toUnit.getId()) {
+            return quantity;
+        }
+        if (fromUnit.getWeight() <= 0 || toUnit.getWeight() <= 0) {
+            throw new InvalidUnitException("Can not convert from " + fromUnit.getName() + " to " + toUnit.getName()
+                    + ", the weight of " + (toUnit.getWeight() <= 0 ? toUnit.getName() : fromUnit.getName()) + " is not known");
+        }
+        return (int) ((long) quantity * fromUnit.getWeight() / toUnit.getWeight());
+    }
+
+    /**
+     * Checks if the table holds all the given units.
+     * @param unitIds the units, null ids are ignored
+     * @return true if every unit is in the table
+     */
+    public boolean containsAll(Collection<Long> unitIds) {
+        for (Long unitId : unitIds) {
+            if (unitId != null && Arrays.binarySearch(this.unitIds, unitId) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
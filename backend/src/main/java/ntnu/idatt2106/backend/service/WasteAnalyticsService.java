@@ -0,0 +1,154 @@
+package ntnu.idatt2106.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import ntnu.idatt2106.backend.event.GroceryHistoryChangedEvent;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollup;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollupId;
+import ntnu.idatt2106.backend.model.dto.CategoryWasteDTO;
+import ntnu.idatt2106.backend.model.dto.MemberWasteDTO;
+import ntnu.idatt2106.backend.model.dto.WasteAnalyticsDTO;
+import ntnu.idatt2106.backend.model.dto.WasteTrendDTO;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRollupRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Waste analytics of a refrigerator: which sub categories are trashed the most, how the share of trashed
+ * groceries develops month by month, and how much every member eats and trashes.
+ * <p>
+ * Breakdowns are computed with one grouped aggregate query each, and the trend is read from the monthly
+ * {@link GroceryHistoryRollup}s. Results are cached per refrigerator and number of months until history of the
+ * refrigerator changes or the day changes, so repeated reads do not touch the database. Every eviction bumps a
+ * version of the refrigerator, and analytics computed while the version changed are not cached.
+ */
+@Service
+@RequiredArgsConstructor
+public class WasteAnalyticsService {
+
+    /**
+     * Maximum number of months analytics can cover.
+     */
+    static final int MAX_MONTHS = 120;
+
+    /**
+     * Maximum number of cached analytics, least recently used are evicted first.
+     */
+    static final int MAX_CACHED_ANALYTICS = 1000;
+
+    private final GroceryHistoryRepository groceryHistoryRepository;
+    private final GroceryHistoryRollupRepository groceryHistoryRollupRepository;
+
+    private final BoundedCache<String, CachedAnalytics> cache = new BoundedCache<>(MAX_CACHED_ANALYTICS);
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final AtomicLong clearVersion = new AtomicLong();
+
+    /**
+     * Returns the waste analytics of a refrigerator.
+     * @param refrigeratorId id of the refrigerator
+     * @param months number of months to cover, including the current month, limited to between 1 and {@value #MAX_MONTHS}
+     * @param top maximum number of sub categories to return, at least 1
+     * @return the analytics
+     */
+    public WasteAnalyticsDTO getWasteAnalytics(long refrigeratorId, int months, int top) {
+        months = Math.max(1, Math.min(months, MAX_MONTHS));
+        top = Math.max(1, top);
+        LocalDate today = LocalDate.now();
+        String key = refrigeratorId + ":" + months;
+        CachedAnalytics cached = cache.get(key);
+        if (cached == null || !cached.computedOn.equals(today)) {
+            AtomicLong version = versions.computeIfAbsent(refrigeratorId, id -> new AtomicLong());
+            long versionBefore = version.get();
+            long clearVersionBefore = clearVersion.get();
+            cached = new CachedAnalytics(today, compute(refrigeratorId, months, YearMonth.from(today)));
+            // Checked while holding the cache, so an eviction either sees this entry or its version bump is seen here
+            synchronized (cache) {
+                if (version.get() == versionBefore && clearVersion.get() == clearVersionBefore) {
+                    cache.put(key, cached);
+                }
+            }
+        }
+        WasteAnalyticsDTO analytics = cached.analytics;
+        return WasteAnalyticsDTO.builder()
+                .topWastedCategories(analytics.getTopWastedCategories().subList(0,
+                        Math.min(top, analytics.getTopWastedCategories().size())))
+                .wasteTrend(analytics.getWasteTrend())
+                .members(analytics.getMembers())
+                .build();
+    }
+
+    /**
+     * Evicts the cached analytics of a refrigerator once a change of its history has committed.
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGroceryHistoryChanged(GroceryHistoryChangedEvent event) {
+        if (event.getRefrigeratorId() == null) {
+            clearVersion.incrementAndGet();
+            cache.clear();
+            return;
+        }
+        versions.computeIfAbsent(event.getRefrigeratorId(), id -> new AtomicLong()).incrementAndGet();
+        String prefix = event.getRefrigeratorId() + ":";
+        cache.removeIf((key, analytics) -> key.startsWith(prefix));
+    }
+
+    private WasteAnalyticsDTO compute(long refrigeratorId, int months, YearMonth currentMonth) {
+        YearMonth firstMonth = currentMonth.minusMonths(months - 1);
+        LocalDate startDate = firstMonth.atDay(1);
+
+        List<CategoryWasteDTO> categories = new ArrayList<>(
+                groceryHistoryRepository.sumWeightBySubCategory(refrigeratorId, startDate));
+        categories.removeIf(category -> category.getTrashedInGrams() == 0);
+        categories.sort(Comparator.comparing(CategoryWasteDTO::getTrashedInGrams).reversed());
+
+        List<MemberWasteDTO> members = new ArrayList<>(groceryHistoryRepository.sumWeightByUser(refrigeratorId, startDate));
+        members.sort(Comparator.comparing(MemberWasteDTO::getTrashedInGrams).reversed());
+
+        Map<Integer, GroceryHistoryRollup> rollups = new HashMap<>();
+        for (GroceryHistoryRollup rollup : groceryHistoryRollupRepository.findAllByRefrigeratorIdAndMonths(refrigeratorId,
+                GroceryHistoryRollupId.toKey(firstMonth), GroceryHistoryRollupId.toKey(currentMonth))) {
+            rollups.put(rollup.getId().getYearMonth(), rollup);
+        }
+        List<WasteTrendDTO> trend = new ArrayList<>();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM, yyyy");
+        for (int i = 0; i < months; i++) {
+            YearMonth month = currentMonth.minusMonths(i);
+            GroceryHistoryRollup rollup = rollups.get(GroceryHistoryRollupId.toKey(month));
+            long trashed = rollup == null ? 0 : rollup.getTrashedInGrams();
+            long eaten = rollup == null ? 0 : rollup.getEatenInGrams();
+            trend.add(WasteTrendDTO.builder()
+                    .monthName(month.format(formatter))
+                    .trashedInGrams(trashed)
+                    .eatenInGrams(eaten)
+                    .wasteRatio(trashed + eaten == 0 ? 0.0 : (double) trashed / (trashed + eaten))
+                    .build());
+        }
+
+        return WasteAnalyticsDTO.builder()
+                .topWastedCategories(Collections.unmodifiableList(categories))
+                .wasteTrend(Collections.unmodifiableList(trend))
+                .members(Collections.unmodifiableList(members))
+                .build();
+    }
+
+    /**
+     * Analytics of a refrigerator and the day they were computed.
+     */
+    private static class CachedAnalytics {
+        private final LocalDate computedOn;
+        private final WasteAnalyticsDTO analytics;
+
+        private CachedAnalytics(LocalDate computedOn, WasteAnalyticsDTO analytics) {
+            this.computedOn = computedOn;
+            this.analytics = analytics;
+        }
+    }
+}
@@ -4,8 +4,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import ntnu.idatt2106.backend.exceptions.RefrigeratorNotFoundException;
 import ntnu.idatt2106.backend.model.Refrigerator;
 import ntnu.idatt2106.backend.model.dto.GroceryStatisticDTO;
+import ntnu.idatt2106.backend.service.GroceryHistoryExportService;
 import ntnu.idatt2106.backend.service.GroceryHistoryService;
 import ntnu.idatt2106.backend.service.RefrigeratorService;
+import ntnu.idatt2106.backend.service.WasteAnalyticsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -30,11 +32,17 @@ public class GroceryHistoryControllerTest {
     @Mock
     private RefrigeratorService refrigeratorService;
 
+    @Mock
+    private WasteAnalyticsService wasteAnalyticsService;
+
+    @Mock
+    private GroceryHistoryExportService groceryHistoryExportService;
+
 
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        groceryHistoryController = new GroceryHistoryController(groceryHistoryService, refrigeratorService);
+        groceryHistoryController = new GroceryHistoryController(groceryHistoryService, refrigeratorService, wasteAnalyticsService, groceryHistoryExportService);
     }
 
     @Test
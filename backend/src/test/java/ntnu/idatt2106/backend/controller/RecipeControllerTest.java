@@ -0,0 +1,84 @@
+package ntnu.idatt2106.backend.controller;
+
+import ntnu.idatt2106.backend.exceptions.NoSuchElementException;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeCatalogDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
+import ntnu.idatt2106.backend.service.RecipeService;
+import ntnu.idatt2106.backend.service.RecipeSuggestionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+public class RecipeControllerTest {
+    private RecipeController recipeController;
+
+    @Mock
+    private RecipeService recipeService;
+
+    @Mock
+    private RecipeSuggestionService recipeSuggestionService;
+
+    private final RecipeCatalogDTO recipeCatalog = new RecipeCatalogDTO(3L, "\"boot-3\"", List.of(new RecipeDTO()));
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        recipeController = new RecipeController(recipeService, recipeSuggestionService);
+    }
+
+    @Test
+    public void testGetAllRecipesReturnsRecipesWithETag() throws NoSuchElementException {
+        when(recipeService.getRecipeCatalog()).thenReturn(recipeCatalog);
+
+        ResponseEntity<?> response = recipeController.getAllRecipes(webRequest(null));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"boot-3\"", response.getHeaders().getETag());
+        assertEquals(recipeCatalog.getRecipes(), response.getBody());
+    }
+
+    @Test
+    public void testGetAllRecipesReturnsNotModifiedForMatchingETag() throws NoSuchElementException {
+        when(recipeService.getRecipeCatalog()).thenReturn(recipeCatalog);
+
+        ResponseEntity<?> response = recipeController.getAllRecipes(webRequest("\"boot-2\", \"boot-3\""));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    public void testGetAllRecipesReturnsRecipesForWeakOrStaleETag() throws NoSuchElementException {
+        when(recipeService.getRecipeCatalog()).thenReturn(recipeCatalog);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, recipeController.getAllRecipes(webRequest("W/\"boot-3\"")).getStatusCode());
+        assertEquals(HttpStatus.OK, recipeController.getAllRecipes(webRequest("\"boot-2\"")).getStatusCode());
+    }
+
+    @Test
+    public void testGetAllRecipesThrowsWhenCatalogIsEmpty() {
+        when(recipeService.getRecipeCatalog()).thenReturn(new RecipeCatalogDTO(0L, "\"boot-0\"", List.of()));
+
+        assertThrows(NoSuchElementException.class, () -> recipeController.getAllRecipes(webRequest(null)));
+    }
+
+    private ServletWebRequest webRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/recipes/all");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
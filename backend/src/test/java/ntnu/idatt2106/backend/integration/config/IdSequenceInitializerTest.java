@@ -0,0 +1,51 @@
+package ntnu.idatt2106.backend.integration.config;
+
+import ntnu.idatt2106.backend.config.IdSequenceInitializer;
+import ntnu.idatt2106.backend.model.GroceryHistory;
+import ntnu.idatt2106.backend.model.Refrigerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdSequenceInitializer.class)
+public class IdSequenceInitializerTest {
+
+    @Autowired
+    private IdSequenceInitializer idSequenceInitializer;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void initializeSequences_movesSequencePastHighestId() {
+        Refrigerator refrigerator = entityManager.persist(Refrigerator.builder().name("Sequence").address("Test").build());
+        GroceryHistory groceryHistory = entityManager.persistAndFlush(GroceryHistory.builder()
+                .dateConsumed(LocalDate.now())
+                .refrigerator(refrigerator)
+                .wasTrashed(false)
+                .weightInGrams(100)
+                .build());
+        // A sequence created by the schema update starts at 1, even when the table already has rows
+        jdbcTemplate.execute("ALTER SEQUENCE grocery_history_seq RESTART WITH 1");
+
+        idSequenceInitializer.initializeSequences();
+
+        Long nextValue = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR grocery_history_seq", Long.class);
+        assertTrue(nextValue > groceryHistory.getId() + IdSequenceInitializer.ALLOCATION_SIZE);
+    }
+}
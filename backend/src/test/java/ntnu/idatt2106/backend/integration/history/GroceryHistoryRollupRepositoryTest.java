@@ -0,0 +1,60 @@
+package ntnu.idatt2106.backend.integration.history;
+
+import ntnu.idatt2106.backend.model.GroceryHistoryRollup;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollupId;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class GroceryHistoryRollupRepositoryTest {
+
+    @Autowired
+    private GroceryHistoryRollupRepository groceryHistoryRollupRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final long refrigeratorId = 987654L;
+
+    @Test
+    public void addToTotals_createsRollupAndAddsToIt() {
+        int month = GroceryHistoryRollupId.toKey(YearMonth.of(2023, 4));
+
+        groceryHistoryRollupRepository.addToTotals(refrigeratorId, month, 100, 20);
+        groceryHistoryRollupRepository.addToTotals(refrigeratorId, month, 50, 5);
+        entityManager.clear();
+
+        assertEquals(List.of(new GroceryHistoryRollup(new GroceryHistoryRollupId(refrigeratorId, month), 150, 25)),
+                groceryHistoryRollupRepository.findAllByRefrigeratorIdAndMonths(refrigeratorId, month, month));
+    }
+
+    @Test
+    public void addToTotals_keepsMonthsApart() {
+        int april = GroceryHistoryRollupId.toKey(YearMonth.of(2023, 4));
+        int may = GroceryHistoryRollupId.toKey(YearMonth.of(2023, 5));
+
+        groceryHistoryRollupRepository.addToTotals(refrigeratorId, april, 100, 0);
+        groceryHistoryRollupRepository.addToTotals(refrigeratorId, may, 0, 30);
+        entityManager.clear();
+
+        List<GroceryHistoryRollup> rollups = groceryHistoryRollupRepository
+                .findAllByRefrigeratorIdAndMonths(refrigeratorId, april, may);
+        assertEquals(2, rollups.size());
+        assertEquals(100, groceryHistoryRollupRepository.findById(new GroceryHistoryRollupId(refrigeratorId, april))
+                .orElseThrow().getEatenInGrams());
+        assertEquals(30, groceryHistoryRollupRepository.findById(new GroceryHistoryRollupId(refrigeratorId, may))
+                .orElseThrow().getTrashedInGrams());
+    }
+}
@@ -0,0 +1,146 @@
+package ntnu.idatt2106.backend.integration.recipe;
+
+import jakarta.persistence.EntityManagerFactory;
+import ntnu.idatt2106.backend.model.Unit;
+import ntnu.idatt2106.backend.model.dto.recipe.FetchRecipesDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeCatalogDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.recipe.Recipe;
+import ntnu.idatt2106.backend.model.recipe.RecipeCategory;
+import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
+import ntnu.idatt2106.backend.repository.GroceryRepository;
+import ntnu.idatt2106.backend.repository.UnitRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeCategoryRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeRepository;
+import ntnu.idatt2106.backend.service.RecipeIdRegistry;
+import ntnu.idatt2106.backend.service.RecipeService;
+import ntnu.idatt2106.backend.service.RefrigeratorMatchCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asserts the number of SQL statements issued by the service calls behind
+ * /api/recipe/all and /api/recipe/fetch, so the ingredient loading stays batched.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class RecipeQueryCountIntegrationTest {
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeIdRegistry recipeIdRegistry;
+
+    @Autowired
+    private RefrigeratorMatchCache refrigeratorMatchCache;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeCategoryRepository recipeCategoryRepository;
+
+    @Autowired
+    private RecipeGroceryRepository recipeGroceryRepository;
+
+    @Autowired
+    private GroceryRepository groceryRepository;
+
+    @Autowired
+    private UnitRepository unitRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> recipeIds = new ArrayList<>();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        RecipeCategory category = recipeCategoryRepository.findByName("QueryCountCategory")
+                .orElseGet(() -> recipeCategoryRepository.save(RecipeCategory.builder().name("QueryCountCategory").build()));
+        Unit unit = unitRepository.save(Unit.builder().name("QueryCountUnit").weight(100).build());
+        Grocery flour = groceryRepository.save(Grocery.builder().name("QueryCountFlour").groceryExpiryDays(30).build());
+        Grocery milk = groceryRepository.save(Grocery.builder().name("QueryCountMilk").groceryExpiryDays(7).build());
+
+        recipeIds.clear();
+        for (int i = 0; i < 5; i++) {
+            Recipe recipe = recipeRepository.save(Recipe.builder()
+                    .name("QueryCountRecipe" + i)
+                    .category(category)
+                    .build());
+            recipeGroceryRepository.save(RecipeGrocery.builder().recipe(recipe).grocery(flour).quantity(2).unit(unit).build());
+            recipeGroceryRepository.save(RecipeGrocery.builder().recipe(recipe).grocery(milk).quantity(1).unit(unit).build());
+            recipeIds.add(recipe.getId());
+        }
+
+        recipeIdRegistry.rebuild();
+        refrigeratorMatchCache.evict(-1L);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void getAllRecipes_usesConstantNumberOfStatements() {
+        List<RecipeDTO> recipes = recipeService.getAllRecipes();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        RecipeDTO recipe = recipes.stream()
+                .filter(dto -> dto.getId() == recipeIds.get(0))
+                .findFirst()
+                .orElseThrow();
+        assertThat(recipe.getIngredients()).hasSize(2);
+        assertThat(recipe.getIngredients().get(0).getUnit().getName()).isEqualTo("QueryCountUnit");
+    }
+
+    @Test
+    public void getRecipeCatalog_isServedFromMemoryUntilCatalogChanges() {
+        RecipeCatalogDTO first = recipeService.getRecipeCatalog();
+        statistics.clear();
+
+        RecipeCatalogDTO second = recipeService.getRecipeCatalog();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(0);
+        assertThat(second).isSameAs(first);
+
+        Recipe recipe = recipeRepository.findById(recipeIds.get(0)).orElseThrow();
+        recipe.setUrl("https://example.com/query-count");
+        recipeRepository.save(recipe);
+
+        RecipeCatalogDTO third = recipeService.getRecipeCatalog();
+        assertThat(third.getETag()).isNotEqualTo(first.getETag());
+    }
+
+    @Test
+    public void getRecipesByGroceriesAndExpirationDates_usesConstantNumberOfStatements() {
+        FetchRecipesDTO fetchRecipesDTO = new FetchRecipesDTO();
+        fetchRecipesDTO.setRefrigeratorId(-1L);
+        fetchRecipesDTO.setNumRecipes(5);
+        fetchRecipesDTO.setFetchedRecipeIds(new ArrayList<>());
+
+        List<RecipeDTO> recipes = recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO);
+
+        // Refrigerator contents, recipes and ingredients
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(recipes).hasSize(5);
+
+        // The refrigerator contents are cached
+        statistics.clear();
+        recipeService.getRecipesByGroceriesAndExpirationDates(fetchRecipesDTO);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,92 @@
+package ntnu.idatt2106.backend.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import ntnu.idatt2106.backend.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AuthenticationCacheTest {
+
+    @InjectMocks
+    private AuthenticationCache authenticationCache;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        user = new User();
+        user.setEmail("testuser@test.com");
+        when(userDetailsService.loadUserByUsername("testuser@test.com")).thenReturn(user);
+    }
+
+    private Claims claims(Date expiration) {
+        Claims claims = Jwts.claims().setSubject("testuser@test.com").setExpiration(expiration);
+        claims.put("roles", List.of("USER"));
+        return claims;
+    }
+
+    @Test
+    void verify_verifiesTokenOnlyOnce() {
+        when(jwtService.extractAllClaims("token")).thenReturn(claims(new Date(System.currentTimeMillis() + 60_000)));
+
+        AuthenticationCache.VerifiedToken first = authenticationCache.verify("token");
+        AuthenticationCache.VerifiedToken second = authenticationCache.verify("token");
+
+        assertSame(first, second);
+        assertEquals("testuser@test.com", first.getUsername());
+        assertEquals(List.of("USER"), first.getRoles());
+        verify(jwtService, times(1)).extractAllClaims("token");
+    }
+
+    @Test
+    void verify_verifiesExpiredTokenAgain() {
+        when(jwtService.extractAllClaims("token")).thenReturn(claims(new Date(System.currentTimeMillis() - 1000)));
+
+        authenticationCache.verify("token");
+        AuthenticationCache.VerifiedToken verified = authenticationCache.verify("token");
+
+        assertFalse(verified.isValidFor(user));
+        verify(jwtService, times(2)).extractAllClaims("token");
+    }
+
+    @Test
+    void getUser_readsUserOnlyOnce() {
+        authenticationCache.getUser("testuser@test.com");
+        authenticationCache.getUser("testuser@test.com");
+
+        verify(userDetailsService, times(1)).loadUserByUsername("testuser@test.com");
+    }
+
+    @Test
+    void invalidateToken_dropsTokenAndItsUser() {
+        when(jwtService.extractAllClaims("token")).thenReturn(claims(new Date(System.currentTimeMillis() + 60_000)));
+        AuthenticationCache.VerifiedToken verified = authenticationCache.verify("token");
+        authenticationCache.getUser("testuser@test.com");
+
+        authenticationCache.invalidateToken("token");
+        authenticationCache.verify("token");
+        authenticationCache.getUser("testuser@test.com");
+
+        assertTrue(verified.isValidFor(user));
+        verify(jwtService, times(2)).extractAllClaims("token");
+        verify(userDetailsService, times(2)).loadUserByUsername("testuser@test.com");
+    }
+}
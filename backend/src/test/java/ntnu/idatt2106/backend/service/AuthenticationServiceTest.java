@@ -31,7 +31,7 @@ class AuthenticationServiceTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private JwtService jwtService;
+    private MembershipTokenService membershipTokenService;
 
     @Mock
     private AuthenticationManager authenticationManager;
@@ -41,7 +41,7 @@ class AuthenticationServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        authenticationService = new AuthenticationService(repository, passwordEncoder, jwtService, authenticationManager);
+        authenticationService = new AuthenticationService(repository, passwordEncoder, authenticationManager, membershipTokenService);
     }
 
     @Test
@@ -85,7 +85,7 @@ class AuthenticationServiceTest {
         User user = User.builder().email(request.getEmail()).password(passwordEncoder.encode(request.getPassword())).build();
         when(authenticationManager.authenticate(any())).thenReturn(null);
         when(repository.findByEmail(user.getEmail())).thenReturn(java.util.Optional.of(user));
-        when(jwtService.generateToken(user)).thenReturn("token123");
+        when(membershipTokenService.generateToken(user)).thenReturn("token123");
 
 
         AuthenticationResponse response = authenticationService.authenticate(request);
@@ -0,0 +1,82 @@
+package ntnu.idatt2106.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedCacheTest {
+
+    @Test
+    void put_evictsLeastRecentlyUsedEntry() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+
+        cache.put("c", 3);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void get_returnsNullForExpiredEntry() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ZERO);
+        cache.put("a", 1);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_keepsEntryWithinTimeToLive() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ofMinutes(10));
+        cache.put("a", 1);
+
+        assertEquals(1, cache.get("a"));
+    }
+
+    @Test
+    void computeIfAbsent_onlyCreatesMissingValue() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10);
+
+        assertEquals(1, cache.computeIfAbsent("a", key -> 1));
+        assertEquals(1, cache.computeIfAbsent("a", key -> 2));
+    }
+
+    @Test
+    void computeIfAbsent_replacesExpiredValue() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ZERO);
+        cache.put("a", 1);
+
+        assertEquals(2, cache.computeIfAbsent("a", key -> 2));
+    }
+
+    @Test
+    void removeIf_removesMatchingEntries() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10);
+        cache.put("1:1", 1);
+        cache.put("1:2", 2);
+        cache.put("2:1", 3);
+
+        cache.removeIf((key, value) -> key.startsWith("1:"));
+
+        assertNull(cache.get("1:1"));
+        assertNull(cache.get("1:2"));
+        assertEquals(3, cache.get("2:1"));
+    }
+
+    @Test
+    void removeExpired_removesEntriesThatAreNotReadAgain() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, Duration.ZERO);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        assertEquals(2, cache.removeExpired());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,131 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.event.RefrigeratorGroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryExpiryDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class ExpiryTrackerTest {
+
+    @Mock
+    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @InjectMocks
+    private ExpiryTracker expiryTracker;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testRebuildGeneratesDueNotificationsAndQueuesCrossings() {
+        when(refrigeratorGroceryRepository.streamExpiryDates()).thenReturn(Stream.of(
+                new RefrigeratorGroceryExpiryDTO(1L, 1L, 5L, today.minusDays(1)),
+                new RefrigeratorGroceryExpiryDTO(2L, 1L, 5L, today.plusDays(2)),
+                new RefrigeratorGroceryExpiryDTO(3L, 1L, 5L, today.plusDays(10))));
+
+        expiryTracker.rebuild();
+
+        // 2 crosses on its expiry date, 3 crosses both thresholds
+        assertEquals(3, expiryTracker.size());
+        verify(refrigeratorGroceryRepository, times(1)).findAllFetchedByIds(List.of(1L, 2L));
+    }
+
+    @Test
+    public void testFireDueCrossingsOnlyReadsDueGroceries() {
+        when(refrigeratorGroceryRepository.streamExpiryDates()).thenReturn(Stream.of(
+                new RefrigeratorGroceryExpiryDTO(1L, 1L, 5L, today.plusDays(3)),
+                new RefrigeratorGroceryExpiryDTO(2L, 1L, 5L, today.plusDays(10))));
+        expiryTracker.rebuild();
+        clearInvocations(refrigeratorGroceryRepository);
+
+        expiryTracker.fireDueCrossings();
+
+        verify(refrigeratorGroceryRepository, never()).findAllFetchedByIds(anyCollection());
+        assertEquals(3, expiryTracker.size());
+    }
+
+    @Test
+    public void testChangedGroceriesAreTracked() {
+        RefrigeratorGrocery soon = refrigeratorGrocery(1L, 5L, today.plusDays(1));
+        RefrigeratorGrocery later = refrigeratorGrocery(2L, 6L, today.plusDays(30));
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryIds(1L, Set.of(5L, 6L))).thenReturn(List.of(soon, later));
+
+        expiryTracker.onRefrigeratorGroceriesChanged(new RefrigeratorGroceriesChangedEvent(1L, Set.of(5L, 6L)));
+
+        verify(notificationService, times(1)).generateNotifications(List.of(soon));
+        assertEquals(3, expiryTracker.size());
+    }
+
+    @Test
+    public void testChangedGroceryReplacesItsCrossings() {
+        RefrigeratorGrocery grocery = refrigeratorGrocery(1L, 5L, today.plusDays(30));
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryIds(1L, Set.of(5L))).thenReturn(List.of(grocery));
+        expiryTracker.onRefrigeratorGroceriesChanged(new RefrigeratorGroceriesChangedEvent(1L, Set.of(5L)));
+
+        grocery.setPhysicalExpireDate(today.plusDays(20));
+        expiryTracker.onRefrigeratorGroceriesChanged(new RefrigeratorGroceriesChangedEvent(1L, Set.of(5L)));
+
+        assertEquals(2, expiryTracker.size());
+    }
+
+    @Test
+    public void testRemovedGroceriesAreNoLongerTracked() {
+        when(refrigeratorGroceryRepository.streamExpiryDates()).thenReturn(Stream.of(
+                new RefrigeratorGroceryExpiryDTO(1L, 1L, 5L, today.plusDays(10)),
+                new RefrigeratorGroceryExpiryDTO(2L, 1L, 6L, today.plusDays(10))));
+        expiryTracker.rebuild();
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryIds(1L, Set.of(5L))).thenReturn(List.of());
+
+        expiryTracker.onRefrigeratorGroceriesChanged(new RefrigeratorGroceriesChangedEvent(1L, Set.of(5L)));
+
+        assertEquals(2, expiryTracker.size());
+    }
+
+    @Test
+    public void testGroceryRemovedDuringRebuildIsNotTracked() {
+        RefrigeratorGroceriesChangedEvent removed = new RefrigeratorGroceriesChangedEvent(1L, Set.of(5L));
+        when(refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryIds(1L, Set.of(5L))).thenReturn(List.of());
+        when(refrigeratorGroceryRepository.streamExpiryDates()).thenReturn(Stream.of(
+                new RefrigeratorGroceryExpiryDTO(1L, 1L, 5L, today.plusDays(10)),
+                new RefrigeratorGroceryExpiryDTO(2L, 1L, 6L, today.plusDays(10)))
+                .peek(expiry -> {
+                    if (expiry.getRefrigeratorGroceryId() == 2L) {
+                        expiryTracker.onRefrigeratorGroceriesChanged(removed);
+                    }
+                }));
+
+        expiryTracker.rebuild();
+
+        assertEquals(2, expiryTracker.size());
+    }
+
+    private RefrigeratorGrocery refrigeratorGrocery(long id, long groceryId, LocalDate expireDate) {
+        Refrigerator refrigerator = new Refrigerator();
+        refrigerator.setId(1L);
+        Grocery grocery = new Grocery();
+        grocery.setId(groceryId);
+        return RefrigeratorGrocery.builder().id(id).refrigerator(refrigerator).grocery(grocery).physicalExpireDate(expireDate).build();
+    }
+}
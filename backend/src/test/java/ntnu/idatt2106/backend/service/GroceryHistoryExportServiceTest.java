@@ -0,0 +1,94 @@
+package ntnu.idatt2106.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import ntnu.idatt2106.backend.model.dto.GroceryHistoryExportDTO;
+import ntnu.idatt2106.backend.model.enums.ExportFormat;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class GroceryHistoryExportServiceTest {
+
+    private GroceryHistoryExportService groceryHistoryExportService;
+
+    @Mock
+    private GroceryHistoryRepository groceryHistoryRepository;
+
+    private final LocalDate date = LocalDate.of(2023, 4, 20);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        groceryHistoryExportService = new GroceryHistoryExportService(groceryHistoryRepository, objectMapper);
+    }
+
+    private Stream<GroceryHistoryExportDTO> rows() {
+        return Stream.of(
+                new GroceryHistoryExportDTO(1L, date, true, 100, 3L, "Milk, whole", 2L, "Dairy", "u1", "Anna"),
+                new GroceryHistoryExportDTO(2L, date, false, 200, null, null, null, null, null, null));
+    }
+
+    @Test
+    void export_writesCsvWithHeader() throws IOException {
+        when(groceryHistoryRepository.streamExport(1L, GroceryHistoryExportService.EARLIEST_DATE,
+                GroceryHistoryExportService.LATEST_DATE)).thenReturn(rows());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = groceryHistoryExportService.export(1L, null, null, ExportFormat.CSV, out);
+
+        assertEquals(2, exported);
+        assertEquals(GroceryHistoryExportService.CSV_HEADER + "\n" +
+                "1,2023-04-20,true,100,3,\"Milk, whole\",2,Dairy,u1,Anna\n" +
+                "2,2023-04-20,false,200,,,,,,\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void export_writesOneJsonObjectPerLine() throws IOException {
+        LocalDate to = date.plusDays(1);
+        when(groceryHistoryRepository.streamExport(1L, date, to)).thenReturn(rows());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        groceryHistoryExportService.export(1L, date, to, ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"dateConsumed\":\"2023-04-20\""));
+        verify(groceryHistoryRepository, times(1)).streamExport(1L, date, to);
+    }
+
+    @Test
+    void csvValue_escapesQuotes() {
+        assertEquals("\"say \"\"cheese\"\"\"", GroceryHistoryExportService.csvValue("say \"cheese\""));
+    }
+
+    @Test
+    void csvValue_neutralizesFormulas() {
+        assertEquals("\"'=HYPERLINK(\"\"http://example.com\"\")\"",
+                GroceryHistoryExportService.csvValue("=HYPERLINK(\"http://example.com\")"));
+        assertEquals("'+1", GroceryHistoryExportService.csvValue("+1"));
+        assertEquals("'-2", GroceryHistoryExportService.csvValue("-2"));
+        assertEquals("'@SUM(A1)", GroceryHistoryExportService.csvValue("@SUM(A1)"));
+        assertEquals("\"'=1,2\"", GroceryHistoryExportService.csvValue("=1,2"));
+    }
+
+    @Test
+    void csvValue_keepsNegativeNumbers() {
+        assertEquals("-5", GroceryHistoryExportService.csvValue(-5));
+    }
+}
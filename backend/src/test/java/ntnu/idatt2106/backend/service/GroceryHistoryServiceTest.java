@@ -1,20 +1,38 @@
 package ntnu.idatt2106.backend.service;
 
+import ntnu.idatt2106.backend.event.GroceryHistoryChangedEvent;
+import ntnu.idatt2106.backend.model.AppliedMigration;
 import ntnu.idatt2106.backend.model.GroceryHistory;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollup;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollupId;
 import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.SubCategory;
+import ntnu.idatt2106.backend.model.User;
 import ntnu.idatt2106.backend.model.dto.GroceryStatisticDTO;
+import ntnu.idatt2106.backend.model.dto.MonthlyConsumptionDTO;
+import ntnu.idatt2106.backend.model.dto.UnitDTO;
+import ntnu.idatt2106.backend.model.grocery.Grocery;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.repository.AppliedMigrationRepository;
 import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRollupRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -25,13 +43,28 @@ public class GroceryHistoryServiceTest {
     @Mock
     private GroceryHistoryRepository groceryHistoryRepository;
 
+    @Mock
+    private GroceryHistoryRollupRepository groceryHistoryRollupRepository;
+
+    @Mock
+    private AppliedMigrationRepository appliedMigrationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private final long refrigeratorId = 1L;
     private final Refrigerator refrigerator = Refrigerator.builder().name("test").address("test").id(1L).build();
+    private final SubCategory subCategory = SubCategory.builder().id(2L).name("Dairy").build();
+    private final Grocery grocery = Grocery.builder().id(3L).name("Milk").subCategory(subCategory).build();
+    private final User user = User.builder().id("testUserId").name("test").build();
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        groceryHistoryService = new GroceryHistoryService(groceryHistoryRepository);
+        groceryHistoryService = new GroceryHistoryService(groceryHistoryRepository, groceryHistoryRollupRepository,
+                appliedMigrationRepository, eventPublisher);
+        ReflectionTestUtils.setField(groceryHistoryService, "retentionDays", 400);
+        ReflectionTestUtils.setField(groceryHistoryService, "purgeChunkSize", 2);
     }
 
     @Test
@@ -39,8 +72,8 @@ public class GroceryHistoryServiceTest {
         // Setup
         int x = 2;
         List<GroceryHistory> groceryHistories = new ArrayList<>();
-        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(2L, LocalDate.now(), refrigerator, true, 100));
+        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100, null, null, null));
+        groceryHistories.add(new GroceryHistory(2L, LocalDate.now(), refrigerator, true, 100, null, null, null));
         when(groceryHistoryRepository.findByDateConsumedBetweenAndRefrigeratorId(any(), any(), anyLong()))
                 .thenReturn(groceryHistories);
 
@@ -53,32 +86,152 @@ public class GroceryHistoryServiceTest {
                 .findByDateConsumedBetweenAndRefrigeratorId(any(), any(), anyLong());
     }
 
+    private GroceryHistoryRollup rollup(YearMonth month, long eaten, long trashed) {
+        return new GroceryHistoryRollup(GroceryHistoryRollupId.of(refrigeratorId, month), eaten, trashed);
+    }
+
     @Test
     void getStatsforLastYear_returnsCorrectList() {
         // Setup
-        List<GroceryHistory> groceryHistories = new ArrayList<>();
-        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(2L, LocalDate.now().minusMonths(3), refrigerator, false, 200));
-        when(groceryHistoryRepository.findByDateConsumedBetweenAndRefrigeratorId(any(), any(), anyLong()))
-                .thenReturn(groceryHistories);
+        YearMonth now = YearMonth.now();
+        when(groceryHistoryRollupRepository.findAllByRefrigeratorIdAndMonths(anyLong(), anyInt(), anyInt()))
+                .thenReturn(List.of(rollup(now, 50, 100), rollup(now.minusMonths(3), 200, 0)));
 
         // Run
         List<GroceryStatisticDTO> result = groceryHistoryService.getStatsforLastYear(refrigeratorId);
 
         // Verify
         assertEquals(12, result.size());
-        verify(groceryHistoryRepository, times(12))
+        assertEquals(100, result.get(0).getFoodWaste());
+        assertEquals(50, result.get(0).getFoodEaten());
+        assertEquals(0, result.get(3).getFoodWaste());
+        assertEquals(200, result.get(3).getFoodEaten());
+        assertEquals(0, result.get(1).getFoodEaten());
+        verify(groceryHistoryRollupRepository, times(1)).findAllByRefrigeratorIdAndMonths(refrigeratorId,
+                GroceryHistoryRollupId.toKey(now.minusMonths(11)), GroceryHistoryRollupId.toKey(now));
+        verify(groceryHistoryRepository, never())
                 .findByDateConsumedBetweenAndRefrigeratorId(any(), any(), anyLong());
+        verify(groceryHistoryRepository, never()).deleteAllByIdIn(any());
+    }
+
+    @Test
+    void deleteOldStatistics_deletesInChunks() {
+        // Setup
+        LocalDate threshold = LocalDate.now().minusDays(400);
+        when(groceryHistoryRepository.findIdsByDateConsumedBefore(threshold, PageRequest.of(0, 2)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(groceryHistoryRepository.deleteAllByIdIn(List.of(1L, 2L))).thenReturn(2);
+        when(groceryHistoryRepository.deleteAllByIdIn(List.of(3L))).thenReturn(1);
+
+        // Run
+        int result = groceryHistoryService.deleteOldStatistics();
+
+        // Verify
+        assertEquals(3, result);
+        verify(groceryHistoryRepository, times(2)).findIdsByDateConsumedBefore(threshold, PageRequest.of(0, 2));
+        verify(groceryHistoryRepository, times(2)).deleteAllByIdIn(any());
+    }
+
+    @Test
+    void newGroceryHistory_upsertsTrashedWeightToRollup() {
+        // Setup
+        RefrigeratorGrocery refrigeratorGrocery = RefrigeratorGrocery.builder().refrigerator(refrigerator).grocery(grocery).build();
+        UnitDTO unitDTO = new UnitDTO();
+        unitDTO.setWeight(100);
+        int month = GroceryHistoryRollupId.toKey(YearMonth.now());
+
+        // Run
+        groceryHistoryService.newGroceryHistory(refrigeratorGrocery, 3, unitDTO, true, user);
+
+        // Verify
+        ArgumentCaptor<GroceryHistory> saved = ArgumentCaptor.forClass(GroceryHistory.class);
+        verify(groceryHistoryRepository, times(1)).save(saved.capture());
+        assertEquals(grocery, saved.getValue().getGrocery());
+        assertEquals(subCategory, saved.getValue().getSubCategory());
+        assertEquals(user, saved.getValue().getUser());
+        verify(eventPublisher, times(1)).publishEvent(any(GroceryHistoryChangedEvent.class));
+        verify(groceryHistoryRollupRepository, times(1)).addToTotals(refrigeratorId, month, 0, 300);
+        verify(groceryHistoryRollupRepository, never()).save(any());
+    }
+
+    @Test
+    void newGroceryHistory_upsertsEatenWeightToRollup() {
+        // Setup
+        RefrigeratorGrocery refrigeratorGrocery = RefrigeratorGrocery.builder().refrigerator(refrigerator).grocery(grocery).build();
+        UnitDTO unitDTO = new UnitDTO();
+        unitDTO.setWeight(100);
+        int month = GroceryHistoryRollupId.toKey(YearMonth.now());
+
+        // Run
+        groceryHistoryService.newGroceryHistory(refrigeratorGrocery, 2, unitDTO, false, user);
+
+        // Verify
+        verify(groceryHistoryRollupRepository, times(1)).addToTotals(refrigeratorId, month, 200, 0);
+        verify(groceryHistoryRollupRepository, never()).save(any());
+    }
+
+    @Test
+    void saveGroceryHistories_savesInOneCallAndUpdatesRollupOnce() {
+        // Setup
+        RefrigeratorGrocery refrigeratorGrocery = RefrigeratorGrocery.builder().refrigerator(refrigerator).grocery(grocery).build();
+        List<GroceryHistory> groceryHistories = List.of(
+                groceryHistoryService.createGroceryHistory(refrigeratorGrocery, 100, false, user),
+                groceryHistoryService.createGroceryHistory(refrigeratorGrocery, 200, true, user),
+                groceryHistoryService.createGroceryHistory(refrigeratorGrocery, 300, true, user));
+        int month = GroceryHistoryRollupId.toKey(YearMonth.now());
+
+        // Run
+        groceryHistoryService.saveGroceryHistories(groceryHistories);
+
+        // Verify
+        verify(groceryHistoryRepository, times(1)).saveAll(groceryHistories);
+        verify(groceryHistoryRepository, never()).save(any());
+        verify(groceryHistoryRollupRepository, times(1)).addToTotals(refrigeratorId, month, 100, 500);
+        verify(groceryHistoryRollupRepository, never()).save(any());
+        verify(eventPublisher, times(1)).publishEvent(any(GroceryHistoryChangedEvent.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void backfillRollups_buildsRollupsFromHistory() {
+        // Setup
+        YearMonth now = YearMonth.now();
+        when(groceryHistoryRepository.sumWeightByRefrigeratorAndMonth()).thenReturn(List.of(
+                new MonthlyConsumptionDTO(refrigeratorId, now.getYear(), now.getMonthValue(), true, 100L),
+                new MonthlyConsumptionDTO(refrigeratorId, now.getYear(), now.getMonthValue(), false, 50L)));
+
+        // Run
+        groceryHistoryService.backfillRollups();
+
+        // Verify
+        ArgumentCaptor<Iterable<GroceryHistoryRollup>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(groceryHistoryRollupRepository, times(1)).saveAll(saved.capture());
+        List<GroceryHistoryRollup> rollups = new ArrayList<>();
+        saved.getValue().forEach(rollups::add);
+        assertEquals(List.of(rollup(now, 50, 100)), rollups);
+        ArgumentCaptor<AppliedMigration> marker = ArgumentCaptor.forClass(AppliedMigration.class);
+        verify(appliedMigrationRepository, times(1)).save(marker.capture());
+        assertEquals(GroceryHistoryService.ROLLUP_BACKFILL, marker.getValue().getName());
+    }
+
+    @Test
+    void backfillRollups_skipsWhenAlreadyApplied() {
+        when(appliedMigrationRepository.existsById(GroceryHistoryService.ROLLUP_BACKFILL)).thenReturn(true);
+
+        groceryHistoryService.backfillRollups();
+
+        verify(groceryHistoryRepository, never()).sumWeightByRefrigeratorAndMonth();
+        verify(groceryHistoryRollupRepository, never()).saveAll(any());
     }
 
     @Test
     void sumTrash_returnsCorrectValue() {
         // Setup
         List<GroceryHistory> groceryHistories = new ArrayList<>();
-        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(2L, LocalDate.now(), refrigerator, false, 200));
-        groceryHistories.add(new GroceryHistory(3L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(4L, LocalDate.now(), refrigerator, false, 200));
+        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100, null, null, null));
+        groceryHistories.add(new GroceryHistory(2L, LocalDate.now(), refrigerator, false, 200, null, null, null));
+        groceryHistories.add(new GroceryHistory(3L, LocalDate.now(), refrigerator, true, 100, null, null, null));
+        groceryHistories.add(new GroceryHistory(4L, LocalDate.now(), refrigerator, false, 200, null, null, null));
 
         // Run
         int result = groceryHistoryService.sumTrash(groceryHistories);
@@ -91,10 +244,10 @@ public class GroceryHistoryServiceTest {
     void sumEaten_returnsCorrectValue() {
         // Setup
         List<GroceryHistory> groceryHistories = new ArrayList<>();
-        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(2L, LocalDate.now(), refrigerator, false, 200));
-        groceryHistories.add(new GroceryHistory(3L, LocalDate.now(), refrigerator, true, 100));
-        groceryHistories.add(new GroceryHistory(4L, LocalDate.now(), refrigerator, false, 200));
+        groceryHistories.add(new GroceryHistory(1L, LocalDate.now(), refrigerator, true, 100, null, null, null));
+        groceryHistories.add(new GroceryHistory(2L, LocalDate.now(), refrigerator, false, 200, null, null, null));
+        groceryHistories.add(new GroceryHistory(3L, LocalDate.now(), refrigerator, true, 100, null, null, null));
+        groceryHistories.add(new GroceryHistory(4L, LocalDate.now(), refrigerator, false, 200, null, null, null));
 
         // Run
         int result = groceryHistoryService.sumEaten(groceryHistories);
@@ -3,6 +3,7 @@ package ntnu.idatt2106.backend.service;
 import io.jsonwebtoken.Claims;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
+import ntnu.idatt2106.backend.event.RefrigeratorGroceriesChangedEvent;
 import ntnu.idatt2106.backend.exceptions.*;
 import ntnu.idatt2106.backend.model.*;
 import ntnu.idatt2106.backend.model.category.Category;
@@ -13,23 +14,28 @@ import ntnu.idatt2106.backend.model.dto.UnitDTO;
 import ntnu.idatt2106.backend.model.enums.FridgeRole;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
+import ntnu.idatt2106.backend.model.recipe.RecipeGrocery;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryListRequest;
 import ntnu.idatt2106.backend.repository.*;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.text.ParseException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -76,6 +82,12 @@ public class GroceryServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private GroceryHistoryService groceryHistoryService;
+
     //Testdata
     private Grocery grocery;
     private GroceryDTO customGroceryDTO;
@@ -261,6 +273,21 @@ public class GroceryServiceTest {
     }
 
 
+    @Test
+    @DisplayName("Test getIngredientsInRefrigerator groups matching groceries by grocery id")
+    public void testGetIngredientsInRefrigeratorGroupsByGroceryId() {
+        RecipeGrocery recipeGrocery = new RecipeGrocery();
+        recipeGrocery.setGrocery(grocery);
+        Mockito.when(refrigeratorGroceryRepository.findAllByRefrigeratorIdAndGroceryIds(refrigerator.getId(), Set.of(grocery.getId())))
+                .thenReturn(List.of(refrigeratorGrocery, refrigeratorGrocery));
+
+        HashMap<Long, List<RefrigeratorGroceryDTO>> result = groceryService.getIngredientsInRefrigerator(List.of(recipeGrocery), refrigerator.getId());
+
+        assertEquals(1, result.size());
+        assertEquals(2, result.get(grocery.getId()).size());
+        verify(refrigeratorGroceryRepository, never()).findAllByRefrigeratorId(any());
+    }
+
     @Test
     @DisplayName("Test getGroceriesByRefrigerator succeeds")
     public void testGetGroceriesByRefrigeratorSucceeds() throws RefrigeratorNotFoundException, UserNotFoundException, UnauthorizedException {
@@ -346,6 +373,7 @@ public class GroceryServiceTest {
         groceryService.removeRefrigeratorGrocery(1L, httpRequest);
 
         verify(refrigeratorGroceryRepository, times(1)).deleteById(1L);
+        verify(eventPublisher, times(1)).publishEvent(any(RefrigeratorGroceriesChangedEvent.class));
     }
 
     @Test
@@ -382,7 +410,7 @@ public class GroceryServiceTest {
 
         when(unitRepository.findById(any())).thenReturn(Optional.ofNullable(unit));
         when(groceryService.getFridgeRole(refrigerator, any())).thenReturn(FridgeRole.SUPERUSER);
-        when(groceryRepository.findById(existingGroceryDTO.getId())).thenReturn(Optional.ofNullable(grocery));
+        when(groceryRepository.findAllById(Set.of(existingGroceryDTO.getId()))).thenReturn(List.of(grocery));
         when(refrigeratorGroceryRepository.findAllByRefrigeratorId(any())).thenReturn(groceryList);
         when(refrigeratorRepository.findById(any())).thenReturn(Optional.ofNullable(refrigerator));
         when(refrigeratorService.getRefrigerator(refrigerator.getId())).thenReturn(refrigerator);
@@ -391,6 +419,30 @@ public class GroceryServiceTest {
         int result = groceryService.getGroceriesByRefrigerator(refrigerator.getId(), httpRequest).size();
 
         Assertions.assertEquals(dtoList.size(), result);
+        verify(refrigeratorGroceryRepository, times(1)).saveAll(anyList());
+        verify(refrigeratorGroceryRepository, times(0)).save(any(RefrigeratorGrocery.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("Test adding groceries reads groceries and unit once")
+    public void testAddingGroceriesInBatch() throws UserNotFoundException, SaveException, UnauthorizedException, RefrigeratorNotFoundException {
+        SaveGroceryListRequest request = new SaveGroceryListRequest(refrigerator.getId(),
+                List.of(existingGroceryDTO, existingGroceryDTO, existingGroceryDTO), UnitDTO.builder().name("dl").id(1L).build(), 1);
+
+        when(unitRepository.findById(any())).thenReturn(Optional.ofNullable(unit));
+        when(groceryService.getFridgeRole(refrigerator, any())).thenReturn(FridgeRole.SUPERUSER);
+        when(groceryRepository.findAllById(Set.of(existingGroceryDTO.getId()))).thenReturn(List.of(grocery));
+        when(refrigeratorService.getRefrigerator(refrigerator.getId())).thenReturn(refrigerator);
+
+        groceryService.addGrocery(request, httpRequest);
+
+        verify(groceryRepository, times(1)).findAllById(anyCollection());
+        verify(groceryRepository, times(0)).findById(any());
+        verify(unitRepository, times(1)).findById(any());
+        ArgumentCaptor<List<RefrigeratorGrocery>> saved = ArgumentCaptor.forClass(List.class);
+        verify(refrigeratorGroceryRepository, times(1)).saveAll(saved.capture());
+        assertEquals(3, saved.getValue().size());
     }
 
     @Test
@@ -464,4 +516,94 @@ public class GroceryServiceTest {
         assertThrows(UnauthorizedException.class, () -> groceryService.useRefrigeratorGrocery(dto, request));
     }
 
+    private DeleteRefrigeratorGroceryDTO useRequest(long refrigeratorGroceryId, int quantity, Unit unit) {
+        RefrigeratorGroceryDTO refrigeratorGroceryDTO = new RefrigeratorGroceryDTO();
+        refrigeratorGroceryDTO.setId(refrigeratorGroceryId);
+        return new DeleteRefrigeratorGroceryDTO(refrigeratorGroceryDTO, quantity, new UnitDTO(unit));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("Test using groceries in batch updates, deletes and records history in bulk")
+    public void testUseRefrigeratorGroceriesInBatch() throws Exception {
+        Unit dl = new Unit(1, "dl", 100);
+        RefrigeratorGrocery partlyUsed = RefrigeratorGrocery.builder().id(10L).grocery(grocery)
+                .refrigerator(refrigerator).unit(dl).quantity(3).build();
+        RefrigeratorGrocery usedUp = RefrigeratorGrocery.builder().id(11L).grocery(grocery)
+                .refrigerator(refrigerator).unit(dl).quantity(1).build();
+
+        when(refrigeratorGroceryRepository.findAllFetchedByIds(Set.of(10L, 11L))).thenReturn(List.of(partlyUsed, usedUp));
+        when(refrigeratorService.getFridgeRole(any(), any())).thenReturn(FridgeRole.USER);
+        when(unitRepository.findAllById(Set.of(1L))).thenReturn(List.of(dl));
+        when(refrigeratorService.getUser(any())).thenReturn(user);
+
+        List<RefrigeratorGrocery> result = groceryService.useRefrigeratorGroceries(
+                List.of(useRequest(10L, 1, dl), useRequest(11L, 1, dl)), true, httpRequest);
+
+        assertEquals(1, result.size());
+        assertEquals(11L, result.get(0).getId());
+        assertEquals(1, result.get(0).getQuantity());
+        assertEquals(2, partlyUsed.getQuantity());
+        verify(refrigeratorGroceryRepository, times(1)).findAllFetchedByIds(anyCollection());
+        verify(refrigeratorGroceryRepository, never()).findById(any());
+        verify(refrigeratorGroceryRepository, never()).save(any(RefrigeratorGrocery.class));
+        verify(unitRepository, never()).findById(any());
+        verify(notificationService).deleteNotificationsByRefrigeratorGroceries(Set.of(11L));
+        verify(refrigeratorGroceryRepository).deleteAllByIdIn(Set.of(11L));
+        verify(groceryHistoryService, times(2)).createGroceryHistory(any(), eq(100), eq(true), eq(user));
+        ArgumentCaptor<List<GroceryHistory>> histories = ArgumentCaptor.forClass(List.class);
+        verify(groceryHistoryService, times(1)).saveGroceryHistories(histories.capture());
+        assertEquals(2, histories.getValue().size());
+        verify(eventPublisher, times(1)).publishEvent(any(RefrigeratorGroceriesChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Test using groceries in batch throws when a grocery is missing, before anything is changed")
+    public void testUseRefrigeratorGroceriesThrowsNoSuchElement() {
+        Unit dl = new Unit(1, "dl", 100);
+        RefrigeratorGrocery found = RefrigeratorGrocery.builder().id(10L).grocery(grocery)
+                .refrigerator(refrigerator).unit(dl).quantity(3).build();
+        when(refrigeratorGroceryRepository.findAllFetchedByIds(Set.of(10L, 11L))).thenReturn(List.of(found));
+
+        assertThrows(NoSuchElementException.class, () -> groceryService.useRefrigeratorGroceries(
+                List.of(useRequest(10L, 1, dl), useRequest(11L, 1, dl)), false, httpRequest));
+        assertEquals(3, found.getQuantity());
+        verify(refrigeratorGroceryRepository, never()).deleteAllByIdIn(anyCollection());
+        verify(groceryHistoryService, never()).saveGroceryHistories(anyList());
+    }
+
+    @Test
+    @DisplayName("Test using groceries in batch rejects a unit without weight before anything is changed")
+    public void testUseRefrigeratorGroceriesRejectsUnitWithoutWeight() throws Exception {
+        Unit dl = new Unit(1, "dl", 100);
+        Unit piece = new Unit(2, "stk", 0);
+        RefrigeratorGrocery found = RefrigeratorGrocery.builder().id(10L).grocery(grocery)
+                .refrigerator(refrigerator).unit(dl).quantity(3).build();
+        when(refrigeratorGroceryRepository.findAllFetchedByIds(Set.of(10L))).thenReturn(List.of(found));
+        when(refrigeratorService.getFridgeRole(any(), any())).thenReturn(FridgeRole.USER);
+        when(unitRepository.findAllById(Set.of(2L))).thenReturn(List.of(piece));
+
+        assertThrows(InvalidUnitException.class, () -> groceryService.useRefrigeratorGroceries(
+                List.of(useRequest(10L, 1, piece)), false, httpRequest));
+        assertEquals(3, found.getQuantity());
+        assertEquals(dl, found.getUnit());
+        verify(refrigeratorGroceryRepository, never()).deleteAllByIdIn(anyCollection());
+        verify(groceryHistoryService, never()).saveGroceryHistories(anyList());
+    }
+
+    @Test
+    @DisplayName("Test using a grocery rejects a unit without weight without changing the grocery")
+    public void testUseRefrigeratorGroceryRejectsUnitWithoutWeight() throws Exception {
+        Unit dl = new Unit(1, "dl", 100);
+        Unit piece = new Unit(2, "stk", 0);
+        RefrigeratorGrocery found = RefrigeratorGrocery.builder().id(10L).grocery(grocery)
+                .refrigerator(refrigerator).unit(dl).quantity(3).build();
+        when(refrigeratorGroceryRepository.findById(10L)).thenReturn(Optional.of(found));
+        when(refrigeratorService.getFridgeRole(any(), any())).thenReturn(FridgeRole.USER);
+        when(unitRepository.findById(2L)).thenReturn(Optional.of(piece));
+
+        assertThrows(InvalidUnitException.class, () -> groceryService.useRefrigeratorGrocery(useRequest(10L, 1, piece), httpRequest));
+        assertEquals(3, found.getQuantity());
+        verify(refrigeratorGroceryRepository, never()).save(any(RefrigeratorGrocery.class));
+    }
 }
@@ -0,0 +1,122 @@
+package ntnu.idatt2106.backend.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import ntnu.idatt2106.backend.model.Refrigerator;
+import ntnu.idatt2106.backend.model.RefrigeratorUser;
+import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.enums.FridgeRole;
+import ntnu.idatt2106.backend.repository.RefrigeratorUserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class MembershipTokenServiceTest {
+
+    @InjectMocks
+    private MembershipTokenService membershipTokenService;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private RefrigeratorUserRepository refrigeratorUserRepository;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(membershipTokenService, "enabled", true);
+        user = new User();
+        user.setId("testUserId");
+        user.setEmail("testuser@test.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private RefrigeratorUser membership(long refrigeratorId, FridgeRole fridgeRole) {
+        Refrigerator refrigerator = new Refrigerator();
+        refrigerator.setId(refrigeratorId);
+        RefrigeratorUser refrigeratorUser = new RefrigeratorUser();
+        refrigeratorUser.setUser(user);
+        refrigeratorUser.setRefrigerator(refrigerator);
+        refrigeratorUser.setFridgeRole(fridgeRole);
+        return refrigeratorUser;
+    }
+
+    private void authenticate(Map<String, String> fridgeRoles, long epoch) {
+        Claims claims = Jwts.claims().setSubject(user.getEmail()).setExpiration(new Date(System.currentTimeMillis() + 60_000));
+        claims.put("roles", List.of("USER"));
+        claims.put(MembershipTokenService.FRIDGE_ROLES_CLAIM, fridgeRoles);
+        claims.put(MembershipTokenService.MEMBERSHIP_EPOCH_CLAIM, epoch);
+        when(jwtService.extractAllClaims("token")).thenReturn(claims);
+        AuthenticationCache.VerifiedToken token = new AuthenticationCache(jwtService, userDetailsService).verify("token");
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, token, List.of()));
+    }
+
+    @Test
+    void generateToken_withoutMembershipClaims() {
+        ReflectionTestUtils.setField(membershipTokenService, "enabled", false);
+        when(jwtService.generateToken(user)).thenReturn("token");
+
+        assertEquals("token", membershipTokenService.generateToken(user));
+        verifyNoInteractions(refrigeratorUserRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void generateToken_embedsMembershipsAndEpoch() {
+        when(refrigeratorUserRepository.findByUser(user))
+                .thenReturn(List.of(membership(1L, FridgeRole.SUPERUSER), membership(2L, FridgeRole.USER)));
+        when(jwtService.generateToken(eq(user), anyMap())).thenReturn("token");
+
+        assertEquals("token", membershipTokenService.generateToken(user));
+
+        ArgumentCaptor<Map<String, Object>> claims = ArgumentCaptor.forClass(Map.class);
+        verify(jwtService).generateToken(eq(user), claims.capture());
+        assertEquals(Map.of("1", "S", "2", "U"), claims.getValue().get(MembershipTokenService.FRIDGE_ROLES_CLAIM));
+        assertEquals(membershipTokenService.getEpoch(user.getId()), claims.getValue().get(MembershipTokenService.MEMBERSHIP_EPOCH_CLAIM));
+    }
+
+    @Test
+    void getCurrentFridgeRoles_readsMembershipsFromToken() {
+        authenticate(Map.of("1", "S", "2", "U"), membershipTokenService.getEpoch(user.getId()));
+
+        Map<Long, FridgeRole> fridgeRoles = membershipTokenService.getCurrentFridgeRoles(user).orElseThrow();
+
+        assertEquals(Map.of(1L, FridgeRole.SUPERUSER, 2L, FridgeRole.USER), fridgeRoles);
+    }
+
+    @Test
+    void getCurrentFridgeRoles_ignoresTokenAfterMembershipChange() {
+        authenticate(Map.of("1", "S"), membershipTokenService.getEpoch(user.getId()));
+
+        membershipTokenService.bumpEpoch(user.getId());
+
+        assertTrue(membershipTokenService.getCurrentFridgeRoles(user).isEmpty());
+    }
+}
@@ -2,15 +2,17 @@ package ntnu.idatt2106.backend.service;
 
 
 import jnr.constants.platform.Local;
+import ntnu.idatt2106.backend.event.GroceryNotificationsChangedEvent;
+import ntnu.idatt2106.backend.event.GroceryNotificationsDismissedEvent;
 import ntnu.idatt2106.backend.exceptions.NotificationException;
 import ntnu.idatt2106.backend.model.*;
 import ntnu.idatt2106.backend.model.dto.GroceryNotificationDTO;
+import ntnu.idatt2106.backend.model.dto.NotificationDismissalDTO;
 import ntnu.idatt2106.backend.model.enums.UserRole;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.repository.GroceryNotificationRepository;
-import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
 import ntnu.idatt2106.backend.repository.RefrigeratorUserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,6 +20,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -36,7 +39,7 @@ public class NotificationServiceTest {
     @Mock
     private RefrigeratorUserRepository refrigeratorUserRepository;
     @Mock
-    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private NotificationService notificationService;
 
@@ -74,97 +77,89 @@ public class NotificationServiceTest {
 
     }
 
+    private GroceryNotification notification(boolean deleted) {
+        return GroceryNotification.builder().user(user).groceryEntity(refrigeratorGrocery).deleted(deleted).build();
+    }
+
+    private void stubExisting(List<GroceryNotification> notifications) {
+        RefrigeratorUser refrigeratorUser = new RefrigeratorUser();
+        refrigeratorUser.setUser(user);
+        refrigeratorUser.setRefrigerator(refrigerator);
+        when(refrigeratorUserRepository.findAllByRefrigeratorIds(Set.of(refrigerator.getId()))).thenReturn(List.of(refrigeratorUser));
+        when(groceryNotificationRepository.findAllByGroceryEntityIds(Set.of(refrigeratorGrocery.getId()))).thenReturn(notifications);
+    }
+
     @Test
     public void testGenerateNotificationsNoPrevious(){
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
         refrigeratorGrocery.setPhysicalExpireDate(LocalDate.now());
-        refrigeratorGroceries.add(refrigeratorGrocery);
+        stubExisting(new ArrayList<>());
 
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(new ArrayList<>());
-        notificationService.generateNotifications(refrigeratorGroceries, user);
+        assertEquals(1, notificationService.generateNotifications(List.of(refrigeratorGrocery)));
 
-        verify(groceryNotificationRepository, times(1)).save(Mockito.any(GroceryNotification.class));
+        verify(groceryNotificationRepository, times(1)).saveAll(anyList());
+        verify(groceryNotificationRepository, times(0)).save(Mockito.any(GroceryNotification.class));
+        verify(eventPublisher, times(1)).publishEvent(Mockito.any(GroceryNotificationsChangedEvent.class));
     }
 
     @Test
     public void testGenerateNotificationsOnePrevious(){
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
         refrigeratorGrocery.setPhysicalExpireDate(LocalDate.now());
-        refrigeratorGroceries.add(refrigeratorGrocery);
+        stubExisting(List.of(notification(false)));
 
-        ArrayList<GroceryNotification> notifications = new ArrayList<>();
-        notifications.add(GroceryNotification.builder().build());
+        assertEquals(1, notificationService.generateNotifications(List.of(refrigeratorGrocery)));
+    }
 
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(notifications);
-        notificationService.generateNotifications(refrigeratorGroceries, user);
+    @Test
+    public void testGenerateNotificationsOnePreviousDeleted(){
+        refrigeratorGrocery.setPhysicalExpireDate(LocalDate.now());
+        stubExisting(List.of(notification(true)));
 
-        verify(groceryNotificationRepository, times(1)).save(Mockito.any(GroceryNotification.class));
+        assertEquals(0, notificationService.generateNotifications(List.of(refrigeratorGrocery)));
     }
 
     @Test
     public void testGenerateNotificationsTwoPrevious(){
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
         refrigeratorGrocery.setPhysicalExpireDate(LocalDate.now());
-        refrigeratorGroceries.add(refrigeratorGrocery);
-
-        ArrayList<GroceryNotification> notifications = new ArrayList<>();
-        notifications.add(GroceryNotification.builder().build());
-        notifications.add(GroceryNotification.builder().build());
+        stubExisting(List.of(notification(false), notification(false)));
 
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(notifications);
-        notificationService.generateNotifications(refrigeratorGroceries, user);
-
-        verify(groceryNotificationRepository, times(0)).save(Mockito.any(GroceryNotification.class));
+        assertEquals(0, notificationService.generateNotifications(List.of(refrigeratorGrocery)));
     }
 
     @Test
     public void testGenerateNotificationsItemDoesNotNeed() throws ParseException {
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-
         String date_string = "26-04-2300";
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
         LocalDate date = LocalDate.parse(date_string, formatter);
         refrigeratorGrocery.setPhysicalExpireDate(date);
-        refrigeratorGroceries.add(refrigeratorGrocery);
-        ArrayList<GroceryNotification> notifications = new ArrayList<>();
-
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(notifications);
-        notificationService.generateNotifications(refrigeratorGroceries, user);
+        stubExisting(new ArrayList<>());
 
-        verify(groceryNotificationRepository, times(0)).save(Mockito.any(GroceryNotification.class));
+        assertEquals(0, notificationService.generateNotifications(List.of(refrigeratorGrocery)));
     }
 
     @Test
     public void testGenerateNotificationsItemDoesNotNeedAlreadyExists() throws ParseException {
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-        // Create a new Date object
-        LocalDate currentDate = LocalDate.now().plusDays(3);
+        refrigeratorGrocery.setPhysicalExpireDate(LocalDate.now().plusDays(3));
+        stubExisting(List.of(notification(false)));
 
-        refrigeratorGrocery.setPhysicalExpireDate(currentDate);
-        refrigeratorGroceries.add(refrigeratorGrocery);
-
-        ArrayList<GroceryNotification> notifications = new ArrayList<>();
-        notifications.add(GroceryNotification.builder().build());
+        assertEquals(0, notificationService.generateNotifications(List.of(refrigeratorGrocery)));
+    }
 
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(notifications);
-        notificationService.generateNotifications(refrigeratorGroceries, user);
+    @Test
+    public void testGenerateNotificationsThreeDayWarning() throws ParseException {
+        refrigeratorGrocery.setPhysicalExpireDate(LocalDate.now().plusDays(3));
+        stubExisting(new ArrayList<>());
 
-        verify(groceryNotificationRepository, times(0)).save(Mockito.any(GroceryNotification.class));
+        assertEquals(1, notificationService.generateNotifications(List.of(refrigeratorGrocery)));
     }
 
     @Test
-    public void testGenerateNotificationsThreeDayWarning() throws ParseException {
-        List<RefrigeratorGrocery> refrigeratorGroceries = new ArrayList<>();
-        // Create a new Date object
-        LocalDate currentDate = LocalDate.now().plusDays(3);
-        refrigeratorGrocery.setPhysicalExpireDate(currentDate);
-        refrigeratorGroceries.add(refrigeratorGrocery);
+    public void testGetNotificationsDoesNotGenerate() {
+        when(groceryNotificationRepository.findAllActiveByUserId(user.getId())).thenReturn(List.of(notification(false)));
 
-        ArrayList<GroceryNotification> notifications = new ArrayList<>();
-        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGroceries.get(0))).thenReturn(notifications);
-        notificationService.generateNotifications(refrigeratorGroceries, user);
+        assertEquals(1, notificationService.getNotifications(user).size());
 
-        verify(groceryNotificationRepository, times(1)).save(Mockito.any(GroceryNotification.class));
+        verify(groceryNotificationRepository, times(0)).findAllByGroceryEntityIds(anyCollection());
+        verify(groceryNotificationRepository, times(0)).saveAll(anyList());
     }
 
 
@@ -218,4 +213,58 @@ public class NotificationServiceTest {
                 notificationService.deleteNotification(user, notifId));
         Mockito.verify(groceryNotificationRepository, Mockito.times(1)).save(groceryNotification);
     }
+
+    @Test
+    void dismissNotifications_singleUpdate() {
+        when(groceryNotificationRepository.dismissAllByUserIdAndIds(user.getId(), List.of(1L, 2L))).thenReturn(2);
+
+        NotificationDismissalDTO result = notificationService.dismissNotifications(user, List.of(1L, 2L));
+
+        assertEquals(2, result.getDismissed());
+        assertEquals(List.of(1L, 2L), result.getIds());
+        verify(groceryNotificationRepository, never()).findById(anyLong());
+        verify(groceryNotificationRepository, never()).save(Mockito.any());
+        verify(eventPublisher, times(1)).publishEvent(Mockito.any(GroceryNotificationsDismissedEvent.class));
+    }
+
+    @Test
+    void dismissNotifications_emptyIds() {
+        NotificationDismissalDTO result = notificationService.dismissNotifications(user, List.of());
+
+        assertEquals(0, result.getDismissed());
+        verifyNoInteractions(groceryNotificationRepository, eventPublisher);
+    }
+
+    @Test
+    void dismissNotificationsByRefrigerator_singleUpdate() {
+        when(groceryNotificationRepository.dismissAllByUserIdAndRefrigeratorId(user.getId(), refrigerator.getId())).thenReturn(3);
+
+        NotificationDismissalDTO result = notificationService.dismissNotificationsByRefrigerator(user, refrigerator.getId());
+
+        assertEquals(3, result.getDismissed());
+        assertEquals(refrigerator.getId(), result.getRefrigeratorId());
+        verify(eventPublisher, times(1)).publishEvent(Mockito.any(GroceryNotificationsDismissedEvent.class));
+    }
+
+    @Test
+    void dismissAllNotifications_nothingToDismiss() {
+        when(groceryNotificationRepository.dismissAllByUserId(user.getId())).thenReturn(0);
+
+        assertEquals(0, notificationService.dismissAllNotifications(user).getDismissed());
+
+        verify(eventPublisher, never()).publishEvent(Mockito.any());
+    }
+
+    @Test
+    void deleteNotificationsByRefrigeratorGrocery_singleDelete() throws NotificationException {
+        refrigeratorGrocery.setId(5L);
+        when(groceryNotificationRepository.findAllByGroceryEntity(refrigeratorGrocery))
+                .thenReturn(List.of(notification(false), notification(true)));
+
+        assertEquals(2, notificationService.deleteNotificationsByRefrigeratorGrocery(refrigeratorGrocery).size());
+
+        verify(groceryNotificationRepository, times(1)).deleteAllByGroceryEntityId(5L);
+        verify(groceryNotificationRepository, never()).delete(Mockito.any());
+        verify(eventPublisher, times(1)).publishEvent(Mockito.any(GroceryNotificationsChangedEvent.class));
+    }
 }
@@ -0,0 +1,73 @@
+package ntnu.idatt2106.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ntnu.idatt2106.backend.event.GroceryNotificationsChangedEvent;
+import ntnu.idatt2106.backend.model.User;
+import ntnu.idatt2106.backend.model.grocery.GroceryNotification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotificationStreamServiceTest {
+
+    private NotificationStreamService notificationStreamService;
+    private User user;
+
+    @BeforeEach
+    public void setup() {
+        notificationStreamService = new NotificationStreamService(new ObjectMapper().findAndRegisterModules());
+        user = new User();
+        user.setId("testUserId");
+        user.setEmail("testuser@test.com");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        notificationStreamService.shutdown();
+    }
+
+    private GroceryNotification notification(long id) {
+        return GroceryNotification.builder().id(id).user(user).daysLeft(3L).build();
+    }
+
+    @Test
+    public void testConnectRegistersConnection() {
+        notificationStreamService.connect(user.getId(), null);
+        notificationStreamService.connect(user.getId(), null);
+
+        assertEquals(2, notificationStreamService.getConnectionCount(user.getId()));
+    }
+
+    @Test
+    public void testMissedEventsAreReplayed() {
+        notificationStreamService.onNotificationsChanged(new GroceryNotificationsChangedEvent(List.of(notification(1)), List.of()));
+        notificationStreamService.onNotificationsChanged(new GroceryNotificationsChangedEvent(List.of(), List.of(notification(1))));
+        long createdEventId = notificationStreamService.getMissedEvents(user.getId(), notificationStreamService.firstEventId).get(0).id;
+
+        List<NotificationStreamService.StreamedEvent> missed = notificationStreamService.getMissedEvents(user.getId(), createdEventId);
+
+        assertEquals(1, missed.size());
+        assertEquals(NotificationStreamService.NOTIFICATION_DELETED_EVENT, missed.get(0).name);
+        assertTrue(missed.get(0).data.contains("\"id\":1"));
+    }
+
+    @Test
+    public void testEventIdFromBeforeRestartRequiresResync() {
+        notificationStreamService.onNotificationsChanged(new GroceryNotificationsChangedEvent(List.of(notification(1)), List.of()));
+
+        assertNull(notificationStreamService.getMissedEvents(user.getId(), 1L));
+    }
+
+    @Test
+    public void testDroppedEventsRequireResync() {
+        for (int i = 0; i <= NotificationStreamService.MAX_REPLAY_EVENTS; i++) {
+            notificationStreamService.onNotificationsChanged(new GroceryNotificationsChangedEvent(List.of(notification(i)), List.of()));
+        }
+
+        assertNull(notificationStreamService.getMissedEvents(user.getId(), notificationStreamService.firstEventId));
+    }
+}
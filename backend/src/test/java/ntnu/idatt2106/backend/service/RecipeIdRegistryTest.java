@@ -0,0 +1,114 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.event.RecipeCatalogChangedEvent;
+import ntnu.idatt2106.backend.repository.recipe.RecipeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RecipeIdRegistryTest {
+
+    private RecipeIdRegistry recipeIdRegistry;
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        recipeIdRegistry = new RecipeIdRegistry(recipeRepository);
+        when(recipeRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+    }
+
+    private static Set<Long> recipeIds(RecipeOrdinals ordinals) {
+        Set<Long> recipeIds = new HashSet<>();
+        for (int position = 0; position < ordinals.size(); position++) {
+            recipeIds.add(ordinals.recipeId(ordinals.ordinalAt(position)));
+        }
+        return recipeIds;
+    }
+
+    @Test
+    void getOrdinals_numbersAllRecipesById() {
+        RecipeOrdinals ordinals = recipeIdRegistry.getOrdinals();
+
+        assertEquals(0, ordinals.ordinalOf(1L));
+        assertEquals(2, ordinals.ordinalOf(3L));
+        assertEquals(-1, ordinals.ordinalOf(4L));
+    }
+
+    @Test
+    void getRecipeIds_returnsAllRecipes() {
+        assertEquals(Set.of(1L, 2L, 3L), recipeIds(recipeIdRegistry.getOrdinals()));
+    }
+
+    @Test
+    void index_isOnlyBuiltOnce() {
+        recipeIds(recipeIdRegistry.getOrdinals());
+        recipeIds(recipeIdRegistry.getOrdinals());
+
+        verify(recipeRepository, times(1)).findAllIds();
+    }
+
+    @Test
+    void persistEvent_addsRecipeWithoutRebuild() {
+        recipeIdRegistry.rebuild();
+
+        recipeIdRegistry.onRecipeCatalogChanged(
+                new RecipeCatalogChangedEvent(RecipeCatalogChangedEvent.EntityType.RECIPE_GROCERY,
+                        RecipeCatalogChangedEvent.Action.PERSIST, 4L, 10L));
+
+        assertEquals(Set.of(1L, 2L, 3L, 4L), recipeIds(recipeIdRegistry.getOrdinals()));
+        assertEquals(3, recipeIdRegistry.getOrdinals().ordinalOf(4L));
+        verify(recipeRepository, times(1)).findAllIds();
+    }
+
+    @Test
+    void removeEvent_removesRecipeWithoutRebuild() {
+        recipeIdRegistry.rebuild();
+
+        recipeIdRegistry.onRecipeCatalogChanged(
+                new RecipeCatalogChangedEvent(RecipeCatalogChangedEvent.EntityType.RECIPE,
+                        RecipeCatalogChangedEvent.Action.REMOVE, 2L, null));
+
+        assertEquals(Set.of(1L, 3L), recipeIds(recipeIdRegistry.getOrdinals()));
+        assertEquals(3, recipeIdRegistry.getOrdinals().capacity());
+        verify(recipeRepository, times(1)).findAllIds();
+    }
+
+    @Test
+    void removeIngredientEvent_keepsRecipe() {
+        recipeIdRegistry.rebuild();
+        RecipeOrdinals ordinals = recipeIdRegistry.getOrdinals();
+
+        recipeIdRegistry.onRecipeCatalogChanged(
+                new RecipeCatalogChangedEvent(RecipeCatalogChangedEvent.EntityType.RECIPE_GROCERY,
+                        RecipeCatalogChangedEvent.Action.REMOVE, 1L, 10L));
+
+        assertEquals(Set.of(1L, 2L, 3L), recipeIds(recipeIdRegistry.getOrdinals()));
+        assertSame(ordinals, recipeIdRegistry.getOrdinals());
+    }
+
+    @Test
+    void readdedRecipe_keepsItsOrdinal() {
+        recipeIdRegistry.rebuild();
+
+        recipeIdRegistry.onRecipeCatalogChanged(
+                new RecipeCatalogChangedEvent(RecipeCatalogChangedEvent.EntityType.RECIPE,
+                        RecipeCatalogChangedEvent.Action.REMOVE, 2L, null));
+        recipeIdRegistry.onRecipeCatalogChanged(
+                new RecipeCatalogChangedEvent(RecipeCatalogChangedEvent.EntityType.RECIPE,
+                        RecipeCatalogChangedEvent.Action.PERSIST, 2L, null));
+
+        assertEquals(1, recipeIdRegistry.getOrdinals().ordinalOf(2L));
+        assertEquals(3, recipeIdRegistry.getOrdinals().capacity());
+    }
+}
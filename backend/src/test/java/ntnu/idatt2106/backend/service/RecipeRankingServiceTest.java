@@ -0,0 +1,102 @@
+package ntnu.idatt2106.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+public class RecipeRankingServiceTest {
+
+    @InjectMocks
+    private RecipeRankingService recipeRankingService;
+
+    @Mock
+    private RefrigeratorMatchCache refrigeratorMatchCache;
+
+    @Mock
+    private RecipeIdRegistry recipeIdRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void getTopRecipeIds_ordersRecipesByScore() {
+        when(refrigeratorMatchCache.getScores(anyLong(), any())).thenReturn(
+                RecipeScores.of(RecipeOrdinals.of(List.of(1L, 2L, 3L)), Map.of(1L, 1.2, 2L, 3.0)));
+
+        List<Long> result = recipeRankingService.getTopRecipeIds(1L, 3, null);
+
+        assertEquals(List.of(2L, 1L, 3L), result);
+    }
+
+    @Test
+    void getTopRecipeIds_skipsExcludedRecipes() {
+        when(refrigeratorMatchCache.getScores(anyLong(), any())).thenReturn(
+                RecipeScores.of(RecipeOrdinals.of(List.of(1L, 2L, 3L)), Map.of()));
+
+        List<Long> result = recipeRankingService.getTopRecipeIds(1L, 2, List.of(1L));
+
+        assertEquals(List.of(2L, 3L), result);
+    }
+
+    @Test
+    void selectTop_returnsBestFirstAndBreaksTiesById() {
+        RecipeScores scores = RecipeScores.of(RecipeOrdinals.of(List.of(1L, 2L, 3L, 4L, 5L)),
+                Map.of(4L, 5.0, 2L, 1.0, 3L, 1.0));
+
+        List<Long> result = RecipeRankingService.selectTop(scores, new long[0], 3);
+
+        assertEquals(List.of(4L, 2L, 3L), result);
+    }
+
+    @Test
+    void selectTop_fillsUpWithUnscoredRecipesById() {
+        RecipeOrdinals ordinals = RecipeOrdinals.of(List.of(5L, 1L, 4L, 2L, 3L));
+        RecipeScores scores = RecipeScores.of(ordinals, Map.of(4L, 2.0));
+
+        List<Long> result = RecipeRankingService.selectTop(scores, ordinals.toBitSet(List.of(1L)), 3);
+
+        assertEquals(List.of(4L, 2L, 3L), result);
+    }
+
+    @Test
+    void rankAllRecipeIds_skipsRemovedRecipes() {
+        RecipeOrdinals ordinals = RecipeOrdinals.of(List.of(1L, 2L, 3L)).withoutRecipe(3L);
+        when(refrigeratorMatchCache.getScores(anyLong(), any())).thenReturn(
+                new RecipeScores(ordinals, new double[]{0, 0, 1.0}, new long[]{0b100}));
+
+        assertEquals(List.of(1L, 2L), recipeRankingService.rankAllRecipeIds(1L));
+    }
+
+    @Test
+    void rankScoredRecipeIds_leavesOutUnscoredRecipes() {
+        when(refrigeratorMatchCache.getScores(anyLong(), any())).thenReturn(
+                RecipeScores.of(RecipeOrdinals.of(List.of(1L, 2L, 3L, 4L)), Map.of(3L, 1.0, 2L, 2.0)));
+
+        assertEquals(List.of(2L, 3L), recipeRankingService.rankScoredRecipeIds(1L));
+    }
+
+    @Test
+    void getRecipeIdsAfter_walksRecipesByIdSkippingGivenIds() {
+        when(recipeIdRegistry.getOrdinals()).thenReturn(RecipeOrdinals.of(List.of(7L, 1L, 5L, 3L, 9L)));
+
+        assertEquals(List.of(5L, 9L), recipeRankingService.getRecipeIdsAfter(1L, new long[]{3L, 7L}, 2));
+        assertEquals(List.of(), recipeRankingService.getRecipeIdsAfter(9L, new long[0], 2));
+    }
+
+    @Test
+    void getTopRecipeIds_returnsEmptyListForNoRecipes() {
+        assertTrue(recipeRankingService.getTopRecipeIds(1L, 0, null).isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.exceptions.ExpiredCursorException;
+import ntnu.idatt2106.backend.exceptions.InvalidCursorException;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipePageDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class RecipeSuggestionServiceTest {
+
+    @InjectMocks
+    private RecipeSuggestionService recipeSuggestionService;
+
+    @Mock
+    private RecipeRankingService recipeRankingService;
+
+    @Mock
+    private RecipeService recipeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(recipeRankingService.rankScoredRecipeIds(1L)).thenReturn(List.of(5L, 3L, 4L));
+        when(recipeRankingService.getRecipeIdsAfter(anyLong(), any(long[].class), anyInt())).thenAnswer(invocation -> {
+            long afterRecipeId = invocation.getArgument(0);
+            long[] skipped = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            return LongStream.rangeClosed(1, 5)
+                    .filter(id -> id > afterRecipeId && Arrays.binarySearch(skipped, id) < 0)
+                    .limit(limit).boxed().collect(Collectors.toList());
+        });
+        when(recipeService.getRecipesInOrder(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> {
+                RecipeDTO recipe = new RecipeDTO();
+                recipe.setId(id);
+                return recipe;
+            }).collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void getSuggestions_pagesThroughRankingWithoutDuplicates() throws InvalidCursorException {
+        RecipePageDTO first = recipeSuggestionService.getSuggestions(1L, 2, null);
+        RecipePageDTO second = recipeSuggestionService.getSuggestions(1L, 2, first.getNextCursor());
+        RecipePageDTO third = recipeSuggestionService.getSuggestions(1L, 2, second.getNextCursor());
+
+        assertEquals(List.of(5L, 3L), ids(first));
+        assertEquals(List.of(4L, 1L), ids(second));
+        assertEquals(List.of(2L), ids(third));
+        assertNull(third.getNextCursor());
+        verify(recipeRankingService, times(1)).rankScoredRecipeIds(1L);
+    }
+
+    @Test
+    void getSuggestions_pagesThroughUnscoredRecipesById() throws InvalidCursorException {
+        RecipePageDTO first = recipeSuggestionService.getSuggestions(1L, 3, null);
+        RecipePageDTO second = recipeSuggestionService.getSuggestions(1L, 1, first.getNextCursor());
+        RecipePageDTO third = recipeSuggestionService.getSuggestions(1L, 1, second.getNextCursor());
+
+        assertEquals(List.of(5L, 3L, 4L), ids(first));
+        assertEquals(List.of(1L), ids(second));
+        assertEquals(List.of(2L), ids(third));
+        assertNull(third.getNextCursor());
+    }
+
+    @Test
+    void getSuggestions_rejectsCursorPastTheEnd() throws InvalidCursorException {
+        RecipePageDTO first = recipeSuggestionService.getSuggestions(1L, 2, null);
+        String sessionId = new String(Base64.getUrlDecoder().decode(first.getNextCursor()), StandardCharsets.UTF_8)
+                .split(":")[0];
+
+        InvalidCursorException exception = assertThrows(InvalidCursorException.class,
+                () -> recipeSuggestionService.getSuggestions(1L, 2, RecipeSuggestionService.encodeCursor(sessionId, 4)));
+        assertEquals("Cursor points past the end of the suggestions", exception.getMessage());
+    }
+
+    @Test
+    void getSuggestions_rejectsUnknownCursor() {
+        String cursor = RecipeSuggestionService.encodeCursor("unknown", 2);
+
+        assertThrows(ExpiredCursorException.class, () -> recipeSuggestionService.getSuggestions(1L, 2, cursor));
+    }
+
+    @Test
+    void getSuggestions_rejectsMalformedCursor() {
+        InvalidCursorException exception = assertThrows(InvalidCursorException.class,
+                () -> recipeSuggestionService.getSuggestions(1L, 2, "not a cursor"));
+        assertFalse(exception instanceof ExpiredCursorException);
+    }
+
+    @Test
+    void getSuggestions_rejectsCursorOfAnotherRefrigerator() throws InvalidCursorException {
+        RecipePageDTO first = recipeSuggestionService.getSuggestions(1L, 2, null);
+
+        assertThrows(InvalidCursorException.class,
+                () -> recipeSuggestionService.getSuggestions(2L, 2, first.getNextCursor()));
+    }
+
+    @Test
+    void removeExpiredSessions_keepsLiveSessions() throws InvalidCursorException {
+        RecipePageDTO first = recipeSuggestionService.getSuggestions(1L, 2, null);
+
+        recipeSuggestionService.removeExpiredSessions();
+
+        assertEquals(List.of(4L, 1L), ids(recipeSuggestionService.getSuggestions(1L, 2, first.getNextCursor())));
+    }
+
+    private static List<Long> ids(RecipePageDTO page) {
+        return page.getRecipes().stream().map(RecipeDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,169 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.event.RecipeCatalogChangedEvent;
+import ntnu.idatt2106.backend.model.Unit;
+import ntnu.idatt2106.backend.event.RefrigeratorGroceriesChangedEvent;
+import ntnu.idatt2106.backend.model.dto.RefrigeratorGroceryAmountDTO;
+import ntnu.idatt2106.backend.model.dto.recipe.RecipeIngredientAmountDTO;
+import ntnu.idatt2106.backend.repository.RefrigeratorGroceryRepository;
+import ntnu.idatt2106.backend.repository.recipe.RecipeGroceryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RefrigeratorMatchCacheTest {
+
+    @InjectMocks
+    private RefrigeratorMatchCache refrigeratorMatchCache;
+
+    @Mock
+    private RefrigeratorGroceryRepository refrigeratorGroceryRepository;
+
+    @Mock
+    private RecipeGroceryRepository recipeGroceryRepository;
+
+    @Mock
+    private UnitService unitService;
+
+    @Mock
+    private RecipeIdRegistry recipeIdRegistry;
+
+    private static final long DL = 1L;
+    private static final long L = 2L;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(recipeIdRegistry.getOrdinals()).thenReturn(RecipeOrdinals.of(List.of(1L, 2L, 3L)));
+        when(unitService.getUnitWeightTable(any())).thenReturn(new UnitWeightTable(List.of(
+                Unit.builder().id(DL).name("dl").weight(100).build(),
+                Unit.builder().id(L).name("l").weight(1000).build())));
+        when(refrigeratorGroceryRepository.findGroceryAmountsByRefrigeratorId(anyLong())).thenReturn(List.of(
+                new RefrigeratorGroceryAmountDTO(10L, 2, DL, null)));
+        when(recipeGroceryRepository.findIngredientAmountsByGroceryIds(any())).thenReturn(List.of(
+                new RecipeIngredientAmountDTO(1L, 10L, 1, L),
+                new RecipeIngredientAmountDTO(2L, 10L, 1, DL),
+                new RecipeIngredientAmountDTO(3L, 11L, 1, DL)));
+    }
+
+    @Test
+    void getScores_weighsByQuantityCoverage() {
+        Map<Long, Double> scores = refrigeratorMatchCache.getScores(1L, today).toMap();
+
+        assertEquals(0.2, scores.get(1L), 1e-9);
+        assertEquals(1.0, scores.get(2L), 1e-9);
+        assertFalse(scores.containsKey(3L));
+    }
+
+    @Test
+    void getScores_weighsByExpiryUrgency() {
+        when(refrigeratorGroceryRepository.findGroceryAmountsByRefrigeratorId(anyLong())).thenReturn(List.of(
+                new RefrigeratorGroceryAmountDTO(10L, 1, DL, today)));
+
+        Map<Long, Double> scores = refrigeratorMatchCache.getScores(1L, today).toMap();
+
+        assertEquals(1.0 + RefrigeratorMatchCache.URGENCY_WEIGHT, scores.get(2L), 1e-9);
+    }
+
+    @Test
+    void getScores_readsRefrigeratorOnlyOnce() {
+        refrigeratorMatchCache.getScores(1L, today);
+        refrigeratorMatchCache.getScores(1L, today);
+        refrigeratorMatchCache.getGroceryIds(1L);
+
+        verify(refrigeratorGroceryRepository, times(1)).findGroceryAmountsByRefrigeratorId(1L);
+        verify(recipeGroceryRepository, times(1)).findIngredientAmountsByGroceryIds(any());
+    }
+
+    @Test
+    void groceriesChanged_appliesOnlyTheDelta() {
+        refrigeratorMatchCache.getScores(1L, today);
+        when(refrigeratorGroceryRepository.findGroceryAmountsByRefrigeratorIdAndGroceryIds(eq(1L), any())).thenReturn(List.of(
+                new RefrigeratorGroceryAmountDTO(11L, 1, DL, null)));
+
+        refrigeratorMatchCache.onRefrigeratorGroceriesChanged(new RefrigeratorGroceriesChangedEvent(1L, Set.of(10L, 11L)));
+        Map<Long, Double> scores = refrigeratorMatchCache.getScores(1L, today).toMap();
+
+        assertEquals(Map.of(3L, 1.0), scores);
+        assertEquals(Set.of(11L), refrigeratorMatchCache.getGroceryIds(1L));
+        verify(refrigeratorGroceryRepository, times(1)).findGroceryAmountsByRefrigeratorId(1L);
+    }
+
+    @Test
+    void groceriesChanged_duringLoadIsAppliedAfterIt() throws InterruptedException {
+        when(refrigeratorGroceryRepository.findGroceryAmountsByRefrigeratorIdAndGroceryIds(eq(1L), any())).thenReturn(List.of(
+                new RefrigeratorGroceryAmountDTO(11L, 1, DL, null)));
+        Thread[] change = new Thread[1];
+        when(refrigeratorGroceryRepository.findGroceryAmountsByRefrigeratorId(1L)).thenAnswer(invocation -> {
+            change[0] = new Thread(() -> refrigeratorMatchCache.onRefrigeratorGroceriesChanged(
+                    new RefrigeratorGroceriesChangedEvent(1L, Set.of(10L, 11L))));
+            change[0].start();
+            return List.of(new RefrigeratorGroceryAmountDTO(10L, 2, DL, null));
+        });
+
+        refrigeratorMatchCache.getScores(1L, today);
+        change[0].join();
+
+        assertEquals(Map.of(3L, 1.0), refrigeratorMatchCache.getScores(1L, today).toMap());
+        assertEquals(Set.of(11L), refrigeratorMatchCache.getGroceryIds(1L));
+    }
+
+    @Test
+    void groceriesChanged_isIgnoredForUncachedRefrigerator() {
+        refrigeratorMatchCache.onRefrigeratorGroceriesChanged(new RefrigeratorGroceriesChangedEvent(2L, Set.of(10L)));
+
+        verify(refrigeratorGroceryRepository, never()).findGroceryAmountsByRefrigeratorIdAndGroceryIds(anyLong(), any());
+    }
+
+    @Test
+    void recipeCatalogChanged_recomputesScoresWithoutReadingRefrigerator() {
+        refrigeratorMatchCache.getScores(1L, today);
+
+        refrigeratorMatchCache.onRecipeCatalogChanged(new RecipeCatalogChangedEvent(
+                RecipeCatalogChangedEvent.EntityType.RECIPE_GROCERY, RecipeCatalogChangedEvent.Action.PERSIST, 4L, 10L));
+        refrigeratorMatchCache.getScores(1L, today);
+
+        verify(refrigeratorGroceryRepository, times(1)).findGroceryAmountsByRefrigeratorId(1L);
+        verify(recipeGroceryRepository, times(2)).findIngredientAmountsByGroceryIds(any());
+    }
+
+    @Test
+    void newRecipeOrdinals_recomputeScoresWithTheAddedRecipe() {
+        RecipeOrdinals ordinals = RecipeOrdinals.of(List.of(2L, 3L));
+        when(recipeIdRegistry.getOrdinals()).thenReturn(ordinals);
+        assertEquals(Map.of(2L, 1.0), refrigeratorMatchCache.getScores(1L, today).toMap());
+
+        when(recipeIdRegistry.getOrdinals()).thenReturn(ordinals.withRecipe(1L));
+        Map<Long, Double> scores = refrigeratorMatchCache.getScores(1L, today).toMap();
+
+        assertEquals(0.2, scores.get(1L), 1e-9);
+        assertEquals(1.0, scores.get(2L), 1e-9);
+        verify(refrigeratorGroceryRepository, times(1)).findGroceryAmountsByRefrigeratorId(1L);
+    }
+
+    @Test
+    void getScores_countsUnknownUnitsAsCovered() {
+        when(refrigeratorGroceryRepository.findGroceryAmountsByRefrigeratorId(anyLong())).thenReturn(List.of(
+                new RefrigeratorGroceryAmountDTO(10L, 1, null, null)));
+
+        Map<Long, Double> scores = refrigeratorMatchCache.getScores(1L, today).toMap();
+
+        assertEquals(1.0, scores.get(1L), 1e-9);
+        assertEquals(1.0, scores.get(2L), 1e-9);
+    }
+}
@@ -30,6 +30,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import java.nio.file.AccessDeniedException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -66,6 +67,9 @@ public class RefrigeratorServiceTest {
     @Mock
     private RefrigeratorUserRepository refrigeratorUserRepository;
 
+    @Mock
+    private MembershipTokenService membershipTokenService;
+
     @InjectMocks
     private RefrigeratorService refrigeratorService;
 
@@ -639,4 +643,64 @@ public class RefrigeratorServiceTest {
         // Act & Assert
         Assertions.assertThrows(RefrigeratorNotFoundException.class, () -> refrigeratorService.getRefrigerator(id));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test getFridgeRole only reads the membership once")
+    public void testGetFridgeRoleIsCached() throws UserNotFoundException, UnauthorizedException {
+        RefrigeratorUser ru = new RefrigeratorUser();
+        ru.setUser(user);
+        ru.setRefrigerator(refrigerator);
+        ru.setFridgeRole(FridgeRole.USER);
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(refrigeratorUserRepository.findByUserAndRefrigerator(user, refrigerator)).thenReturn(Optional.of(ru));
+
+        Assertions.assertEquals(FridgeRole.USER, refrigeratorService.getFridgeRole(refrigerator, user.getEmail()));
+        Assertions.assertEquals(FridgeRole.USER, refrigeratorService.getFridgeRole(refrigerator, user.getEmail()));
+
+        Mockito.verify(refrigeratorUserRepository, times(1)).findByUserAndRefrigerator(user, refrigerator);
+    }
+
+    @Test
+    @DisplayName("Test getFridgeRole is answered from the memberships in the token")
+    public void testGetFridgeRoleFromTokenMemberships() throws UserNotFoundException {
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(membershipTokenService.getCurrentFridgeRoles(user)).thenReturn(Optional.of(Map.of(refrigerator.getId(), FridgeRole.SUPERUSER)));
+        Refrigerator otherRefrigerator = new Refrigerator();
+        otherRefrigerator.setId(2L);
+
+        Assertions.assertEquals(FridgeRole.SUPERUSER, refrigeratorService.getFridgeRole(refrigerator, user.getEmail()));
+        Assertions.assertThrows(UnauthorizedException.class, () -> refrigeratorService.getFridgeRole(otherRefrigerator, user.getEmail()));
+
+        Mockito.verify(refrigeratorUserRepository, times(0)).findByUserAndRefrigerator(any(), any());
+    }
+
+    @Test
+    @DisplayName("Test setFridgeRole evicts the cached role of the member")
+    public void testSetFridgeRoleEvictsCachedRole() throws Exception {
+        RefrigeratorUser ru = new RefrigeratorUser();
+        ru.setUser(user);
+        ru.setRefrigerator(refrigerator);
+        ru.setFridgeRole(FridgeRole.USER);
+        RefrigeratorUser superuserRole = new RefrigeratorUser();
+        superuserRole.setUser(superuser);
+        superuserRole.setRefrigerator(refrigerator);
+        superuserRole.setFridgeRole(FridgeRole.SUPERUSER);
+        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.findByEmail(superuser.getEmail())).thenReturn(Optional.of(superuser));
+        when(refrigeratorUserRepository.findByUserAndRefrigerator(user, refrigerator)).thenReturn(Optional.of(ru));
+        when(refrigeratorUserRepository.findByUserAndRefrigerator(superuser, refrigerator)).thenReturn(Optional.of(superuserRole));
+        when(refrigeratorUserRepository.save(any(RefrigeratorUser.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(refrigeratorRepository.findById(refrigerator.getId())).thenReturn(Optional.of(refrigerator));
+        when(jwtService.extractClaim(any(), any())).thenReturn(superuser.getEmail());
+
+        Assertions.assertEquals(FridgeRole.USER, refrigeratorService.getFridgeRole(refrigerator, user.getEmail()));
+
+        MemberRequest memberRequest = new MemberRequest();
+        memberRequest.setRefrigeratorId(refrigerator.getId());
+        memberRequest.setUserName(user.getEmail());
+        memberRequest.setFridgeRole(FridgeRole.SUPERUSER);
+        refrigeratorService.setFridgeRole(memberRequest, mock(HttpServletRequest.class));
+
+        Assertions.assertEquals(FridgeRole.SUPERUSER, refrigeratorService.getFridgeRole(refrigerator, user.getEmail()));
+    }
+}
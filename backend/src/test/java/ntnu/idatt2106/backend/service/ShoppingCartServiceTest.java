@@ -1,5 +1,6 @@
 package ntnu.idatt2106.backend.service;
 
+import jakarta.persistence.EntityNotFoundException;
 import ntnu.idatt2106.backend.exceptions.*;
 import ntnu.idatt2106.backend.model.*;
 import ntnu.idatt2106.backend.model.category.Category;
@@ -11,6 +12,7 @@ import ntnu.idatt2106.backend.model.enums.FridgeRole;
 import ntnu.idatt2106.backend.model.grocery.Grocery;
 import ntnu.idatt2106.backend.model.grocery.GroceryShoppingCart;
 import ntnu.idatt2106.backend.model.grocery.GroceryShoppingList;
+import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorShoppingList;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryListRequest;
 import ntnu.idatt2106.backend.model.requests.SaveGroceryRequest;
@@ -23,18 +25,21 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.mock.web.MockHttpServletRequest;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 public class ShoppingCartServiceTest {
 
@@ -392,4 +397,103 @@ public class ShoppingCartServiceTest {
 
         assertDoesNotThrow(() -> shoppingCartService.transferGroceryToRefrigerator(groceryListId, httpRequest, new CreateRefrigeratorGroceryDTO()));
     }
+
+    private GroceryShoppingCart shoppingCartItem(long id, Refrigerator refrigerator) {
+        SubCategory subCategory = new SubCategory();
+        subCategory.setCategory(new Category());
+        ShoppingList shoppingList = ShoppingList.builder()
+                .id(1L)
+                .refrigerator(refrigerator)
+                .build();
+        ShoppingCart shoppingCart = ShoppingCart.builder()
+                .id(1L)
+                .shoppingList(shoppingList)
+                .build();
+        Grocery grocery = Grocery.builder()
+                .id(id + 10)
+                .name("Banana")
+                .groceryExpiryDays(1)
+                .description("Description")
+                .subCategory(subCategory)
+                .build();
+        return GroceryShoppingCart.builder()
+                .id(id)
+                .grocery(grocery)
+                .shoppingCart(shoppingCart)
+                .quantity(1)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("transferAllGroceriesToRefrigerator authorizes once, inserts in one batch and deletes the cart items in one statement")
+    void transferAllGroceriesToRefrigerator_transfersInOneBatch() throws Exception {
+        Refrigerator refrigerator = Refrigerator.builder().id(1L).name("test").address("ntnu").build();
+        Unit unit = Unit.builder().id(3L).name("stk").weight(1).build();
+        GroceryShoppingCart first = shoppingCartItem(1L, refrigerator);
+        GroceryShoppingCart second = shoppingCartItem(2L, refrigerator);
+        SaveGroceryRequest[] request = {
+                new SaveGroceryRequest(1L, 2, new UnitDTO(unit), 1L),
+                new SaveGroceryRequest(2L, 4, new UnitDTO(unit), 1L)
+        };
+
+        when(groceryShoppingCartRepository.findAllFetchedByIds(Set.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(groceryService.getFridgeRole(refrigerator, httpRequest)).thenReturn(FridgeRole.SUPERUSER);
+        when(unitRepository.findAllById(Set.of(3L))).thenReturn(List.of(unit));
+
+        shoppingCartService.transferAllGroceriesToRefrigerator(request, httpRequest);
+
+        ArgumentCaptor<List<RefrigeratorGrocery>> saved = ArgumentCaptor.forClass(List.class);
+        verify(groceryService, times(1)).getFridgeRole(refrigerator, httpRequest);
+        verify(groceryService, times(1)).addRefrigeratorGroceries(eq(refrigerator), saved.capture());
+        verify(groceryShoppingCartRepository).deleteAllByIdIn(Set.of(1L, 2L));
+        verify(groceryShoppingCartRepository, never()).findById(anyLong());
+        assertEquals(2, saved.getValue().size());
+        assertEquals(2, saved.getValue().get(0).getQuantity());
+        assertEquals(4, saved.getValue().get(1).getQuantity());
+        assertEquals(unit, saved.getValue().get(1).getUnit());
+    }
+
+    @Test
+    @DisplayName("transferAllGroceriesToRefrigerator throws NoGroceriesFound when a cart item is missing")
+    void transferAllGroceriesToRefrigerator_throwsWhenCartItemIsMissing() throws Exception {
+        Refrigerator refrigerator = Refrigerator.builder().id(1L).build();
+        SaveGroceryRequest[] request = {
+                SaveGroceryRequest.builder().groceryId(1L).quantity(1).build(),
+                SaveGroceryRequest.builder().groceryId(2L).quantity(1).build()
+        };
+        when(groceryShoppingCartRepository.findAllFetchedByIds(Set.of(1L, 2L))).thenReturn(List.of(shoppingCartItem(1L, refrigerator)));
+
+        assertThrows(NoGroceriesFound.class, () -> shoppingCartService.transferAllGroceriesToRefrigerator(request, httpRequest));
+        verify(groceryService, never()).addRefrigeratorGroceries(any(), anyList());
+        verify(groceryShoppingCartRepository, never()).deleteAllByIdIn(any(Collection.class));
+    }
+
+    @Test
+    @DisplayName("transferAllGroceriesToRefrigerator throws UnauthorizedException and transfers nothing when the user is not a superuser")
+    void transferAllGroceriesToRefrigerator_throwsWhenNotAuthorized() throws Exception {
+        Refrigerator refrigerator = Refrigerator.builder().id(1L).build();
+        SaveGroceryRequest[] request = {SaveGroceryRequest.builder().groceryId(1L).quantity(1).build()};
+        when(groceryShoppingCartRepository.findAllFetchedByIds(Set.of(1L))).thenReturn(List.of(shoppingCartItem(1L, refrigerator)));
+        when(groceryService.getFridgeRole(refrigerator, httpRequest)).thenReturn(FridgeRole.USER);
+
+        assertThrows(UnauthorizedException.class, () -> shoppingCartService.transferAllGroceriesToRefrigerator(request, httpRequest));
+        verify(groceryService, never()).addRefrigeratorGroceries(any(), anyList());
+        verify(groceryShoppingCartRepository, never()).deleteAllByIdIn(any(Collection.class));
+    }
+
+    @Test
+    @DisplayName("transferAllGroceriesToRefrigerator throws EntityNotFoundException and transfers nothing when a unit is missing")
+    void transferAllGroceriesToRefrigerator_throwsWhenUnitIsMissing() throws Exception {
+        Refrigerator refrigerator = Refrigerator.builder().id(1L).build();
+        Unit unit = Unit.builder().id(3L).name("stk").weight(1).build();
+        SaveGroceryRequest[] request = {new SaveGroceryRequest(1L, 2, new UnitDTO(unit), 1L)};
+        when(groceryShoppingCartRepository.findAllFetchedByIds(Set.of(1L))).thenReturn(List.of(shoppingCartItem(1L, refrigerator)));
+        when(groceryService.getFridgeRole(refrigerator, httpRequest)).thenReturn(FridgeRole.SUPERUSER);
+        when(unitRepository.findAllById(Set.of(3L))).thenReturn(List.of());
+
+        assertThrows(EntityNotFoundException.class, () -> shoppingCartService.transferAllGroceriesToRefrigerator(request, httpRequest));
+        verify(groceryService, never()).addRefrigeratorGroceries(any(), anyList());
+        verify(groceryShoppingCartRepository, never()).deleteAllByIdIn(any(Collection.class));
+    }
 }
@@ -1,6 +1,7 @@
 package ntnu.idatt2106.backend.service;
 
 import jakarta.persistence.EntityNotFoundException;
+import ntnu.idatt2106.backend.exceptions.InvalidUnitException;
 import ntnu.idatt2106.backend.model.Unit;
 import ntnu.idatt2106.backend.model.grocery.RefrigeratorGrocery;
 import ntnu.idatt2106.backend.repository.UnitRepository;
@@ -10,10 +11,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class UnitServiceTest {
@@ -46,7 +51,7 @@ class UnitServiceTest {
     }
 
     @Test
-    void convertGrocery_ShouldReturnSameGrocery_WhenUnitIdExists() {
+    void convertGrocery_ShouldReturnSameGrocery_WhenUnitIdExists() throws Exception {
 
         RefrigeratorGrocery grocery = new RefrigeratorGrocery();
         grocery.setQuantity(100);
@@ -67,4 +72,57 @@ class UnitServiceTest {
         Assertions.assertEquals(200, convertedGrocery.getQuantity());
         Assertions.assertEquals(newUnit.getId(), convertedGrocery.getUnit().getId()); // compare only the id values
     }
+
+    @Test
+    void convertGrocery_ShouldThrowInvalidUnit_WhenNewUnitHasNoWeight() {
+        RefrigeratorGrocery grocery = new RefrigeratorGrocery();
+        grocery.setQuantity(3);
+        grocery.setUnit(Unit.builder().id(1L).name("dl").weight(100).build());
+        when(unitRepository.findById(2L)).thenReturn(Optional.of(Unit.builder().id(2L).name("stk").weight(0).build()));
+
+        Assertions.assertThrows(InvalidUnitException.class, () -> unitService.convertGrocery(grocery, 2L));
+        Assertions.assertEquals(3, grocery.getQuantity());
+        Assertions.assertEquals(1L, grocery.getUnit().getId());
+    }
+
+    @Test
+    void convert_KeepsQuantityInSameUnit_EvenWithoutWeight() throws Exception {
+        Unit piece = Unit.builder().id(2L).name("stk").weight(0).build();
+
+        Assertions.assertEquals(4, UnitWeightTable.convert(4, piece, piece));
+    }
+
+    @Test
+    void convert_DoesNotOverflowLargeQuantities() throws Exception {
+        Unit kilogram = Unit.builder().id(1L).name("kg").weight(1000).build();
+        Unit tonne = Unit.builder().id(2L).name("tonn").weight(1_000_000).build();
+
+        Assertions.assertEquals(3_000, UnitWeightTable.convert(3_000_000, kilogram, tonne));
+    }
+
+    @Test
+    void getUnitWeightTable_ConvertsToGramsAndIsLoadedOnce() {
+        Unit deciliter = Unit.builder().id(1L).name("dl").weight(100).build();
+        when(unitRepository.findAll()).thenReturn(List.of(deciliter));
+
+        UnitWeightTable table = unitService.getUnitWeightTable(Set.of(1L));
+        unitService.getUnitWeightTable(Set.of(1L));
+
+        Assertions.assertEquals(300, table.toGrams(3, 1L));
+        Assertions.assertEquals(0, table.toGrams(3, null));
+        verify(unitRepository, times(1)).findAll();
+    }
+
+    @Test
+    void getUnitWeightTable_ReloadsForUnknownUnit() {
+        when(unitRepository.findAll()).thenReturn(List.of(Unit.builder().id(1L).name("dl").weight(100).build()));
+        unitService.getUnitWeightTable(Set.of(1L));
+        when(unitRepository.findAll()).thenReturn(List.of(Unit.builder().id(1L).name("dl").weight(100).build(),
+                Unit.builder().id(2L).name("l").weight(1000).build()));
+
+        UnitWeightTable table = unitService.getUnitWeightTable(Set.of(2L));
+
+        Assertions.assertEquals(1000, table.toGrams(1, 2L));
+        verify(unitRepository, times(2)).findAll();
+    }
 }
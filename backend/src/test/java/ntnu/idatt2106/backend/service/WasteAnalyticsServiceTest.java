@@ -0,0 +1,111 @@
+package ntnu.idatt2106.backend.service;
+
+import ntnu.idatt2106.backend.event.GroceryHistoryChangedEvent;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollup;
+import ntnu.idatt2106.backend.model.GroceryHistoryRollupId;
+import ntnu.idatt2106.backend.model.dto.CategoryWasteDTO;
+import ntnu.idatt2106.backend.model.dto.MemberWasteDTO;
+import ntnu.idatt2106.backend.model.dto.WasteAnalyticsDTO;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRepository;
+import ntnu.idatt2106.backend.repository.GroceryHistoryRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class WasteAnalyticsServiceTest {
+
+    @InjectMocks
+    private WasteAnalyticsService wasteAnalyticsService;
+
+    @Mock
+    private GroceryHistoryRepository groceryHistoryRepository;
+
+    @Mock
+    private GroceryHistoryRollupRepository groceryHistoryRollupRepository;
+
+    private final long refrigeratorId = 1L;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(groceryHistoryRepository.sumWeightBySubCategory(anyLong(), any())).thenReturn(List.of(
+                new CategoryWasteDTO(1L, "Dairy", 300L, 100L),
+                new CategoryWasteDTO(2L, "Fruit", 0L, 500L),
+                new CategoryWasteDTO(3L, "Bread", 600L, 50L),
+                new CategoryWasteDTO(4L, "Meat", 200L, 0L)));
+        when(groceryHistoryRepository.sumWeightByUser(anyLong(), any())).thenReturn(List.of(
+                new MemberWasteDTO("a", "Anna", 100L, 300L),
+                new MemberWasteDTO("b", "Bob", 1000L, 350L)));
+        YearMonth now = YearMonth.now();
+        when(groceryHistoryRollupRepository.findAllByRefrigeratorIdAndMonths(anyLong(), anyInt(), anyInt())).thenReturn(List.of(
+                new GroceryHistoryRollup(GroceryHistoryRollupId.of(refrigeratorId, now), 300, 100)));
+    }
+
+    @Test
+    void getWasteAnalytics_returnsTopWastedCategories() {
+        WasteAnalyticsDTO analytics = wasteAnalyticsService.getWasteAnalytics(refrigeratorId, 12, 2);
+
+        assertEquals(2, analytics.getTopWastedCategories().size());
+        assertEquals("Bread", analytics.getTopWastedCategories().get(0).getSubCategoryName());
+        assertEquals("Dairy", analytics.getTopWastedCategories().get(1).getSubCategoryName());
+        assertEquals("Bob", analytics.getMembers().get(0).getName());
+        verify(groceryHistoryRepository, times(1))
+                .sumWeightBySubCategory(refrigeratorId, YearMonth.now().minusMonths(11).atDay(1));
+    }
+
+    @Test
+    void getWasteAnalytics_computesWasteRatioPerMonth() {
+        WasteAnalyticsDTO analytics = wasteAnalyticsService.getWasteAnalytics(refrigeratorId, 3, 5);
+
+        assertEquals(3, analytics.getWasteTrend().size());
+        assertEquals(0.25, analytics.getWasteTrend().get(0).getWasteRatio());
+        assertEquals(0.0, analytics.getWasteTrend().get(1).getWasteRatio());
+    }
+
+    @Test
+    void getWasteAnalytics_servesRepeatedReadsFromCache() {
+        wasteAnalyticsService.getWasteAnalytics(refrigeratorId, 12, 5);
+        wasteAnalyticsService.getWasteAnalytics(refrigeratorId, 12, 1);
+
+        verify(groceryHistoryRepository, times(1)).sumWeightBySubCategory(anyLong(), any(LocalDate.class));
+        verify(groceryHistoryRepository, times(1)).sumWeightByUser(anyLong(), any(LocalDate.class));
+    }
+
+    @Test
+    void onGroceryHistoryChanged_evictsRefrigerator() {
+        wasteAnalyticsService.getWasteAnalytics(refrigeratorId, 12, 5);
+        wasteAnalyticsService.getWasteAnalytics(2L, 12, 5);
+
+        wasteAnalyticsService.onGroceryHistoryChanged(new GroceryHistoryChangedEvent(refrigeratorId));
+        wasteAnalyticsService.getWasteAnalytics(refrigeratorId, 12, 5);
+        wasteAnalyticsService.getWasteAnalytics(2L, 12, 5);
+
+        verify(groceryHistoryRepository, times(2)).sumWeightBySubCategory(eq(refrigeratorId), any());
+        verify(groceryHistoryRepository, times(1)).sumWeightBySubCategory(eq(2L), any());
+    }
+
+    @Test
+    void onGroceryHistoryChanged_duringComputeKeepsResultOutOfCache() {
+        when(groceryHistoryRepository.sumWeightByUser(eq(refrigeratorId), any())).thenAnswer(invocation -> {
+            wasteAnalyticsService.onGroceryHistoryChanged(new GroceryHistoryChangedEvent(refrigeratorId));
+            return List.of();
+        });
+
+        wasteAnalyticsService.getWasteAnalytics(refrigeratorId, 12, 5);
+        wasteAnalyticsService.getWasteAnalytics(refrigeratorId, 12, 5);
+
+        verify(groceryHistoryRepository, times(2)).sumWeightBySubCategory(eq(refrigeratorId), any());
+    }
+}
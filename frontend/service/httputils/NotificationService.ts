@@ -1,5 +1,6 @@
 import axiosInstance from "../AxiosInstance";
 import type { AxiosResponse } from "axios";
+import type { GroceryNotification } from "~/types/GroceryNotificationType";
 
 export const getNotifications = async () : Promise<AxiosResponse> => {
     return axiosInstance.get('/api/notifications/all');
@@ -7,4 +8,24 @@ export const getNotifications = async () : Promise<AxiosResponse> => {
 
 export const deleteNotifications = async (notificationId : number) : Promise<AxiosResponse> => {
     return axiosInstance.post('api/notifications/delete', notificationId);
-} 
\ No newline at end of file
+} 
+
+export interface NotificationStreamHandlers {
+    onNotification: (notification : GroceryNotification) => void,
+    onNotificationDeleted: (notification : GroceryNotification) => void,
+    onNotificationsDismissed: (ids : number[]) => void,
+    onResync: () => void,
+}
+
+/**
+ * Opens the stream of created, deleted and dismissed notifications of the logged in user.
+ * The browser reconnects by itself and gets the events it missed, or a resync event if they are no longer kept.
+ */
+export const openNotificationStream = (handlers : NotificationStreamHandlers) : EventSource => {
+    const eventSource = new EventSource(axiosInstance.defaults.baseURL + '/api/notifications/stream', { withCredentials: true });
+    eventSource.addEventListener('notification', (event) => handlers.onNotification(JSON.parse((event as MessageEvent).data)));
+    eventSource.addEventListener('notification-deleted', (event) => handlers.onNotificationDeleted(JSON.parse((event as MessageEvent).data)));
+    eventSource.addEventListener('notifications-dismissed', (event) => handlers.onNotificationsDismissed(JSON.parse((event as MessageEvent).data).ids));
+    eventSource.addEventListener('resync', () => handlers.onResync());
+    return eventSource;
+}
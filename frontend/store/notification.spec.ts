@@ -26,4 +26,14 @@ describe('notification store', () => {
         expect(notificationStore.getNotifications).not.toContain(notificationToDelete)
     })
 
+    it('deletes every dismissed notification when deleteNotificationsByIds is called', () => {
+        const notificationStore = useNotificationStore()
+        const notifications = [      { id: 1, message: 'Notification 1', refrigeratorGrocery: { id: 1, physicalExpireDate: '2023-06-01' } },      { id: 2, message: 'Notification 2', refrigeratorGrocery: { id: 2, physicalExpireDate: '2023-06-02' } },    ]
+        notificationStore.setNotification(notifications)
+
+        notificationStore.deleteNotificationsByIds([1, 2])
+
+        expect(notificationStore.getNotifications).toHaveLength(0)
+    })
+
 })
@@ -24,6 +24,14 @@ export const useNotificationStore = defineStore('notification', {
             if (index !== -1) {
               this.notifications.splice(index, 1);
             }
-          }
+          },
+        addNotification(notification : GroceryNotification) {
+            notification.refrigeratorGrocery.physicalExpireDate = new Date(Date.parse(notification.refrigeratorGrocery.physicalExpireDate.toString()));
+            this.deleteNotification(notification);
+            this.notifications.push(notification);
+        },
+        deleteNotificationsByIds(ids : number[]) {
+            this.notifications = this.notifications.filter(n => !ids.includes(n.id));
+        }
     }
 });